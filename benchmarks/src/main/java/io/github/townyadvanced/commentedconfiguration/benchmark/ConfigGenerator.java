@@ -0,0 +1,76 @@
+package io.github.townyadvanced.commentedconfiguration.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Generates synthetic configurations for the benchmarks.
+ */
+final class ConfigGenerator {
+    /**
+     * The shape of a generated configuration.
+     */
+    enum Shape {
+        /**
+         * Sections of 100 keys directly under the root.
+         */
+        FLAT,
+        /**
+         * Keys six sections deep, with up to eight children per section.
+         */
+        DEEP
+    }
+
+    private ConfigGenerator() {
+    }
+
+    /**
+     * Generates the paths of the keys of a configuration.
+     *
+     * @param nodes The number of keys.
+     * @param shape The shape of the configuration.
+     * @return The path of every key.
+     */
+    static @NotNull List<String> paths(int nodes, @NotNull Shape shape) {
+        List<String> paths = new ArrayList<>(nodes);
+        for (int i = 0; i < nodes; i++) {
+            if (shape == Shape.FLAT) {
+                paths.add("section" + (i / 100) + ".key" + i);
+            } else {
+                StringBuilder path = new StringBuilder();
+                for (int level = 5; level > 0; level--) {
+                    path.append("level").append((i >> (level * 3)) & 7).append('.');
+                }
+                paths.add(path.append("key").append(i).toString());
+            }
+        }
+        return paths;
+    }
+
+    /**
+     * Generates the yaml of a configuration holding a String value for every path.
+     *
+     * @param paths The paths of the keys.
+     * @return The serialized configuration.
+     */
+    static @NotNull String yaml(@NotNull List<String> paths) {
+        YamlConfiguration config = new YamlConfiguration();
+        for (int i = 0; i < paths.size(); i++) {
+            config.set(paths.get(i), "value " + i);
+        }
+        return config.saveToString();
+    }
+
+    /**
+     * Generates the comment lines of a key.
+     *
+     * @param path  The path of the key.
+     * @return Two lines of comments.
+     */
+    static @NotNull String[] comments(@NotNull String path) {
+        return new String[] {"# This is the setting " + path + ".", "# It was generated for benchmarking."};
+    }
+}
@@ -0,0 +1,122 @@
+package io.github.townyadvanced.commentedconfiguration.benchmark;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import io.github.townyadvanced.commentedconfiguration.CommentedConfiguration;
+import io.github.townyadvanced.commentedconfiguration.SaveResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks loading, saving and commenting whole configurations.
+ * Run with {@code -prof gc} to also measure the allocation rate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ConfigurationBenchmark {
+    private static final Logger LOGGER = Logger.getLogger("ConfigurationBenchmark");
+
+    @Param({"1000", "10000", "100000"})
+    public int nodes;
+
+    @Param({"FLAT", "DEEP"})
+    public ConfigGenerator.Shape shape;
+
+    private Path directory;
+    private Path file;
+    private List<String> paths;
+    private CommentedConfiguration config;
+    private int counter;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("commentedconfiguration-benchmark");
+        file = directory.resolve("config.yml");
+        paths = ConfigGenerator.paths(nodes, shape);
+        Files.write(file, ConfigGenerator.yaml(paths).getBytes(StandardCharsets.UTF_8));
+
+        config = new CommentedConfiguration(file, LOGGER);
+        if (!config.load()) {
+            throw new IllegalStateException("Failed to load the generated configuration.");
+        }
+        addComments(config);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(directory);
+    }
+
+    private void addComments(CommentedConfiguration target) {
+        for (String path : paths) {
+            target.addComment(path, ConfigGenerator.comments(path));
+        }
+    }
+
+    /**
+     * Parses the configuration file.
+     */
+    @Benchmark
+    public CommentedConfiguration load() {
+        CommentedConfiguration loaded = new CommentedConfiguration(file, LOGGER);
+        loaded.load();
+        return loaded;
+    }
+
+    /**
+     * Serializes, comments and writes a configuration with one changed value.
+     */
+    @Benchmark
+    public SaveResult save() {
+        config.set("benchmark.counter", counter++);
+        return config.save();
+    }
+
+    /**
+     * Saves a configuration that has not changed since it was last saved.
+     */
+    @Benchmark
+    public SaveResult saveUnchanged() {
+        return config.save();
+    }
+
+    /**
+     * Serializes and comments the configuration without writing it.
+     */
+    @Benchmark
+    public String saveToStringWithComments() {
+        return config.saveToStringWithComments();
+    }
+
+    /**
+     * Adds the comments of every key to an empty configuration.
+     */
+    @Benchmark
+    public CommentedConfiguration addComment() {
+        CommentedConfiguration commented = new CommentedConfiguration(file, LOGGER);
+        addComments(commented);
+        return commented;
+    }
+}
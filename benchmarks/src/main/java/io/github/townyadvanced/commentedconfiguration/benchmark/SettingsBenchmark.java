@@ -0,0 +1,122 @@
+package io.github.townyadvanced.commentedconfiguration.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import io.github.townyadvanced.commentedconfiguration.setting.CommentedNode;
+import io.github.townyadvanced.commentedconfiguration.setting.IntNode;
+import io.github.townyadvanced.commentedconfiguration.setting.Settings;
+import io.github.townyadvanced.commentedconfiguration.setting.SimpleNode;
+import io.github.townyadvanced.commentedconfiguration.setting.TypedValueNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks reading node values through {@link Settings}, compared to reading them from the configuration.
+ * Run with {@code -prof gc} to also measure the allocation rate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SettingsBenchmark {
+    @Param({"1000", "10000"})
+    public int nodes;
+
+    @Param({"FLAT", "DEEP"})
+    public ConfigGenerator.Shape shape;
+
+    private Path directory;
+    private Path file;
+    private Settings settings;
+    private TypedValueNode<String>[] stringNodes;
+    private IntNode[] intNodes;
+    private int index;
+
+    @Setup(Level.Trial)
+    @SuppressWarnings("unchecked")
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("commentedconfiguration-benchmark");
+        file = directory.resolve("config.yml");
+
+        List<String> paths = ConfigGenerator.paths(nodes, shape);
+        List<CommentedNode> allNodes = new ArrayList<>();
+        stringNodes = new TypedValueNode[nodes / 2];
+        intNodes = new IntNode[nodes - nodes / 2];
+        for (int i = 0; i < nodes; i++) {
+            String path = paths.get(i);
+            if (i % 2 == 0) {
+                IntNode node = IntNode.builder(path).defaultValue(i).comment("An int").build();
+                intNodes[i / 2] = node;
+                allNodes.add(node);
+            } else {
+                SimpleNode<String> node = SimpleNode.builder(path, String.class).defaultValue("value " + i).comment("A string").build();
+                stringNodes[i / 2] = node;
+                allNodes.add(node);
+            }
+        }
+
+        settings = new Settings(file, Logger.getLogger("SettingsBenchmark"), allNodes);
+        if (!settings.load()) {
+            throw new IllegalStateException("Failed to load the generated settings.");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(directory);
+    }
+
+    private int next(int length) {
+        int i = index + 1;
+        if (i >= length) {
+            i = 0;
+        }
+        index = i;
+        return i;
+    }
+
+    /**
+     * Reads a String node through the settings.
+     */
+    @Benchmark
+    public String get() {
+        return settings.get(stringNodes[next(stringNodes.length)]);
+    }
+
+    /**
+     * Reads an int node through the settings without boxing.
+     */
+    @Benchmark
+    public int getInt() {
+        return settings.getInt(intNodes[next(intNodes.length)]);
+    }
+
+    /**
+     * Reads a String node straight from the configuration, as Settings did before values were resolved on load.
+     */
+    @Benchmark
+    public String getFromConfig() {
+        TypedValueNode<String> node = stringNodes[next(stringNodes.length)];
+        return settings.getConfig().getObject(node.getPath(), node.getType(), node.getDefaultValue());
+    }
+}
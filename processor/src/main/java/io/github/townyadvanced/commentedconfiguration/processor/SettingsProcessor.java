@@ -0,0 +1,431 @@
+package io.github.townyadvanced.commentedconfiguration.processor;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.ExecutableType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+
+import io.github.townyadvanced.commentedconfiguration.setting.annotation.GenerateSettings;
+import io.github.townyadvanced.commentedconfiguration.setting.annotation.Section;
+import io.github.townyadvanced.commentedconfiguration.setting.annotation.Setting;
+
+/**
+ * Generates a settings class for every interface annotated with {@link GenerateSettings}.
+ * <p>
+ * The generated class declares every node as a constant built once, in the order the methods are declared, along
+ * with the node list and the comment blocks for {@code Settings}. Sections become comment-only {@code SectionNode}s,
+ * which hold no value. Its getters pass the constants straight to the typed getters of {@code Settings}, so reads
+ * need no path parsing, reflection or lookups by name.
+ */
+@SupportedAnnotationTypes("io.github.townyadvanced.commentedconfiguration.setting.annotation.GenerateSettings")
+public class SettingsProcessor extends AbstractProcessor {
+    private static final String SETTING_PACKAGE = "io.github.townyadvanced.commentedconfiguration.setting";
+    private static final String CORE_PACKAGE = "io.github.townyadvanced.commentedconfiguration.core";
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (Element element : roundEnv.getElementsAnnotatedWith(GenerateSettings.class)) {
+            if (element.getKind() != ElementKind.INTERFACE) {
+                error(element, "@GenerateSettings can only be used on interfaces.");
+                continue;
+            }
+            TypeElement type = (TypeElement) element;
+            List<NodeSpec> nodes = collectNodes(type);
+            if (nodes == null) {
+                continue;
+            }
+            try {
+                generate(type, nodes);
+            } catch (IOException e) {
+                error(type, "Failed to generate settings class: " + e.getMessage());
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Collects the sections and nodes of an interface, in the order they were declared.
+     *
+     * @param type  The annotated interface.
+     * @return The nodes, or null if the interface has errors.
+     */
+    private List<NodeSpec> collectNodes(TypeElement type) {
+        List<NodeSpec> nodes = new ArrayList<>();
+        Set<String> constants = new HashSet<>();
+        boolean valid = true;
+        for (Section section : type.getAnnotation(GenerateSettings.class).sections()) {
+            String constant = toConstantName(section.path()) + "_SECTION";
+            constants.add(constant);
+            nodes.add(new NodeSpec(constant, section.path(), "", section.comment(), NodeKind.SECTION, null, null,
+                    null));
+        }
+        Map<String, ExecutableElement> methods = new LinkedHashMap<>();
+        collectMethods(type, methods, new HashSet<>());
+        for (ExecutableElement method : methods.values()) {
+            if (!method.getModifiers().contains(Modifier.ABSTRACT)) {
+                continue;
+            }
+            boolean inherited = !method.getEnclosingElement().equals(type);
+            Setting setting = method.getAnnotation(Setting.class);
+            if (setting == null) {
+                if (inherited) {
+                    // @Setting has source retention, so it is lost once the interface is compiled.
+                    error(type, "Inherited method " + describe(method) + " must be annotated with @Setting, and its "
+                            + "interface compiled along with this one.");
+                } else {
+                    error(method, "Methods of a @GenerateSettings interface must be annotated with @Setting.");
+                }
+                valid = false;
+                continue;
+            }
+            if (!method.getParameters().isEmpty() || !method.getTypeParameters().isEmpty()) {
+                error(inherited ? type : method, "Methods of a @GenerateSettings interface must not take parameters"
+                        + (inherited ? ", but " + describe(method) + " does." : "."));
+                valid = false;
+                continue;
+            }
+            // The return type as seen from this interface, so type arguments of super-interfaces are filled in.
+            ExecutableType methodType = (ExecutableType) processingEnv.getTypeUtils()
+                    .asMemberOf((DeclaredType) type.asType(), method);
+            TypeMirror returnType = methodType.getReturnType();
+            NodeKind kind = NodeKind.of(returnType.getKind());
+            if (kind == null) {
+                error(inherited ? type : method, "Settings of type " + returnType + " are not supported"
+                        + (inherited ? ", as returned by " + describe(method) + "." : "."));
+                valid = false;
+                continue;
+            }
+            String constant = toConstantName(method.getSimpleName().toString());
+            if (!constants.add(constant)) {
+                error(inherited ? type : method, "Another setting already uses the constant " + constant + ".");
+                valid = false;
+                continue;
+            }
+            String rawType = kind == NodeKind.OBJECT ? processingEnv.getTypeUtils().erasure(returnType).toString() : null;
+            nodes.add(new NodeSpec(constant, setting.path(), setting.defaultValue(), setting.comment(), kind,
+                    method, returnType.toString(), rawType));
+        }
+        return valid ? nodes : null;
+    }
+
+    /**
+     * Collects the methods of an interface and its super-interfaces, those of super-interfaces first. A method that
+     * is declared again keeps its place but is replaced by the declaration that overrides it.
+     *
+     * @param type      The interface.
+     * @param methods   The methods found so far, by signature.
+     * @param visited   The interfaces already collected, as an interface can be inherited through several paths.
+     */
+    private void collectMethods(TypeElement type, Map<String, ExecutableElement> methods, Set<TypeElement> visited) {
+        if (!visited.add(type)) {
+            return;
+        }
+        for (TypeMirror superInterface : type.getInterfaces()) {
+            collectMethods((TypeElement) processingEnv.getTypeUtils().asElement(superInterface), methods, visited);
+        }
+        for (Element member : type.getEnclosedElements()) {
+            if (member.getKind() != ElementKind.METHOD || member.getModifiers().contains(Modifier.STATIC)) {
+                continue;
+            }
+            ExecutableElement method = (ExecutableElement) member;
+            methods.put(signature(method), method);
+        }
+    }
+
+    private String signature(ExecutableElement method) {
+        StringBuilder signature = new StringBuilder(method.getSimpleName()).append('(');
+        for (VariableElement parameter : method.getParameters()) {
+            signature.append(processingEnv.getTypeUtils().erasure(parameter.asType())).append(',');
+        }
+        return signature.append(')').toString();
+    }
+
+    private static String describe(ExecutableElement method) {
+        return method.getEnclosingElement().getSimpleName() + "." + method.getSimpleName() + "()";
+    }
+
+    /**
+     * Writes the settings class of an interface.
+     *
+     * @param type  The annotated interface.
+     * @param nodes The nodes of the interface.
+     * @throws IOException if the source file cannot be written.
+     */
+    private void generate(TypeElement type, List<NodeSpec> nodes) throws IOException {
+        PackageElement pkg = processingEnv.getElementUtils().getPackageOf(type);
+        String packageName = pkg.isUnnamed() ? "" : pkg.getQualifiedName().toString();
+        String className = type.getAnnotation(GenerateSettings.class).className();
+        if (className.isEmpty()) {
+            className = type.getSimpleName() + "Settings";
+        }
+        String qualifiedName = packageName.isEmpty() ? className : packageName + "." + className;
+
+        try (Writer writer = processingEnv.getFiler().createSourceFile(qualifiedName, type).openWriter();
+             PrintWriter out = new PrintWriter(writer)) {
+            if (!packageName.isEmpty()) {
+                out.println("package " + packageName + ";");
+                out.println();
+            }
+            out.println("import java.nio.file.Path;");
+            out.println("import java.util.Arrays;");
+            out.println("import java.util.Collections;");
+            out.println("import java.util.List;");
+            out.println("import java.util.logging.Logger;");
+            out.println();
+            out.println("import " + CORE_PACKAGE + ".Comments;");
+            for (String node : new String[]{"BooleanNode", "CommentedNode", "DoubleNode", "IntNode", "LongNode",
+                    "SectionNode", "Settings", "SimpleNode", "TypedValueNode"}) {
+                out.println("import " + SETTING_PACKAGE + "." + node + ";");
+            }
+            out.println();
+            out.println("/**");
+            out.println(" * Settings generated from {@link " + type.getQualifiedName() + "}.");
+            out.println(" */");
+            out.println("@SuppressWarnings({\"rawtypes\", \"unchecked\"})");
+            out.println("public final class " + className + " implements " + type.getQualifiedName() + " {");
+            for (NodeSpec node : nodes) {
+                writeConstant(out, node);
+            }
+            out.println();
+            out.println("    /**");
+            out.println("     * All nodes, in the order they were declared.");
+            out.println("     */");
+            out.print("    public static final List<CommentedNode> NODES = Collections.unmodifiableList(Arrays.asList(");
+            for (int i = 0; i < nodes.size(); i++) {
+                out.print((i == 0 ? "" : ", ") + nodes.get(i).constant);
+            }
+            out.println("));");
+            out.println();
+            out.println("    /**");
+            out.println("     * The comment blocks of all nodes, built once for all settings made by {@link #create(Path, Logger)}.");
+            out.println("     */");
+            out.println("    private static final Comments COMMENTS = Settings.buildComments(NODES);");
+            out.println();
+            out.println("    private final Settings settings;");
+            out.println();
+            out.println("    /**");
+            out.println("     * Reads the nodes from settings that were created with {@link #NODES}.");
+            out.println("     *");
+            out.println("     * @param settings  The settings to read from.");
+            out.println("     */");
+            out.println("    public " + className + "(Settings settings) {");
+            out.println("        this.settings = settings;");
+            out.println("    }");
+            out.println();
+            out.println("    /**");
+            out.println("     * Creates settings for a configuration file with all nodes. Call {@code getSettings().load()} to load it.");
+            out.println("     *");
+            out.println("     * @param configPath    The path to the configuration file.");
+            out.println("     * @param logger        The Logger to use for error messages.");
+            out.println("     * @return The settings.");
+            out.println("     */");
+            out.println("    public static " + className + " create(Path configPath, Logger logger) {");
+            out.println("        return new " + className + "(new Settings(configPath, logger, NODES, COMMENTS));");
+            out.println("    }");
+            out.println();
+            out.println("    /**");
+            out.println("     * Gets the settings the nodes are read from, to load, save or set them.");
+            out.println("     *");
+            out.println("     * @return The settings.");
+            out.println("     */");
+            out.println("    public Settings getSettings() {");
+            out.println("        return settings;");
+            out.println("    }");
+            for (NodeSpec node : nodes) {
+                if (node.method != null) {
+                    writeGetter(out, node);
+                }
+            }
+            out.println("}");
+        }
+    }
+
+    private void writeConstant(PrintWriter out, NodeSpec node) {
+        out.println();
+        out.println("    public static final " + node.fieldType() + " " + node.constant + " = " + node.builder());
+        if (!node.defaultValue.isEmpty()) {
+            out.println("            .defaultValue(" + node.defaultValue + ")");
+        }
+        for (String line : node.comment) {
+            out.println("            .comment(" + quote(line) + ")");
+        }
+        out.println("            .build();");
+    }
+
+    private void writeGetter(PrintWriter out, NodeSpec node) {
+        out.println();
+        out.println("    @Override");
+        out.println("    public " + node.returnType + " " + node.method.getSimpleName() + "() {");
+        out.println("        return " + node.read() + ";");
+        out.println("    }");
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+
+    /**
+     * Turns a method name or path into a constant name, like {@code maxPlayers} into {@code MAX_PLAYERS}.
+     *
+     * @param name  The name to turn into a constant name.
+     * @return The constant name.
+     */
+    static String toConstantName(String name) {
+        StringBuilder constant = new StringBuilder(name.length() + 8);
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (Character.isUpperCase(c) && i > 0 && Character.isLowerCase(name.charAt(i - 1))) {
+                constant.append('_');
+            }
+            constant.append(Character.isJavaIdentifierPart(c) ? c : '_');
+        }
+        return constant.toString().toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * Quotes a string as a Java string literal.
+     *
+     * @param value The string to quote.
+     * @return The string literal.
+     */
+    static String quote(String value) {
+        StringBuilder literal = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    literal.append("\\\"");
+                    break;
+                case '\\':
+                    literal.append("\\\\");
+                    break;
+                case '\n':
+                    literal.append("\\n");
+                    break;
+                case '\r':
+                    literal.append("\\r");
+                    break;
+                case '\t':
+                    literal.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        literal.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        literal.append(c);
+                    }
+            }
+        }
+        return literal.append('"').toString();
+    }
+
+    /**
+     * The kinds of nodes that can be generated.
+     */
+    private enum NodeKind {
+        INT("IntNode", "IntNode.builder(%s)", "settings.getInt(%s)"),
+        LONG("LongNode", "LongNode.builder(%s)", "settings.getLong(%s)"),
+        DOUBLE("DoubleNode", "DoubleNode.builder(%s)", "settings.getDouble(%s)"),
+        BOOLEAN("BooleanNode", "BooleanNode.builder(%s)", "settings.getBoolean(%s)"),
+        OBJECT(null, null, "settings.get(%s)"),
+        SECTION("SectionNode", "SectionNode.builder(%s)", null);
+
+        private final String fieldType;
+        private final String builder;
+        private final String read;
+
+        NodeKind(String fieldType, String builder, String read) {
+            this.fieldType = fieldType;
+            this.builder = builder;
+            this.read = read;
+        }
+
+        static NodeKind of(TypeKind kind) {
+            switch (kind) {
+                case INT:
+                    return INT;
+                case LONG:
+                    return LONG;
+                case DOUBLE:
+                    return DOUBLE;
+                case BOOLEAN:
+                    return BOOLEAN;
+                case DECLARED:
+                    return OBJECT;
+                default:
+                    return null;
+            }
+        }
+    }
+
+    /**
+     * A node to generate.
+     */
+    private static final class NodeSpec {
+        private final String constant;
+        private final String path;
+        private final String defaultValue;
+        private final List<String> comment;
+        private final NodeKind kind;
+        private final ExecutableElement method;
+        private final String returnType;
+        private final String rawType;
+
+        private NodeSpec(String constant, String path, String defaultValue, String[] comment, NodeKind kind,
+                         ExecutableElement method, String returnType, String rawType) {
+            this.constant = constant;
+            this.path = path;
+            this.defaultValue = defaultValue;
+            this.comment = Collections.unmodifiableList(Arrays.asList(comment));
+            this.kind = kind;
+            this.method = method;
+            this.returnType = returnType;
+            this.rawType = rawType;
+        }
+
+        private String fieldType() {
+            return kind == NodeKind.OBJECT ? "TypedValueNode<" + rawType + ">" : kind.fieldType;
+        }
+
+        private String builder() {
+            if (kind == NodeKind.OBJECT) {
+                return "SimpleNode.builder(" + quote(path) + ", " + rawType + ".class)";
+            }
+            return String.format(kind.builder, quote(path));
+        }
+
+        private String read() {
+            return String.format(kind.read, constant);
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package io.github.townyadvanced.commentedconfiguration.processor;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import io.github.townyadvanced.commentedconfiguration.setting.CommentedNode;
+import io.github.townyadvanced.commentedconfiguration.setting.IntNode;
+import io.github.townyadvanced.commentedconfiguration.setting.SectionNode;
+import io.github.townyadvanced.commentedconfiguration.setting.Settings;
+import io.github.townyadvanced.commentedconfiguration.setting.ValueNode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestSettingsProcessor {
+    private Path testdir;
+    private final List<String> errors = new ArrayList<>();
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        testdir = Files.createTempDirectory("processor");
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        try (java.util.stream.Stream<Path> files = Files.walk(testdir)) {
+            for (Path file : files.sorted(Collections.reverseOrder()).collect(Collectors.toList())) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Generate a settings class with a node and a getter for every method.")
+    public void generateSettings() throws Exception {
+        Class<?> generated = compile("sample.MessagesSettings",
+                "package sample;\n"
+                + "import io.github.townyadvanced.commentedconfiguration.setting.annotation.*;\n"
+                + "@GenerateSettings(sections = @Section(path = \"messages\", comment = \"The messages\"))\n"
+                + "public interface Messages {\n"
+                + "    @Setting(path = \"messages.limit\", defaultValue = \"10\", comment = \"The limit\")\n"
+                + "    int limit();\n"
+                + "    @Setting(path = \"messages.delay\", defaultValue = \"2500L\")\n"
+                + "    long delay();\n"
+                + "    @Setting(path = \"messages.scale\", defaultValue = \"1.5\")\n"
+                + "    double scale();\n"
+                + "    @Setting(path = \"messages.enabled\", defaultValue = \"true\")\n"
+                + "    boolean enabled();\n"
+                + "    @Setting(path = \"messages.greeting\", defaultValue = \"\\\"Hello \\\\\\\"there\\\\\\\"\\\"\")\n"
+                + "    String greeting();\n"
+                + "    @Setting(path = \"messages.lines\", defaultValue = \"java.util.Arrays.asList(\\\"a\\\", \\\"b\\\")\")\n"
+                + "    java.util.List<String> lines();\n"
+                + "    default String unrelated() { return \"\"; }\n"
+                + "}\n");
+        assertTrue(errors.isEmpty(), errors.toString());
+
+        List<CommentedNode> nodes = nodes(generated);
+        assertEquals(Arrays.asList("messages", "messages.limit", "messages.delay", "messages.scale",
+                "messages.enabled", "messages.greeting", "messages.lines"), paths(nodes));
+        assertTrue(nodes.get(0) instanceof SectionNode);
+        assertFalse(nodes.get(0) instanceof ValueNode);
+        assertEquals(Collections.singletonList("# The messages"), Arrays.asList(nodes.get(0).getComments()));
+        assertEquals(Collections.singletonList("# The limit"), Arrays.asList(nodes.get(1).getComments()));
+        assertEquals(10, ((IntNode) nodes.get(1)).getDefaultInt());
+
+        Path configFile = testdir.resolve("messages.yml");
+        Files.write(configFile, "messages:\n  limit: 20\n".getBytes(StandardCharsets.UTF_8));
+        Object messages = generated.getMethod("create", Path.class, Logger.class)
+                .invoke(null, configFile, Logger.getLogger("TestSettingsProcessor"));
+        Settings settings = (Settings) generated.getMethod("getSettings").invoke(messages);
+        try {
+            assertTrue(settings.load());
+            assertEquals(20, generated.getMethod("limit").invoke(messages));
+            assertEquals(2500L, generated.getMethod("delay").invoke(messages));
+            assertEquals(1.5, generated.getMethod("scale").invoke(messages));
+            assertEquals(true, generated.getMethod("enabled").invoke(messages));
+            assertEquals("Hello \"there\"", generated.getMethod("greeting").invoke(messages));
+            assertEquals(Arrays.asList("a", "b"), generated.getMethod("lines").invoke(messages));
+            settings.save();
+            String saved = new String(Files.readAllBytes(configFile), StandardCharsets.UTF_8);
+            assertTrue(saved.contains("# The messages\nmessages:"), saved);
+            assertTrue(saved.contains("# The limit\n  limit: 20"), saved);
+        } finally {
+            settings.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Generate the nodes of methods inherited from super-interfaces first.")
+    public void inheritedSettings() throws Exception {
+        Class<?> generated = compile("sample.ChildSettings",
+                "package sample;\n"
+                + "import io.github.townyadvanced.commentedconfiguration.setting.annotation.*;\n"
+                + "interface Parent<T> {\n"
+                + "    @Setting(path = \"parent.value\")\n"
+                + "    T value();\n"
+                + "    @Setting(path = \"parent.overridden\")\n"
+                + "    int overridden();\n"
+                + "    @Setting(path = \"parent.replaced\")\n"
+                + "    int replaced();\n"
+                + "}\n",
+                "package sample;\n"
+                + "import io.github.townyadvanced.commentedconfiguration.setting.annotation.*;\n"
+                + "@GenerateSettings\n"
+                + "public interface Child extends Parent<String> {\n"
+                + "    @Setting(path = \"child.count\")\n"
+                + "    int count();\n"
+                + "    @Setting(path = \"child.overridden\")\n"
+                + "    int overridden();\n"
+                + "    default int replaced() { return 0; }\n"
+                + "}\n");
+        assertTrue(errors.isEmpty(), errors.toString());
+
+        assertEquals(Arrays.asList("parent.value", "child.overridden", "child.count"), paths(nodes(generated)));
+        assertEquals(String.class, generated.getMethod("value").getReturnType());
+    }
+
+    @Test
+    @DisplayName("Reject methods that are not settings, including inherited ones.")
+    public void rejectInvalidMethods() throws Exception {
+        compile(null,
+                "package sample;\n"
+                + "import io.github.townyadvanced.commentedconfiguration.setting.annotation.*;\n"
+                + "interface Parent<T> {\n"
+                + "    int plain();\n"
+                + "    @Setting(path = \"parent.value\")\n"
+                + "    T value();\n"
+                + "}\n",
+                "package sample;\n"
+                + "import io.github.townyadvanced.commentedconfiguration.setting.annotation.*;\n"
+                + "@GenerateSettings\n"
+                + "public interface Invalid<T> extends Parent<T> {\n"
+                + "    int missing();\n"
+                + "    @Setting(path = \"invalid.parameter\")\n"
+                + "    int parameter(int value);\n"
+                + "}\n");
+        assertEquals(4, errors.size(), errors.toString());
+        assertTrue(errors.get(0).contains("Inherited method Parent.plain()"), errors.get(0));
+        assertTrue(errors.get(1).contains("Settings of type T are not supported, as returned by Parent.value()"),
+                errors.get(1));
+        assertTrue(errors.get(2).contains("must be annotated with @Setting"), errors.get(2));
+        assertTrue(errors.get(3).contains("must not take parameters"), errors.get(3));
+    }
+
+    /**
+     * Compiles sources with the processor, and loads the generated class.
+     *
+     * @param className The generated class to load, or null if the sources are expected to fail.
+     * @param sources   The sources to compile.
+     * @return The generated class, or null if none was requested.
+     */
+    private Class<?> compile(String className, String... sources) throws Exception {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        List<JavaFileObject> files = new ArrayList<>();
+        for (String source : sources) {
+            String name = source.substring(source.indexOf("interface ") + 10).split("[ <{]")[0];
+            files.add(new Source(name, source));
+        }
+        boolean compiled;
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null, StandardCharsets.UTF_8)) {
+            JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics,
+                    Arrays.asList("-d", testdir.toString(), "-s", testdir.toString(),
+                            "-classpath", System.getProperty("java.class.path")),
+                    null, files);
+            task.setProcessors(Collections.singletonList(new SettingsProcessor()));
+            compiled = task.call();
+        }
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+            if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+                errors.add(diagnostic.getMessage(null));
+            }
+        }
+        if (className == null) {
+            assertFalse(compiled);
+            return null;
+        }
+        assertTrue(compiled, errors.toString());
+        URLClassLoader loader = new URLClassLoader(new URL[]{testdir.toUri().toURL()}, getClass().getClassLoader());
+        return loader.loadClass(className);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<CommentedNode> nodes(Class<?> generated) throws ReflectiveOperationException {
+        return (List<CommentedNode>) generated.getField("NODES").get(null);
+    }
+
+    private static List<String> paths(List<CommentedNode> nodes) {
+        return nodes.stream().map(CommentedNode::getPath).collect(Collectors.toList());
+    }
+
+    /**
+     * A source file held in memory.
+     */
+    private static final class Source extends SimpleJavaFileObject {
+        private final String code;
+
+        private Source(String className, String code) {
+            super(URI.create("string:///sample/" + className + Kind.SOURCE.extension), Kind.SOURCE);
+            this.code = code;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return code;
+        }
+    }
+}
@@ -1,17 +1,37 @@
 package io.github.townyadvanced.commentedconfiguration;
 
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.logging.Logger;
 
+import io.github.townyadvanced.commentedconfiguration.core.Comments;
+import io.github.townyadvanced.commentedconfiguration.core.TempFiles;
+import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.InvalidConfigurationException;
 import org.bukkit.configuration.file.YamlConfiguration;
-import com.google.common.base.Strings;
+import org.bukkit.configuration.file.YamlConfigurationOptions;
 import org.bukkit.plugin.Plugin;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -26,11 +46,22 @@ import org.jetbrains.annotations.Nullable;
 public class CommentedConfiguration extends YamlConfiguration {
 	private static final Logger DEFAULT_LOGGER = Logger.getLogger("CommentedConfiguration");
 
-	private final HashMap<String, String> comments = new HashMap<>();
+	private final Comments comments = new Comments();
 	private final Path path;
 	private final Logger logger;
-	private final String newLine = System.getProperty("line.separator");
-	private int depth;
+	private volatile Durability durability = Durability.ATOMIC;
+	private final Object writeLock = new Object();
+	private volatile FileFingerprint fingerprint;
+	private volatile boolean parseCache;
+	private volatile boolean lazyLoading;
+	private volatile LazySections lazySections;
+	private volatile Thread dumpingThread;
+	private volatile ReentrantReadWriteLock valuesLock;
+	private volatile Guard readGuard = Guard.NONE;
+	private volatile Guard writeGuard = Guard.NONE;
+	private volatile boolean patchSaving;
+	private volatile PatchIndex patchIndex;
+	private final List<MetricsListener> metricsListeners = new CopyOnWriteArrayList<>();
 
 	/**
 	 * Create a new CommentedConfiguration using the file at the given path.
@@ -63,7 +94,7 @@ public class CommentedConfiguration extends YamlConfiguration {
 		super();
 		this.path = path;
 		this.logger = logger == null ? DEFAULT_LOGGER : logger;
-		setWidth();
+		setWidth(this);
 	}
 
 	/**
@@ -72,237 +103,1121 @@ public class CommentedConfiguration extends YamlConfiguration {
 	 * @return true if file is able to load.
 	 */
 	public boolean load() {
-		return loadFile();
+		return loadFile(null);
 	}
 
-	private boolean loadFile() {
+	/**
+	 * Load the yaml configuration file into memory, and make more changes to the
+	 * loaded values, such as adding defaults, before they are used. A
+	 * {@link #setConcurrent(boolean) concurrent} configuration holds its write
+	 * lock from replacing the values until the changes are made, so other
+	 * threads see either the old values or the new ones with the changes, never
+	 * values that are half loaded.
+	 *
+	 * @param changes The changes to make to the loaded values. Not made if the
+	 *                file fails to load.
+	 * @return true if file is able to load.
+	 */
+	public boolean load(@NotNull Consumer<? super CommentedConfiguration> changes) {
+		return loadFile(changes);
+	}
+
+	private boolean loadFile(@Nullable Consumer<? super CommentedConfiguration> changes) {
 		try {
-			this.load(path.toFile());
+			// Stat before reading, so a change made while reading is never mistaken
+			// for what was read.
+			BasicFileAttributes attributes = FileFingerprint.attributes(path);
+			byte[] bytes = Files.readAllBytes(path);
+			FileFingerprint loaded = FileFingerprint.ofContents(attributes, bytes);
+			boolean lazy = lazyLoading;
+			boolean writeCache = false;
+			byte[] cache = null;
+			long start = System.nanoTime();
+			// Decoded before locking, and put in the config in one go below.
+			Map<String, Object> cachedValues = !lazy && parseCache ? ParseCache.read(ParseCache.pathFor(path), loaded) : null;
+			boolean cached = cachedValues != null;
+			long decodeNanos = System.nanoTime() - start;
+			long parseNanos;
+			Guard lock = writeLock();
+			lock.lock();
+			try {
+				start = System.nanoTime();
+				if (lazy) {
+					loadLazily(new String(bytes, StandardCharsets.UTF_8));
+				} else if (cachedValues == null) {
+					this.loadFromString(new String(bytes, StandardCharsets.UTF_8));
+				} else {
+					lazySections = null;
+					patchIndex = null;
+					ParseCache.replace(this, cachedValues);
+				}
+				parseNanos = decodeNanos + System.nanoTime() - start;
+				fingerprint = loaded;
+				if (patchSaving && !lazy)
+					patchIndex = PatchIndex.build(new String(bytes, StandardCharsets.UTF_8), bytes,
+							PatchIndex.copyValues(getValues(true)), loaded, comments.getVersion(), writeOptions());
+				// Encoded before the changes, as the cache holds what the file holds.
+				if (parseCache && !lazy && !cached) {
+					writeCache = true;
+					cache = encodeParseCache(loaded, bytes);
+				}
+				if (changes != null)
+					changes.accept(this);
+			} finally {
+				lock.unlock();
+			}
+			if (writeCache)
+				writeParseCache(cache);
+			for (MetricsListener listener : metricsListeners)
+				listener.loaded(path, parseNanos, bytes.length);
 			return true;
 		} catch (InvalidConfigurationException | IOException e) {
 			logger.warning(String.format("Loading error: Failed to load file %s (does it pass a yaml parser?).", path));
 			logger.warning("https://jsonformatter.org/yaml-parser");
 			logger.warning(e.getMessage());
+			for (MetricsListener listener : metricsListeners)
+				listener.failed(path, MetricsListener.Operation.LOAD, e);
 			return false;
 		}
 	}
 
 	/**
-	 * Save the yaml configuration file from memory to file.
+	 * Load only the header of the contents, and keep each top level entry as yaml
+	 * until something under it is used. Contents that cannot be split into their
+	 * entries safely are parsed in full.
+	 *
+	 * @param contents The contents of the file.
+	 * @throws InvalidConfigurationException if the header or the full contents
+	 *                                       cannot be parsed.
 	 */
-	public void save() {
+	private void loadLazily(String contents) throws InvalidConfigurationException {
+		LazySections sections = LazySections.split(contents);
+		if (sections == null) {
+			this.loadFromString(contents);
+			return;
+		}
+		Guard lock = writeLock();
+		lock.lock();
+		LazySections oldSections = lazySections;
+		try {
+			lazySections = null;
+			patchIndex = null;
+			// Clears the old values, and reads the header.
+			super.loadFromString(sections.getHeader());
+			lazySections = sections;
+		} catch (InvalidConfigurationException e) {
+			// Nothing was cleared, so the old sections still belong to the values.
+			lazySections = oldSections;
+			throw e;
+		} finally {
+			lock.unlock();
+		}
+	}
 
-		// Save the config like normal.
-		boolean saved = saveFile();
+	@Override
+	public void loadFromString(@NotNull String contents) throws InvalidConfigurationException {
+		Guard lock = writeLock();
+		lock.lock();
+		LazySections oldSections = lazySections;
+		try {
+			lazySections = null;
+			patchIndex = null;
+			super.loadFromString(contents);
+		} catch (InvalidConfigurationException e) {
+			// Nothing was cleared, so the old sections still belong to the values.
+			lazySections = oldSections;
+			throw e;
+		} finally {
+			lock.unlock();
+		}
+	}
 
-		// If there's comments to add and it saved fine, we need to add comments.
-		if (!comments.isEmpty() && saved) {
+	@Override
+	public @NotNull String saveToString() {
+		Guard lock = readLock();
+		lock.lock();
+		try {
+			LazySections sections = lazySections;
+			if (sections == null)
+				return super.saveToString();
+			synchronized (sections) {
+				// Serialize what was parsed, without parsing the rest, and put the rest back in between.
+				dumpingThread = Thread.currentThread();
+				String merged;
+				try {
+					merged = sections.merge(super.saveToString(), new ArrayList<>(super.getKeys(false)));
+				} finally {
+					dumpingThread = null;
+				}
+				if (merged != null)
+					return merged;
+			}
+		} finally {
+			lock.unlock();
+		}
+		parseAllPending();
+		lock.lock();
+		try {
+			return super.saveToString();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public @Nullable Object get(@NotNull String path, @Nullable Object def) {
+		parsePending(path);
+		Guard lock = readLock();
+		lock.lock();
+		try {
+			return super.get(path, def);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public void set(@NotNull String path, @Nullable Object value) {
+		parsePending(path);
+		Guard lock = writeLock();
+		lock.lock();
+		try {
+			super.set(path, value);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public @NotNull ConfigurationSection createSection(@NotNull String path) {
+		parsePending(path);
+		Guard lock = writeLock();
+		lock.lock();
+		try {
+			return super.createSection(path);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public @NotNull ConfigurationSection createSection(@NotNull String path, @NotNull Map<?, ?> map) {
+		parsePending(path);
+		Guard lock = writeLock();
+		lock.lock();
+		try {
+			return super.createSection(path, map);
+		} finally {
+			lock.unlock();
+		}
+	}
 
-			// String list of each line in the config file.
-			List<String> yamlContents = readYaml();
+	@Override
+	public @NotNull Set<String> getKeys(boolean deep) {
+		parseAllPending();
+		Guard lock = readLock();
+		lock.lock();
+		try {
+			return super.getKeys(deep);
+		} finally {
+			lock.unlock();
+		}
+	}
 
-			// Generate new config strings, ignoring existing comments and parsing in our
-			// up-to-date comments from the ConfigNodes enum.
-			StringBuilder newContents = readConfigToString(yamlContents);
+	@Override
+	public @NotNull Map<String, Object> getValues(boolean deep) {
+		parseAllPending();
+		Guard lock = readLock();
+		lock.lock();
+		try {
+			return super.getValues(deep);
+		} finally {
+			lock.unlock();
+		}
+	}
 
-			// Write newContents to file.
-			writeYaml(newContents);
+	/**
+	 * Make several changes as one. A {@link #setConcurrent(boolean) concurrent}
+	 * configuration holds its write lock for all of them, so readers see either
+	 * none or all of them, and the sections of the configuration can be changed
+	 * directly, which is otherwise not guarded by the lock.
+	 *
+	 * @param changes Makes the changes to this configuration.
+	 */
+	public void edit(@NotNull Consumer<? super CommentedConfiguration> changes) {
+		Guard lock = writeLock();
+		lock.lock();
+		try {
+			changes.accept(this);
+		} finally {
+			lock.unlock();
 		}
 	}
 
 	/**
-	 * Read the file found at the path into a list of Strings.
-	 * 
-	 * @return yamlContents a List of Strings which represent the raw lines of the
-	 *         file at the given path.
+	 * Get the lock to hold while reading values, which does nothing unless the
+	 * configuration is {@link #setConcurrent(boolean) concurrent}.
+	 *
+	 * @return The read lock.
+	 */
+	private Guard readLock() {
+		return readGuard;
+	}
+
+	/**
+	 * Get the lock to hold while changing values, which does nothing unless the
+	 * configuration is {@link #setConcurrent(boolean) concurrent}.
+	 *
+	 * @return The write lock.
 	 */
-	private List<String> readYaml() {
+	private Guard writeLock() {
+		return writeGuard;
+	}
 
-		List<String> yamlContents = new ArrayList<>();
+	/**
+	 * Parse the top level entry a path is under, if it has not been parsed yet.
+	 *
+	 * @param path The path about to be used.
+	 */
+	private void parsePending(String path) {
+		LazySections sections = lazySections;
+		if (sections == null || dumpingThread == Thread.currentThread())
+			return;
+		int dot = path.indexOf('.');
+		String key = dot < 0 ? path : path.substring(0, dot);
+		if (!sections.isPending(key))
+			return;
+		parseSection(sections, key);
+	}
+
+	/**
+	 * Parse every top level entry that has not been parsed yet.
+	 */
+	private void parseAllPending() {
+		LazySections sections = lazySections;
+		if (sections == null || dumpingThread == Thread.currentThread() || !sections.hasPending())
+			return;
+		for (String key : sections.getOrder())
+			if (sections.isPending(key))
+				parseSection(sections, key);
+	}
+
+	/**
+	 * Parse a top level entry into this configuration. An entry that fails to
+	 * parse is left out, and saved back as it was unless its key is set.
+	 *
+	 * @param sections The entries of the loaded file.
+	 * @param key      The top level key of the entry.
+	 */
+	private void parseSection(LazySections sections, String key) {
+		ReentrantReadWriteLock lock = valuesLock;
+		if (lock == null) {
+			synchronized (sections) {
+				parseSectionLocked(sections, key);
+			}
+			return;
+		}
+		// Readers and saves are kept out by the write lock instead. The read lock
+		// cannot be turned into the write lock, so the reads this thread holds are
+		// let go while parsing and taken again after.
+		int reads = lock.getReadHoldCount();
+		for (int i = 0; i < reads; i++)
+			lock.readLock().unlock();
+		lock.writeLock().lock();
 		try {
-			yamlContents = Files.readAllLines(path, StandardCharsets.UTF_8);
-		} catch (IOException e) {
-			logger.warning(String.format("Failed to read file %s.", path));
+			parseSectionLocked(sections, key);
+		} finally {
+			lock.writeLock().unlock();
+			for (int i = 0; i < reads; i++)
+				lock.readLock().lock();
+		}
+	}
+
+	private void parseSectionLocked(LazySections sections, String key) {
+		// Check again, another thread may have parsed the entry or loaded the file
+		// again while this one waited.
+		if (lazySections != sections)
+			return;
+		String yaml = sections.getPending(key);
+		if (yaml == null)
+			return;
+		YamlConfiguration parsed = new YamlConfiguration();
+		try {
+			parsed.loadFromString(yaml);
+		} catch (InvalidConfigurationException e) {
+			logger.warning(String.format("Loading error: Failed to load %s of file %s, it is kept as it is.", key, path));
 			logger.warning(e.getMessage());
+			sections.unreadable(key);
+			return;
+		}
+		Object value = parsed.get(key);
+		if (value instanceof ConfigurationSection)
+			copySection((ConfigurationSection) value, super.createSection(key));
+		else
+			super.set(key, value);
+		// Only now, so other threads wait for the entry instead of missing it.
+		sections.parsed(key);
+	}
+
+	private static void copySection(ConfigurationSection from, ConfigurationSection to) {
+		for (Map.Entry<String, Object> entry : from.getValues(false).entrySet()) {
+			if (entry.getValue() instanceof ConfigurationSection)
+				copySection((ConfigurationSection) entry.getValue(), to.createSection(entry.getKey()));
+			else
+				to.set(entry.getKey(), entry.getValue());
 		}
-		return yamlContents;
 	}
 
 	/**
-	 * Write the file to the given path, in valid yaml format, with the comments
-	 * added in.
+	 * Encode what was just parsed for the parse cache. Configs holding values
+	 * the cache cannot store are not cached.
+	 * <p>
+	 * The cache only holds values. Comments in the file, including its header,
+	 * are only left out of the saved file when comments have been added, so
+	 * without those a file with comments is not cached.
+	 *
+	 * @param loaded The fingerprint of the parsed contents.
+	 * @param bytes  The parsed contents.
+	 * @return The cache, or null if the file cannot be cached.
+	 */
+	private @Nullable byte[] encodeParseCache(FileFingerprint loaded, byte[] bytes) {
+		return comments.isEmpty() && hasComment(bytes) ? null : ParseCache.encode(loaded, this);
+	}
+
+	/**
+	 * Store an encoded parse cache, or remove the old one if the file cannot be
+	 * cached.
+	 *
+	 * @param cache The cache, or null to remove it.
 	 */
-	private void writeYaml(StringBuilder newContents) {
+	private void writeParseCache(@Nullable byte[] cache) {
+		Path cachePath = ParseCache.pathFor(path);
+		if (cache == null) {
+			ParseCache.delete(cachePath);
+			return;
+		}
 		try {
-			Files.write(path, newContents.toString().getBytes(StandardCharsets.UTF_8));
+			ParseCache.write(cachePath, cache);
 		} catch (IOException e) {
-			logger.warning(String.format("Saving error: Failed to write to file %s.", path));
-			logger.warning(e.getMessage());
+			logger.warning(String.format("Failed to write parse cache %s: %s", cachePath, e.getMessage()));
 		}
 	}
 
+	private static boolean hasComment(byte[] bytes) {
+		for (byte b : bytes)
+			if (b == '#')
+				return true;
+		return false;
+	}
+
 	/**
-	 * Attempts to save the file via YamlConfiguration's usual methods.
-	 * 
-	 * @return true if the file was able to be saved.
+	 * Check whether the file has been changed by something else since it was last
+	 * loaded or saved. This only looks at the file's size and modification time.
+	 *
+	 * @return true if the file was changed, or has never been loaded or saved.
 	 */
-	private boolean saveFile() {
+	public boolean isModifiedOnDisk() {
+		FileFingerprint current = fingerprint;
+		return current == null || !current.matchesFile(path);
+	}
+
+	/**
+	 * Check whether the file still holds exactly what was last loaded or saved.
+	 * This is only a stat while the file's size and modification time are
+	 * unchanged, otherwise the file is read and hashed. A file that was touched
+	 * without changing its contents counts as unchanged.
+	 *
+	 * @return true if the file holds the same contents, false if they changed or
+	 *         the file has never been loaded or saved.
+	 */
+	public boolean isUnchangedOnDisk() {
+		FileFingerprint current = fingerprint;
+		if (current == null)
+			return false;
+		if (current.matchesFile(path))
+			return true;
 		try {
-			this.save(path.toFile());
+			BasicFileAttributes attributes = FileFingerprint.attributes(path);
+			byte[] hash = FileFingerprint.hash(Files.readAllBytes(path));
+			if (!current.matchesHash(hash))
+				return false;
+			// Remember the new modification time, so the next check is a stat again.
+			synchronized (writeLock) {
+				if (fingerprint == current)
+					fingerprint = FileFingerprint.ofHash(attributes, hash);
+			}
 			return true;
-		} catch (Exception e) {
+		} catch (IOException e) {
 			return false;
 		}
 	}
 
 	/**
-	 * Read through the contents of the old config and return an up to date new
-	 * config, complete with comments generated from the ConfigNodes enum.
-	 * 
-	 * @param oldContents List of Strings which represent the config being loaded
-	 *                    from the server.
-	 * @return newContents StringBuilder.
-	 */
-	private StringBuilder readConfigToString(List<String> oldContents) {
-		// This will hold the newly formatted line
-		StringBuilder newContents = new StringBuilder();
-		// This holds the current path the lines are at in the config
-		String currentPath = "";
-		// The depth of the path. (number of words separated by periods - 1)
-		depth = 0;
-
-		// Loop through the old config lines.
-		for (String line : oldContents) {
-			// Spigot's addition of native SnakeYAML comment support in MC 1.18.1, requires
-			// us to ignore the comments in our own file, which will be replaced later on
-			// with up-to-date comments from the ConfigNodes enum.
-			// TODO: This comment above is relevant to Towny's use.
-			if (line.trim().startsWith("#") || line.isEmpty() || line.trim().isEmpty())
-				continue;
-
-			// If the line is a node (and not something like a list value)
-			if (line.contains(": ") || (line.length() > 1 && line.charAt(line.length() - 1) == ':')) {
-
-				// Build the new line, allowing us to get the comments made in the ConfigNodes
-				// enum.
-				// ie: new_world_settings.pvp.force_pvp_on
-				currentPath = getCurrentPath(line, currentPath);
-
-				// Grab any available comments for the current path.
-				String comment = comments.get(currentPath);
-
-				// If there are comments, add them to the beginning of the current line.
-				if (comment != null)
-					line = comment + newLine + line;
+	 * Save the yaml configuration file from memory to file, using the
+	 * {@link #getDurability() configured durability}. Use
+	 * {@link #saveWithResult()} to find out whether the file was written.
+	 */
+	public void save() {
+		save(durability);
+	}
+
+	/**
+	 * Save the yaml configuration file from memory to file, using the
+	 * {@link #getDurability() configured durability}.
+	 *
+	 * @return Whether the file was written, was already up-to-date or failed to be
+	 *         written.
+	 */
+	public @NotNull SaveResult saveWithResult() {
+		return save(durability);
+	}
+
+	/**
+	 * Save the yaml configuration file from memory to file.
+	 * <p>
+	 * The configuration is serialized with its comments merged in, and the result
+	 * is hashed and written as it is. If the file has not been touched since it
+	 * was last loaded or saved and already holds exactly these contents, it is not
+	 * written at all. With {@link #setPatchSaving(boolean) patch saving} on, only
+	 * the changed values may be written instead.
+	 *
+	 * @param durability How the file should be written.
+	 * @return Whether the file was written, was already up-to-date or failed to be
+	 *         written.
+	 */
+	public @NotNull SaveResult save(@NotNull Durability durability) {
+		return save(serializeWithComments(), durability);
+	}
+
+	/**
+	 * Serialize the configuration like normal, without touching the file, to be
+	 * written later with {@link #save(SerializedConfiguration, Durability)}. With
+	 * {@link #setPatchSaving(boolean) patch saving} on, only the values that
+	 * changed since the file was indexed are serialized, if they can be patched.
+	 *
+	 * @return The serialized configuration.
+	 */
+	public @NotNull SerializedConfiguration serialize() {
+		return serialize(false);
+	}
+
+	/**
+	 * Serialize the configuration with the comments merged in, without touching
+	 * the file, to be written later with
+	 * {@link #save(SerializedConfiguration, Durability)}. Unlike
+	 * {@link #serialize()}, comments added in the meantime do not end up in the
+	 * file.
+	 *
+	 * @return The serialized configuration, holding the contents as they would be
+	 *         written to file.
+	 */
+	public @NotNull SerializedConfiguration serializeWithComments() {
+		return serialize(true);
+	}
+
+	private SerializedConfiguration serialize(boolean mergeComments) {
+		Guard lock = readLock();
+		lock.lock();
+		try {
+			long start = System.nanoTime();
+			if (!patchSaving || lazySections != null) {
+				String yamlContents = saveToString();
+				long serializeNanos = System.nanoTime() - start;
+				return mergeComments ? withComments(yamlContents, serializeNanos)
+						: new SerializedConfiguration(yamlContents, serializeNanos);
+			}
+
+			// Read first, so comments added meanwhile make the index out of date.
+			long commentsVersion = comments.getVersion();
+			List<Object> options = writeOptions();
+			Map<String, Object> values = getValues(true);
+			PatchIndex index = patchIndex;
+			if (index != null && commentsVersion == index.getCommentsVersion() && options.equals(index.getOptions())) {
+				List<PatchIndex.Patch> patches = index.diff(values);
+				if (patches != null)
+					return new SerializedConfiguration(index, patches, System.nanoTime() - start);
 			}
 
-			// Add the line to what will be written in the new config.
-			newContents.append(line).append(newLine);
+			// Saved in full, and indexed so that the next save can patch it.
+			values = PatchIndex.copyValues(values);
+			String yamlContents = saveToString();
+			long serializeNanos = System.nanoTime() - start;
+			SerializedConfiguration serialized = mergeComments ? withComments(yamlContents, serializeNanos)
+					: new SerializedConfiguration(yamlContents, serializeNanos);
+			return serialized.indexed(values, commentsVersion, options);
+		} finally {
+			lock.unlock();
 		}
+	}
+
+	/**
+	 * Merge the comments into serialized yaml.
+	 *
+	 * @param yamlContents   The config as serialized by {@link #saveToString()}.
+	 * @param serializeNanos How long serializing the config took.
+	 * @return The serialized configuration, holding the contents as they are
+	 *         written to file.
+	 */
+	private SerializedConfiguration withComments(String yamlContents, long serializeNanos) {
+		if (comments.isEmpty())
+			return new SerializedConfiguration(yamlContents, true, serializeNanos, 0, 0);
 
-		return newContents;
+		long start = System.nanoTime();
+		StringWriter merged = new StringWriter(yamlContents.length() + comments.size() * 64);
+		int commentBlocks;
+		try {
+			commentBlocks = comments.inject(yamlContents, merged);
+		} catch (IOException e) {
+			// Appending to a StringBuilder cannot fail.
+			throw new IllegalStateException(e);
+		}
+		return new SerializedConfiguration(merged.toString(), true, serializeNanos, System.nanoTime() - start,
+				commentBlocks);
 	}
 
 	/**
-	 * Creates a Configuration path from a raw yaml file's lines.
-	 * 
-	 * @param line        String line from the old configuration file.
-	 * @param currentPath What has been built thus far as a Configuration path.
-	 * @return currentPath The next Configuration path to save into the new config.
-	 */
-	private String getCurrentPath(String line, String currentPath) {
-		// Grab the index of the end of the node name
-		int index;
-		index = line.indexOf(": ");
-		if (index < 0) {
-			index = line.length() - 1;
-		}
-		// The first line of the file, store the node name as the currentPath.
-		if (currentPath.isEmpty()) {
-			currentPath = line.substring(0, index);
-		} else {
-			// Calculate the whitespace preceding the node name, allowing us to determine
-			// depth.
-			int whiteSpace = getWhiteSpaceFromLine(line);
-			// Get the current node we're adding.
-			String nodeName = line.substring(whiteSpace, index);
-			// Find out if the current depth (whitespace * 2) is greater/lesser/equal to the
-			// previous depth.
-			if (whiteSpace / 2 > depth) {
-				// Path is deeper. Add a . and the node name.
-				currentPath += "." + nodeName;
-				depth++;
-			} else if (whiteSpace / 2 < depth) {
-				// Path is shallower, calculate current depth from whitespace (whitespace / 2)
-				// and subtract that many levels from the currentPath
-				int newDepth = whiteSpace / 2;
-				// Shrink the currentPath, removing nodes with no more children.
-				currentPath = shrinkCurrentPath(currentPath, newDepth);
-				// Add the nodeName to the currentPath.
-				currentPath = addNodeNameToCurrentPath(currentPath, nodeName);
-				// Reset the depth
-				depth = newDepth;
-			} else {
-				// Path is same depth, replace the last path node name to the current node name.
-				// Add the nodeName to the currentPath.
-				currentPath = addNodeNameToCurrentPath(currentPath, nodeName);
+	 * Write a configuration previously serialized by {@link #serialize()} or
+	 * {@link #serializeWithComments()} to the file. If the comments are not in it
+	 * yet, they are merged in first. This can be called from any thread, and the
+	 * file is not written if it already holds exactly these contents.
+	 * <p>
+	 * A configuration that only holds patches is patched into the file if the
+	 * file is still the one it was indexed from, and otherwise written in full.
+	 *
+	 * @param serialized The serialized configuration.
+	 * @param durability How the file should be written.
+	 * @return Whether the file was written, was already up-to-date or failed to be
+	 *         written.
+	 */
+	public @NotNull SaveResult save(@NotNull SerializedConfiguration serialized, @NotNull Durability durability) {
+		PatchIndex index = serialized.index;
+		List<PatchIndex.Patch> patches = serialized.patches;
+		if (index != null && patches != null) {
+			SaveResult patched = savePatched(index, patches, serialized.serializeNanos, durability);
+			if (patched != null)
+				return patched;
+			// The file changed since it was indexed, so the patched contents are written in full.
+			byte[] bytes = index.apply(patches);
+			return writeYaml(bytes, serialized.serializeNanos, 0, 0, durability,
+					written -> index.patched(patches, bytes, written));
+		}
+
+		SerializedConfiguration merged = serialized;
+		long commentsVersion = serialized.commentsVersion;
+		if (!serialized.commentsMerged) {
+			// Read first, so comments added meanwhile make the index out of date.
+			commentsVersion = comments.getVersion();
+			merged = withComments(serialized.yamlContents, serialized.serializeNanos);
+		}
+		Map<String, Object> values = serialized.values;
+		List<Object> options = serialized.options;
+		if (values == null || options == null)
+			return writeYaml(merged, durability, null);
+		long indexedVersion = commentsVersion;
+		String yamlContents = merged.yamlContents;
+		return writeYaml(merged, durability,
+				(written, bytes) -> PatchIndex.build(yamlContents, bytes, values, written, indexedVersion, options));
+	}
+
+	/**
+	 * Write only the values that changed since the file was last loaded or saved,
+	 * copying the rest of the file as it is.
+	 *
+	 * @param index          The index the patches were found with.
+	 * @param patches        The changed values, ordered by their place in the
+	 *                       file.
+	 * @param serializeNanos How long finding the changed values took.
+	 * @param durability     How the file should be written.
+	 * @return Whether the file was written, was already up-to-date or failed to be
+	 *         written, or null if it has to be saved in full.
+	 */
+	private @Nullable SaveResult savePatched(PatchIndex index, List<PatchIndex.Patch> patches, long serializeNanos,
+			Durability durability) {
+		synchronized (writeLock) {
+			// The file must still be the indexed one.
+			FileFingerprint current = fingerprint;
+			if (patchIndex != index || current != index.getFingerprint() || !current.matchesFile(path))
+				return null;
+			if (patches.isEmpty()) {
+				for (MetricsListener listener : metricsListeners)
+					listener.saved(path, SaveResult.UNCHANGED, serializeNanos, 0, 0, 0, 0);
+				return SaveResult.UNCHANGED;
+			}
+
+			long start = System.nanoTime();
+			long bytesWritten;
+			BasicFileAttributes attributes;
+			try {
+				Path target = path.toRealPath();
+				bytesWritten = writePatches(target, patches, durability);
+				if (bytesWritten < 0)
+					return null;
+				attributes = FileFingerprint.attributes(target);
+			} catch (IOException e) {
+				// The file may be half patched, so it is not indexed anymore.
+				patchIndex = null;
+				logger.warning(String.format("Saving error: Failed to write to file %s.", path));
+				logger.warning(e.getMessage());
+				for (MetricsListener listener : metricsListeners)
+					listener.failed(path, MetricsListener.Operation.SAVE, e);
+				return SaveResult.FAILED;
+			}
+			FileFingerprint written = FileFingerprint.ofAttributes(attributes);
+			fingerprint = written;
+			patchIndex = patchSaving ? index.patched(patches, index.apply(patches), written) : null;
+			long writeNanos = System.nanoTime() - start;
+			for (MetricsListener listener : metricsListeners)
+				listener.saved(path, SaveResult.WRITTEN, serializeNanos, 0, writeNanos, bytesWritten, 0);
+			return SaveResult.WRITTEN;
+		}
+	}
+
+	/**
+	 * Write changed values into the file. Unless the durability is
+	 * {@link Durability#DIRECT}, a patched copy is made next to the file and moved
+	 * over it. Either way, the bytes between the changed values are copied by the
+	 * file system with {@link FileChannel#transferTo}, without being read in.
+	 *
+	 * @param target     The file to patch.
+	 * @param patches    The changed values, ordered by their place in the file.
+	 * @param durability How the file should be written.
+	 * @return The number of bytes written to the file or the copy moved over it,
+	 *         or -1 if a value was not where the index had it and the file was
+	 *         left as it was.
+	 * @throws IOException if the file could not be written.
+	 */
+	private long writePatches(Path target, List<PatchIndex.Patch> patches, Durability durability) throws IOException {
+		Path parent = target.getParent();
+		if (durability == Durability.DIRECT) {
+			try (FileChannel file = FileChannel.open(target, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+				for (PatchIndex.Patch patch : patches)
+					if (!patch.holdsOldValue(file))
+						return -1;
+				return writePatchesInPlace(file, parent, patches);
 			}
 		}
 
-		return currentPath;
+		Path temp = TempFiles.createFor(target);
+		long written;
+		try {
+			try (FileChannel file = FileChannel.open(target, StandardOpenOption.READ);
+					FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+				for (PatchIndex.Patch patch : patches)
+					if (!patch.holdsOldValue(file))
+						return -1;
+				copyPatched(file, 0, patches, channel);
+				written = channel.position();
+				if (durability == Durability.SYNC)
+					channel.force(true);
+			}
+
+			try {
+				Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+			}
+
+			if (durability == Durability.SYNC && parent != null)
+				forceDirectory(parent);
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+		return written;
 	}
 
 	/**
-	 * Get the whitespace in front of the current line's text.
-	 * 
-	 * @param line String line from the old config.
-	 * @return number of empty spaces preceding the current line's text.
-	 */
-	private int getWhiteSpaceFromLine(String line) {
-		int whiteSpace = 0;
-		for (int n = 0; n < line.length(); n++)
-			if (line.charAt(n) == ' ')
-				whiteSpace++;
-			else
-				break;
-		return whiteSpace;
+	 * Write changed values straight into the file. Values that keep their length
+	 * are overwritten where they are. Otherwise everything from the first changed
+	 * value on is patched into a temporary file and copied back, and the file is
+	 * cut to its new length.
+	 *
+	 * @param file    The file to patch, open for reading and writing.
+	 * @param parent  The directory to put the temporary file in.
+	 * @param patches The changed values, ordered by their place in the file.
+	 * @return The number of bytes written to the file.
+	 * @throws IOException if the file could not be written.
+	 */
+	private static long writePatchesInPlace(FileChannel file, @Nullable Path parent, List<PatchIndex.Patch> patches) throws IOException {
+		boolean sameLength = true;
+		long patched = 0;
+		for (PatchIndex.Patch patch : patches) {
+			sameLength &= patch.bytes.length == patch.span.end - patch.span.start;
+			patched += patch.bytes.length;
+		}
+		if (sameLength) {
+			for (PatchIndex.Patch patch : patches) {
+				ByteBuffer buffer = ByteBuffer.wrap(patch.bytes);
+				while (buffer.hasRemaining())
+					file.write(buffer, patch.span.start + buffer.position());
+			}
+			return patched;
+		}
+
+		long from = patches.get(0).span.start;
+		Path temp = parent != null ? Files.createTempFile(parent, ".patch", ".tmp") : Files.createTempFile(".patch", ".tmp");
+		try (FileChannel tail = FileChannel.open(temp, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			copyPatched(file, from, patches, tail);
+			long length = tail.position();
+			tail.position(0);
+			for (long copied = 0; copied < length;) {
+				long count = file.transferFrom(tail, from + copied, length - copied);
+				if (count <= 0)
+					throw new IOException("Failed to copy the patched file back.");
+				copied += count;
+			}
+			file.truncate(from + length);
+			return length;
+		} finally {
+			Files.deleteIfExists(temp);
+		}
 	}
 
 	/**
-	 * Shrink the currentPath, scaling the path back, removing completed child
-	 * nodes.
-	 * 
-	 * @param currentPath String representing the Configuration path.
-	 * @param newDepth    int representing the depth we're going to get back to.
-	 * @return currentPath with finished child nodes removed.
+	 * Copy a file from a position to its end, with the changed values written in
+	 * place of the old ones.
+	 *
+	 * @param file    The file to copy.
+	 * @param from    Where to start copying, at or before the first changed value.
+	 * @param patches The changed values, ordered by their place in the file.
+	 * @param out     Where the patched copy is written to.
+	 * @throws IOException if the file could not be read or out written to.
 	 */
-	private String shrinkCurrentPath(String currentPath, int newDepth) {
-		for (int i = 0; i < depth - newDepth; i++)
-			currentPath = currentPath.substring(0, currentPath.lastIndexOf("."));
-		return currentPath;
+	private static void copyPatched(FileChannel file, long from, List<PatchIndex.Patch> patches, WritableByteChannel out) throws IOException {
+		long position = from;
+		for (PatchIndex.Patch patch : patches) {
+			transfer(file, position, patch.span.start - position, out);
+			ByteBuffer buffer = ByteBuffer.wrap(patch.bytes);
+			while (buffer.hasRemaining())
+				out.write(buffer);
+			position = patch.span.end;
+		}
+		transfer(file, position, file.size() - position, out);
+	}
+
+	private static void transfer(FileChannel file, long position, long count, WritableByteChannel out) throws IOException {
+		while (count > 0) {
+			long transferred = file.transferTo(position, count, out);
+			if (transferred <= 0)
+				throw new IOException("The file ended before " + (position + count) + " bytes.");
+			position += transferred;
+			count -= transferred;
+		}
 	}
 
 	/**
-	 * Add the nodeName to the currentPath, either at the same depth or shallower.
-	 * 
-	 * @param currentPath String representing the Configuration path being added.
-	 * @param nodeName    String representing the new node being added to the
-	 *                    currentPath.
-	 * @return currentPath after it has been adjusted and had the new nodeName
-	 *         added.
+	 * Serialize the configuration into a String, complete with the comments that
+	 * have been added with {@link #addComment(String, String...)}.
+	 *
+	 * @return The configuration as it would be written to file.
+	 */
+	public @NotNull String saveToStringWithComments() {
+
+		// Serialize the config like normal, without touching the file.
+		String yamlContents = saveToString();
+
+		// Generate new config strings, ignoring existing comments and parsing in our
+		// up-to-date comments from the ConfigNodes enum.
+		return comments.inject(yamlContents);
+	}
+
+	/**
+	 * Write the file to the given path, in valid yaml format, with the comments
+	 * added in.
+	 * <p>
+	 * The contents are encoded once, and the same bytes are hashed, so an
+	 * up-to-date file is not written at all, and written to the file. The
+	 * fingerprint kept for the file is therefore always of what is in it.
+	 *
+	 * @param merged     The serialized config with the comments merged in.
+	 * @param durability How the file should be written.
+	 * @param index      Indexes the file from its fingerprint and contents once it
+	 *                   holds them, or null if it cannot be patched afterwards.
+	 * @return Whether the file was written, was already up-to-date or failed to be
+	 *         written.
+	 */
+	private SaveResult writeYaml(SerializedConfiguration merged, Durability durability,
+			@Nullable BiFunction<FileFingerprint, byte[], PatchIndex> index) {
+		long start = System.nanoTime();
+		byte[] bytes = merged.yamlContents.getBytes(StandardCharsets.UTF_8);
+		long commentNanos = merged.commentNanos + System.nanoTime() - start;
+		return writeYaml(bytes, merged.serializeNanos, commentNanos, merged.commentBlocks, durability,
+				index == null ? null : written -> index.apply(written, bytes));
+	}
+
+	/**
+	 * Write encoded contents to the file, as {@link #writeYaml(SerializedConfiguration,
+	 * Durability, BiFunction)} does.
+	 *
+	 * @param bytes          The contents, encoded as UTF-8.
+	 * @param serializeNanos How long serializing the contents took.
+	 * @param commentNanos   How long merging in the comments and encoding took.
+	 * @param commentBlocks  The number of comment blocks that were merged in.
+	 * @param durability     How the file should be written.
+	 * @param index          Indexes the file once it holds the contents, or null
+	 *                       if it cannot be patched afterwards.
+	 * @return Whether the file was written, was already up-to-date or failed to be
+	 *         written.
+	 */
+	private SaveResult writeYaml(byte[] bytes, long serializeNanos, long commentNanos, int commentBlocks,
+			Durability durability, @Nullable Function<FileFingerprint, PatchIndex> index) {
+		long start = System.nanoTime();
+		byte[] hash = FileFingerprint.hash(bytes);
+		commentNanos += System.nanoTime() - start;
+		if (!patchSaving)
+			index = null;
+		synchronized (writeLock) {
+			// Skip writing if nobody touched the file and it already holds these contents.
+			FileFingerprint current = fingerprint;
+			if (current != null && current.matchesHash(hash) && current.matchesFile(path)) {
+				patchIndex = index == null ? null : index.apply(current);
+				for (MetricsListener listener : metricsListeners)
+					listener.saved(path, SaveResult.UNCHANGED, serializeNanos, commentNanos, 0, bytes.length, commentBlocks);
+				return SaveResult.UNCHANGED;
+			}
+
+			start = System.nanoTime();
+			try {
+				// Write through symlinks rather than replacing them.
+				Path target = Files.exists(path) ? path.toRealPath() : path.toAbsolutePath();
+				Path parent = target.getParent();
+				if (parent != null)
+					Files.createDirectories(parent);
+
+				if (durability == Durability.DIRECT) {
+					try (OutputStream out = Files.newOutputStream(target)) {
+						out.write(bytes);
+					}
+				} else {
+					writeAtomically(target, bytes, durability == Durability.SYNC);
+				}
+				fingerprint = FileFingerprint.ofHash(FileFingerprint.attributes(target), hash);
+				patchIndex = index == null ? null : index.apply(fingerprint);
+			} catch (IOException e) {
+				patchIndex = null;
+				logger.warning(String.format("Saving error: Failed to write to file %s.", path));
+				logger.warning(e.getMessage());
+				for (MetricsListener listener : metricsListeners)
+					listener.failed(path, MetricsListener.Operation.SAVE, e);
+				return SaveResult.FAILED;
+			}
+			long writeNanos = System.nanoTime() - start;
+			for (MetricsListener listener : metricsListeners)
+				listener.saved(path, SaveResult.WRITTEN, serializeNanos, commentNanos, writeNanos, bytes.length, commentBlocks);
+			return SaveResult.WRITTEN;
+		}
+	}
+
+	/**
+	 * Write the contents to a temporary file next to the target, then move it over
+	 * the target in one step so that the target is never seen half-written. The
+	 * temporary file is given the permissions of the target, see
+	 * {@link TempFiles}.
+	 *
+	 * @param target   The file to replace.
+	 * @param contents The new contents of the file.
+	 * @param force    Whether to force the contents to the storage device before
+	 *                 moving the temporary file.
+	 * @throws IOException if the file could not be written.
 	 */
-	private String addNodeNameToCurrentPath(String currentPath, String nodeName) {
-		// Grab the index of the final period
-		int lastIndex = currentPath.lastIndexOf(".");
-		if (lastIndex < 0) {
-			// If there isn't a final period, set the current path to nothing because we're
-			// at root
-			currentPath = "";
-		} else {
-			// If there is a final period, trim everything after it
-			currentPath = currentPath.substring(0, lastIndex+1);
+	private void writeAtomically(Path target, byte[] contents, boolean force) throws IOException {
+		Path parent = target.getParent();
+		Path temp = TempFiles.createFor(target);
+		try {
+			try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+				ByteBuffer buffer = ByteBuffer.wrap(contents);
+				while (buffer.hasRemaining())
+					channel.write(buffer);
+				if (force)
+					channel.force(true);
+			}
+
+			try {
+				Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+			}
+
+			if (force && parent != null)
+				forceDirectory(parent);
+		} finally {
+			Files.deleteIfExists(temp);
 		}
-		return currentPath += nodeName;
+	}
+
+	/**
+	 * Force the directory entry of a moved file to the storage device. Not every
+	 * platform allows a directory to be opened, in which case this does nothing.
+	 *
+	 * @param directory The directory to force.
+	 */
+	private void forceDirectory(Path directory) {
+		try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+			channel.force(true);
+		} catch (IOException ignored) {
+		}
+	}
+
+	/**
+	 * Get whether parsed files are cached.
+	 *
+	 * @return true if the parse cache is used.
+	 */
+	public boolean isParseCacheEnabled() {
+		return parseCache;
+	}
+
+	/**
+	 * Set whether parsed files are cached. The cache is a hidden file next to the
+	 * config file holding a binary copy of what was parsed, which {@link #load()}
+	 * uses instead of parsing the yaml again while the file is unchanged. Off by
+	 * default.
+	 * <p>
+	 * Only values are cached, so the comments in a loaded file are not restored
+	 * from the cache. These are replaced by the ones added with
+	 * {@link #addComment(String, String...)} on save, and files with comments
+	 * are not cached while there are none.
+	 *
+	 * @param parseCache Whether to use the parse cache.
+	 */
+	public void setParseCacheEnabled(boolean parseCache) {
+		this.parseCache = parseCache;
+	}
+
+	/**
+	 * Get whether top level sections are parsed the first time they are used.
+	 *
+	 * @return true if files are loaded lazily.
+	 */
+	public boolean isLazyLoading() {
+		return lazyLoading;
+	}
+
+	/**
+	 * Set whether top level sections are parsed the first time they are used.
+	 * {@link #load()} then only splits the file into its top level entries, and
+	 * each is parsed once something under it is read or written. Entries that
+	 * were never used are saved exactly as they were in the file. Files that
+	 * cannot be split safely, such as ones using anchors, are parsed in full.
+	 * Lazy loading takes the place of the parse cache. Off by default.
+	 * <p>
+	 * As the first read under an entry parses it into the configuration, reads
+	 * change the configuration while lazy loading is on. Reading from several
+	 * threads at once is then only safe in {@link #setConcurrent(boolean)
+	 * concurrent} mode.
+	 *
+	 * @param lazyLoading Whether to load files lazily.
+	 */
+	public void setLazyLoading(boolean lazyLoading) {
+		this.lazyLoading = lazyLoading;
+	}
+
+	/**
+	 * Get whether saves only rewrite the values that changed.
+	 *
+	 * @return true if saves patch the file.
+	 */
+	public boolean isPatchSaving() {
+		return patchSaving;
+	}
+
+	/**
+	 * Set whether saves only rewrite the values that changed. After the file is
+	 * loaded or saved, the byte offsets of its values are indexed. When only
+	 * values that fit on one line changed since, {@link #save()}, and
+	 * {@link #save(SerializedConfiguration, Durability)} with a configuration
+	 * from {@link #serialize()}, write those values into their old places and
+	 * copy the bytes in between as they are, without serializing the whole
+	 * configuration. With {@link Durability#DIRECT} a small edit to a large file
+	 * writes little more than the edit. Anything else, such as added or removed
+	 * keys, changed lists, new comments or a new header, is saved in full as
+	 * usual, and so is a file that was changed by something else. The index keeps
+	 * a copy of the file in memory for that.
+	 * <p>
+	 * A patched file keeps its own formatting and comments where it was not
+	 * patched. Patch saving is not used while top level sections are loaded
+	 * lazily, and {@link #saveToStringWithComments()} still serializes the whole
+	 * configuration. It applies from the next load or save on. Off by default.
+	 *
+	 * @param patchSaving Whether saves patch the file.
+	 */
+	public void setPatchSaving(boolean patchSaving) {
+		this.patchSaving = patchSaving;
+		if (!patchSaving)
+			patchIndex = null;
+	}
+
+	/**
+	 * Get whether values are guarded for use from many threads at once.
+	 *
+	 * @return true if the configuration is concurrent.
+	 */
+	public boolean isConcurrent() {
+		return valuesLock != null;
+	}
+
+	/**
+	 * Set whether values are guarded for use from many threads at once. In
+	 * concurrent mode, reads and saves share a read lock and changes take a write
+	 * lock, so setting values while another thread saves or reads is safe. This
+	 * covers everything done through the configuration itself by path; sections
+	 * taken from it are not guarded when changed directly. Off by default, as
+	 * every read then takes a lock.
+	 * <p>
+	 * Only change this while no other thread is using the configuration.
+	 *
+	 * @param concurrent Whether to guard values.
+	 */
+	public void setConcurrent(boolean concurrent) {
+		ReentrantReadWriteLock lock = concurrent ? new ReentrantReadWriteLock() : null;
+		this.valuesLock = lock;
+		this.readGuard = lock == null ? Guard.NONE : Guard.of(lock.readLock());
+		this.writeGuard = lock == null ? Guard.NONE : Guard.of(lock.writeLock());
+	}
+
+	/**
+	 * Adds a listener that receives the timings and sizes of every load and save.
+	 *
+	 * @param listener The listener to add.
+	 */
+	public void addMetricsListener(@NotNull MetricsListener listener) {
+		metricsListeners.add(listener);
+	}
+
+	/**
+	 * Removes a listener added with {@link #addMetricsListener(MetricsListener)}.
+	 *
+	 * @param listener The listener to remove.
+	 */
+	public void removeMetricsListener(@NotNull MetricsListener listener) {
+		metricsListeners.remove(listener);
+	}
+
+	/**
+	 * Gets the Logger used for error messages.
+	 *
+	 * @return The Logger used for error messages.
+	 */
+	public @NotNull Logger getLogger() {
+		return logger;
+	}
+
+	/**
+	 * Gets the durability used by {@link #save()}.
+	 *
+	 * @return The durability used when saving.
+	 */
+	public @NotNull Durability getDurability() {
+		return durability;
+	}
+
+	/**
+	 * Sets the durability used by {@link #save()}. Defaults to
+	 * {@link Durability#ATOMIC}.
+	 *
+	 * @param durability The durability to use when saving.
+	 */
+	public void setDurability(@NotNull Durability durability) {
+		this.durability = durability;
 	}
 
 	/**
@@ -313,33 +1228,93 @@ public class CommentedConfiguration extends YamlConfiguration {
 	 * @param commentLines Comments to add. One String per line.
 	 */
 	public void addComment(String path, String... commentLines) {
+		comments.add(path, commentLines);
+	}
 
-		StringBuilder commentBlock = new StringBuilder();
-		// Get the preceding spaces based on how many .'s are in the path.
-		String leadingSpaces = Strings.repeat("  ", (int) path.chars().filter(ch -> ch == '.').count());
-		// Parse over all of the comment lines.
-		for (String commentLine : commentLines) {
-			// Add the leading spaces if commentLine isn't empty.
-			commentLine = !commentLine.isEmpty() ? leadingSpaces + commentLine : "  ";
-			// Add a new line if this comment block already has more than one line.
-			if (commentBlock.length() > 0)
-				commentBlock.append(newLine);
-			// Add the line to the commentBlock.
-			commentBlock.append(commentLine);
-		}
-		// Put the comment block into the comments HashMap to be parsed into the config
-		// later.
-		comments.put(path, commentBlock.toString());
+	/**
+	 * Stores all comments of another configuration, replacing comments stored for
+	 * the same paths. The comment blocks are copied as they are, so this is much
+	 * cheaper than adding them one by one.
+	 *
+	 * @param other Configuration to copy the comments of.
+	 */
+	public void addComments(CommentedConfiguration other) {
+		comments.addAll(other.comments);
+	}
+
+	/**
+	 * Gets the comments of this configuration, which are merged into the yaml
+	 * when it is saved.
+	 *
+	 * @return The stored comments.
+	 */
+	public @NotNull Comments getComments() {
+		return comments;
+	}
+
+	/**
+	 * Get the options that change how the file is written other than through its
+	 * values, so a patched save can tell that they changed since it was indexed.
+	 * The header methods are used over getHeader(), which needs MC 1.18.1.
+	 *
+	 * @return The header, whether it is copied, and the indentation.
+	 */
+	@SuppressWarnings("deprecation")
+	private @NotNull List<Object> writeOptions() {
+		YamlConfigurationOptions options = options();
+		return Arrays.asList(options.header(), options.copyHeader(), options.indent());
 	}
 
 	/**
 	 * Width became an option with MC 1.18.1. Setting it wider will allow
 	 * configurations to not break things into multi-lines.
+	 *
+	 * @param config The configuration to set the width of.
 	 */
-	private void setWidth() {
+	static void setWidth(@NotNull YamlConfiguration config) {
 		try {
-			this.options().width(10000);
+			config.options().width(10000);
 		} catch (NoSuchMethodError ignored) {
 		}
 	}
+
+	/**
+	 * Guards the values while they are read or changed. Only locking and
+	 * unlocking are needed, so unlike a {@link Lock} there is nothing, such as
+	 * conditions, that the guard of a configuration which is not concurrent
+	 * could not support.
+	 */
+	private interface Guard {
+		/**
+		 * The guard used when the configuration is not concurrent, which does
+		 * nothing.
+		 */
+		Guard NONE = new Guard() {
+			@Override
+			public void lock() {
+			}
+
+			@Override
+			public void unlock() {
+			}
+		};
+
+		void lock();
+
+		void unlock();
+
+		static Guard of(Lock lock) {
+			return new Guard() {
+				@Override
+				public void lock() {
+					lock.lock();
+				}
+
+				@Override
+				public void unlock() {
+					lock.unlock();
+				}
+			};
+		}
+	}
 }
@@ -0,0 +1,185 @@
+package io.github.townyadvanced.commentedconfiguration;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A {@link MetricsListener} that adds up the loads and saves it is told about.
+ * It can be registered as an MBean to be watched from a JMX console.
+ */
+public class ConfigurationStatistics implements MetricsListener, ConfigurationStatisticsMBean {
+	private static final String DOMAIN = "io.github.townyadvanced.commentedconfiguration";
+
+	private final LongAdder loads = new LongAdder();
+	private final LongAdder loadFailures = new LongAdder();
+	private final LongAdder totalParseNanos = new LongAdder();
+	private final LongAdder bytesRead = new LongAdder();
+	private volatile long lastParseNanos;
+
+	private final LongAdder saves = new LongAdder();
+	private final LongAdder unchangedSaves = new LongAdder();
+	private final LongAdder saveFailures = new LongAdder();
+	private final LongAdder totalSaveNanos = new LongAdder();
+	private final LongAdder bytesWritten = new LongAdder();
+	private final LongAdder commentBlocks = new LongAdder();
+	private volatile long lastSerializeNanos;
+	private volatile long lastCommentNanos;
+	private volatile long lastWriteNanos;
+
+	private ObjectName objectName;
+
+	@Override
+	public void loaded(@NotNull Path path, long parseNanos, long bytesRead) {
+		loads.increment();
+		totalParseNanos.add(parseNanos);
+		this.bytesRead.add(bytesRead);
+		lastParseNanos = parseNanos;
+	}
+
+	@Override
+	public void saved(@NotNull Path path, @NotNull SaveResult result, long serializeNanos, long commentNanos,
+			long writeNanos, long bytes, int commentBlocks) {
+		if (result == SaveResult.UNCHANGED)
+			unchangedSaves.increment();
+		else {
+			saves.increment();
+			bytesWritten.add(bytes);
+			this.commentBlocks.add(commentBlocks);
+		}
+		totalSaveNanos.add(serializeNanos + commentNanos + writeNanos);
+		lastSerializeNanos = serializeNanos;
+		lastCommentNanos = commentNanos;
+		lastWriteNanos = writeNanos;
+	}
+
+	@Override
+	public void failed(@NotNull Path path, @NotNull Operation operation, @NotNull Exception exception) {
+		if (operation == Operation.LOAD)
+			loadFailures.increment();
+		else
+			saveFailures.increment();
+	}
+
+	/**
+	 * Registers these statistics with the platform MBean server.
+	 *
+	 * @param name The name to show them under, usually the plugin or file name.
+	 * @throws JMException if the name is already taken or the MBean cannot be
+	 *                     registered.
+	 */
+	public synchronized void register(@NotNull String name) throws JMException {
+		ObjectName objectName = new ObjectName(DOMAIN + ":type=ConfigurationStatistics,name=" + ObjectName.quote(name));
+		ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+		this.objectName = objectName;
+	}
+
+	/**
+	 * Removes these statistics from the platform MBean server, if they were
+	 * registered.
+	 *
+	 * @throws JMException if the MBean cannot be unregistered.
+	 */
+	public synchronized void unregister() throws JMException {
+		if (objectName == null)
+			return;
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		if (server.isRegistered(objectName))
+			server.unregisterMBean(objectName);
+		objectName = null;
+	}
+
+	@Override
+	public long getLoadCount() {
+		return loads.sum();
+	}
+
+	@Override
+	public long getLoadFailureCount() {
+		return loadFailures.sum();
+	}
+
+	@Override
+	public long getLastParseNanos() {
+		return lastParseNanos;
+	}
+
+	@Override
+	public long getTotalParseNanos() {
+		return totalParseNanos.sum();
+	}
+
+	@Override
+	public long getBytesRead() {
+		return bytesRead.sum();
+	}
+
+	@Override
+	public long getSaveCount() {
+		return saves.sum();
+	}
+
+	@Override
+	public long getUnchangedSaveCount() {
+		return unchangedSaves.sum();
+	}
+
+	@Override
+	public long getSaveFailureCount() {
+		return saveFailures.sum();
+	}
+
+	@Override
+	public long getLastSerializeNanos() {
+		return lastSerializeNanos;
+	}
+
+	@Override
+	public long getLastCommentNanos() {
+		return lastCommentNanos;
+	}
+
+	@Override
+	public long getLastWriteNanos() {
+		return lastWriteNanos;
+	}
+
+	@Override
+	public long getTotalSaveNanos() {
+		return totalSaveNanos.sum();
+	}
+
+	@Override
+	public long getBytesWritten() {
+		return bytesWritten.sum();
+	}
+
+	@Override
+	public long getCommentBlocksWritten() {
+		return commentBlocks.sum();
+	}
+
+	@Override
+	public void reset() {
+		loads.reset();
+		loadFailures.reset();
+		totalParseNanos.reset();
+		bytesRead.reset();
+		lastParseNanos = 0;
+		saves.reset();
+		unchangedSaves.reset();
+		saveFailures.reset();
+		totalSaveNanos.reset();
+		bytesWritten.reset();
+		commentBlocks.reset();
+		lastSerializeNanos = 0;
+		lastCommentNanos = 0;
+		lastWriteNanos = 0;
+	}
+}
@@ -0,0 +1,87 @@
+package io.github.townyadvanced.commentedconfiguration;
+
+/**
+ * The management interface of {@link ConfigurationStatistics}, as shown in JMX
+ * consoles such as JConsole or VisualVM.
+ */
+public interface ConfigurationStatisticsMBean {
+	/**
+	 * @return The number of files loaded.
+	 */
+	long getLoadCount();
+
+	/**
+	 * @return The number of files that failed to load.
+	 */
+	long getLoadFailureCount();
+
+	/**
+	 * @return How long parsing the last loaded file took, in nanoseconds.
+	 */
+	long getLastParseNanos();
+
+	/**
+	 * @return How long parsing all loaded files took, in nanoseconds.
+	 */
+	long getTotalParseNanos();
+
+	/**
+	 * @return The size of all loaded files, in bytes.
+	 */
+	long getBytesRead();
+
+	/**
+	 * @return The number of saves that wrote the file.
+	 */
+	long getSaveCount();
+
+	/**
+	 * @return The number of saves that found the file up-to-date and skipped
+	 *         writing it.
+	 */
+	long getUnchangedSaveCount();
+
+	/**
+	 * @return The number of saves that failed to write the file.
+	 */
+	long getSaveFailureCount();
+
+	/**
+	 * @return How long serializing the configuration took in the last save, in
+	 *         nanoseconds.
+	 */
+	long getLastSerializeNanos();
+
+	/**
+	 * @return How long merging in the comments and hashing the result took in the
+	 *         last save, in nanoseconds.
+	 */
+	long getLastCommentNanos();
+
+	/**
+	 * @return How long writing the file took in the last save, in nanoseconds.
+	 *         Zero if the file was up-to-date.
+	 */
+	long getLastWriteNanos();
+
+	/**
+	 * @return How long all saves took, including the ones that found the file
+	 *         up-to-date, in nanoseconds.
+	 */
+	long getTotalSaveNanos();
+
+	/**
+	 * @return The size of all written files, in bytes.
+	 */
+	long getBytesWritten();
+
+	/**
+	 * @return The number of comment blocks merged into all written files.
+	 */
+	long getCommentBlocksWritten();
+
+	/**
+	 * Set all counters and timings back to zero.
+	 */
+	void reset();
+}
@@ -0,0 +1,24 @@
+package io.github.townyadvanced.commentedconfiguration;
+
+/**
+ * How much care is taken to make sure a saved configuration file survives a
+ * crash or a concurrent reader.
+ */
+public enum Durability {
+	/**
+	 * Write straight onto the configuration file. Fastest, but a crash while
+	 * writing can leave a truncated file behind.
+	 */
+	DIRECT,
+	/**
+	 * Write to a temporary file next to the configuration file and atomically
+	 * move it over the original. Readers will only ever see the old or the new
+	 * file.
+	 */
+	ATOMIC,
+	/**
+	 * Same as {@link #ATOMIC}, but the temporary file is forced to the storage
+	 * device before it is moved, so the new file also survives a power loss.
+	 */
+	SYNC
+}
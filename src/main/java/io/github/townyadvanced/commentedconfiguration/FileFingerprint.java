@@ -0,0 +1,167 @@
+package io.github.townyadvanced.commentedconfiguration;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Identifies the contents of a file as they were when it was last read or
+ * written, so that unchanged files do not need to be written or read again.
+ */
+final class FileFingerprint {
+	private final long size;
+	private final long lastModified;
+	private final byte[] hash;
+
+	private FileFingerprint(long size, long lastModified, byte[] hash) {
+		this.size = size;
+		this.lastModified = lastModified;
+		this.hash = hash;
+	}
+
+	/**
+	 * Create a fingerprint for a file and the contents that were read from or
+	 * written to it.
+	 *
+	 * @param attributes The attributes of the file.
+	 * @param contents   The contents of the file.
+	 * @return The fingerprint of the file.
+	 */
+	static @NotNull FileFingerprint ofContents(@NotNull BasicFileAttributes attributes, @NotNull byte[] contents) {
+		return ofHash(attributes, hash(contents));
+	}
+
+	/**
+	 * Create a fingerprint for a file and the hash of the contents that were read
+	 * from or written to it.
+	 *
+	 * @param attributes The attributes of the file.
+	 * @param hash       The hash of the contents, made with {@link #newDigest()}.
+	 * @return The fingerprint of the file.
+	 */
+	static @NotNull FileFingerprint ofHash(@NotNull BasicFileAttributes attributes, @NotNull byte[] hash) {
+		return new FileFingerprint(attributes.size(), attributes.lastModifiedTime().toMillis(), hash);
+	}
+
+	/**
+	 * Create a fingerprint for a file whose contents were not hashed, such as one
+	 * that was only partly rewritten. It matches the file while its size and
+	 * modification time are unchanged, but never matches any contents.
+	 *
+	 * @param attributes The attributes of the file.
+	 * @return The fingerprint of the file.
+	 */
+	static @NotNull FileFingerprint ofAttributes(@NotNull BasicFileAttributes attributes) {
+		return ofHash(attributes, new byte[0]);
+	}
+
+	/**
+	 * Read the attributes of a file, following symlinks.
+	 *
+	 * @param path The file to read.
+	 * @return The attributes of the file.
+	 * @throws IOException if the file cannot be read.
+	 */
+	static @NotNull BasicFileAttributes attributes(@NotNull Path path) throws IOException {
+		return Files.readAttributes(path, BasicFileAttributes.class);
+	}
+
+	/**
+	 * Hash the contents of a file.
+	 *
+	 * @param contents The contents to hash.
+	 * @return The SHA-256 hash of the contents.
+	 */
+	static @NotNull byte[] hash(@NotNull byte[] contents) {
+		return newDigest().digest(contents);
+	}
+
+	/**
+	 * Create a digest for hashing contents piece by piece.
+	 *
+	 * @return A new SHA-256 digest.
+	 */
+	static @NotNull MessageDigest newDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			// Every Java platform is required to support SHA-256.
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Check whether the file still has the size and modification time it had
+	 * when this fingerprint was made. This is only a stat and does not read the
+	 * file.
+	 *
+	 * @param path The file to check.
+	 * @return true if the file looks untouched.
+	 */
+	boolean matchesFile(@NotNull Path path) {
+		try {
+			BasicFileAttributes attributes = attributes(path);
+			return attributes.size() == size && attributes.lastModifiedTime().toMillis() == lastModified;
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Write this fingerprint, to be read back with {@link #readFrom(DataInput)}.
+	 *
+	 * @param out Where to write the fingerprint.
+	 * @throws IOException if out cannot be written to.
+	 */
+	void writeTo(@NotNull DataOutput out) throws IOException {
+		out.writeLong(size);
+		out.writeLong(lastModified);
+		out.writeShort(hash.length);
+		out.write(hash);
+	}
+
+	/**
+	 * Read a fingerprint written with {@link #writeTo(DataOutput)}.
+	 *
+	 * @param in Where to read the fingerprint from.
+	 * @return The fingerprint.
+	 * @throws IOException if in cannot be read from.
+	 */
+	static @NotNull FileFingerprint readFrom(@NotNull DataInput in) throws IOException {
+		long size = in.readLong();
+		long lastModified = in.readLong();
+		byte[] hash = new byte[in.readUnsignedShort()];
+		in.readFully(hash);
+		return new FileFingerprint(size, lastModified, hash);
+	}
+
+	/**
+	 * Check whether another fingerprint was made for the same file size,
+	 * modification time and contents.
+	 *
+	 * @param other The fingerprint to compare with.
+	 * @return true if both fingerprints are the same.
+	 */
+	boolean matches(@NotNull FileFingerprint other) {
+		return size == other.size && lastModified == other.lastModified && Arrays.equals(hash, other.hash);
+	}
+
+	/**
+	 * Check whether the given hash matches the hash of the fingerprinted
+	 * contents.
+	 *
+	 * @param otherHash The hash made with {@link #hash(byte[])}.
+	 * @return true if the contents are the same.
+	 */
+	boolean matchesHash(@NotNull byte[] otherHash) {
+		return Arrays.equals(hash, otherHash);
+	}
+}
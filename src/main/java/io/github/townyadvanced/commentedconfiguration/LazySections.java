@@ -0,0 +1,277 @@
+package io.github.townyadvanced.commentedconfiguration;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * The top level entries of a yaml file, split apart without parsing them, so
+ * that each one can be parsed the first time something under it is used.
+ * <p>
+ * Entries that are never parsed are written back exactly as they were read.
+ * Only files whose top level is a plain block mapping can be split this way;
+ * anything else, such as anchors and aliases that could cross entries, is
+ * left to the yaml parser.
+ */
+final class LazySections {
+	/**
+	 * An anchor or alias, which could tie one entry to another.
+	 */
+	private static final Pattern ANCHOR_OR_ALIAS = Pattern.compile("(?:^|[\\s\\[{,])[&*][^\\s,\\]}]", Pattern.MULTILINE);
+
+	private final String header;
+	private final List<String> order;
+	private final Map<String, String> pending;
+	private final Map<String, String> unreadable = new ConcurrentHashMap<>();
+
+	private LazySections(String header, List<String> order, Map<String, String> pending) {
+		this.header = header;
+		this.order = order;
+		this.pending = pending;
+	}
+
+	/**
+	 * Split a yaml file into its top level entries.
+	 *
+	 * @param contents The contents of the file.
+	 * @return The entries, or null if the file cannot be split safely.
+	 */
+	static @Nullable LazySections split(@NotNull String contents) {
+		if (ANCHOR_OR_ALIAS.matcher(contents).find())
+			return null;
+		List<String> order = new ArrayList<>();
+		Map<String, String> pending = new ConcurrentHashMap<>();
+		String header = null;
+		String key = null;
+		int entryStart = 0;
+		int length = contents.length();
+		int lineStart = 0;
+		while (lineStart < length) {
+			int lineEnd = lineEnd(contents, lineStart);
+			// More than one document in the file.
+			if (contents.startsWith("---", lineStart))
+				return null;
+			if (startsEntry(contents, lineStart, lineEnd)) {
+				String newKey = keyOf(contents, lineStart, lineEnd);
+				if (newKey == null || pending.containsKey(newKey) || newKey.equals(key))
+					return null;
+				if (key == null)
+					header = contents.substring(0, lineStart);
+				else
+					pending.put(key, contents.substring(entryStart, lineStart));
+				key = newKey;
+				order.add(key);
+				entryStart = lineStart;
+			} else if (key == null && lineStart < lineEnd && !isComment(contents, lineStart, lineEnd)) {
+				// Only comments and blank lines can come before the first entry.
+				return null;
+			}
+			lineStart = nextLine(contents, lineEnd);
+		}
+		if (key == null)
+			return new LazySections(contents, Collections.emptyList(), pending);
+		pending.put(key, withNewLine(contents.substring(entryStart)));
+		return new LazySections(header, Collections.unmodifiableList(order), pending);
+	}
+
+	/**
+	 * Get the comments and blank lines before the first entry.
+	 *
+	 * @return The header of the file.
+	 */
+	@NotNull String getHeader() {
+		return header;
+	}
+
+	/**
+	 * Get the top level keys, in the order they were in the file.
+	 *
+	 * @return The keys of all entries.
+	 */
+	@NotNull List<String> getOrder() {
+		return order;
+	}
+
+	/**
+	 * Check whether an entry has yet to be parsed.
+	 *
+	 * @param key The top level key of the entry.
+	 * @return true if the entry is still unparsed.
+	 */
+	boolean isPending(@NotNull String key) {
+		return pending.containsKey(key);
+	}
+
+	/**
+	 * Check whether any entry has yet to be parsed.
+	 *
+	 * @return true if an entry is still unparsed.
+	 */
+	boolean hasPending() {
+		return !pending.isEmpty();
+	}
+
+	/**
+	 * Get the yaml of an unparsed entry.
+	 *
+	 * @param key The top level key of the entry.
+	 * @return The yaml of the entry, or null if it was already parsed.
+	 */
+	@Nullable String getPending(@NotNull String key) {
+		return pending.get(key);
+	}
+
+	/**
+	 * Mark an entry as parsed.
+	 *
+	 * @param key The top level key of the entry.
+	 */
+	void parsed(@NotNull String key) {
+		pending.remove(key);
+	}
+
+	/**
+	 * Mark an entry as failing to parse. It is written back as it was, unless
+	 * its key is given a new value.
+	 *
+	 * @param key The top level key of the entry.
+	 */
+	void unreadable(@NotNull String key) {
+		String yaml = pending.remove(key);
+		if (yaml != null)
+			unreadable.put(key, yaml);
+	}
+
+	/**
+	 * Put the unparsed entries back between the parsed ones, in the order of the
+	 * file. Keys that were added since the file was loaded follow at the end.
+	 *
+	 * @param dumped The parsed entries, serialized.
+	 * @param keys   The top level keys of the parsed entries, in the order they
+	 *               were serialized in.
+	 * @return The whole file, or null if the serialized entries could not be
+	 *         matched to their keys.
+	 */
+	@Nullable String merge(@NotNull String dumped, @NotNull List<String> keys) {
+		Map<String, String> entries = new HashMap<>();
+		int length = dumped.length();
+		int lineStart = 0;
+		int entryStart = -1;
+		int entry = 0;
+		String dumpedHeader = dumped;
+		while (lineStart < length) {
+			int lineEnd = lineEnd(dumped, lineStart);
+			if (startsEntry(dumped, lineStart, lineEnd)) {
+				if (entry == keys.size())
+					return null;
+				if (entryStart < 0)
+					dumpedHeader = dumped.substring(0, lineStart);
+				else
+					entries.put(keys.get(entry - 1), dumped.substring(entryStart, lineStart));
+				entry++;
+				entryStart = lineStart;
+			}
+			lineStart = nextLine(dumped, lineEnd);
+		}
+		if (entry != keys.size())
+			return null;
+		if (entryStart >= 0)
+			entries.put(keys.get(entry - 1), withNewLine(dumped.substring(entryStart)));
+
+		StringBuilder merged = new StringBuilder(dumped.length() + 1024);
+		merged.append(dumpedHeader);
+		for (String key : order) {
+			String yaml = entries.remove(key);
+			if (yaml == null)
+				yaml = pending.get(key);
+			if (yaml == null)
+				yaml = unreadable.get(key);
+			if (yaml != null)
+				merged.append(yaml);
+		}
+		// What is left was added since the file was loaded.
+		for (String key : keys) {
+			String yaml = entries.get(key);
+			if (yaml != null)
+				merged.append(yaml);
+		}
+		return merged.toString();
+	}
+
+	/**
+	 * Check whether a line starts a new top level entry.
+	 */
+	private static boolean startsEntry(String contents, int lineStart, int lineEnd) {
+		if (lineStart == lineEnd)
+			return false;
+		char first = contents.charAt(lineStart);
+		// Indented lines, list items and comments belong to the entry above.
+		return first != ' ' && first != '\t' && first != '-' && first != '#';
+	}
+
+	/**
+	 * Read the key of a line starting an entry, from the first character of the
+	 * key.
+	 *
+	 * @return The key, or null if it is not a plain key that is safe to split on.
+	 */
+	static @Nullable String keyOf(@NotNull String contents, int lineStart, int lineEnd) {
+		int colon = lineStart;
+		while (colon < lineEnd && contents.charAt(colon) != ':') {
+			char c = contents.charAt(colon);
+			// Quoted, flow, complex and directive keys, and keys with a period, are left to the parser.
+			if (c <= ' ' || c == '.' || c == '\'' || c == '"' || c == '{' || c == '}' || c == '[' || c == ']'
+					|| c == ',' || c == '#' || c == '&' || c == '*' || c == '!' || c == '|' || c == '>'
+					|| c == '%' || c == '@' || c == '`' || c == '?')
+				return null;
+			colon++;
+		}
+		// A key is followed by a colon at the end of the line or before a space.
+		if (colon == lineStart || colon == lineEnd)
+			return null;
+		if (colon + 1 < lineEnd && contents.charAt(colon + 1) != ' ')
+			return null;
+		return contents.substring(lineStart, colon);
+	}
+
+	private static boolean isComment(String contents, int lineStart, int lineEnd) {
+		for (int n = lineStart; n < lineEnd; n++) {
+			char c = contents.charAt(n);
+			if (c == '#')
+				return true;
+			if (c > ' ')
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Find where a line ends, before its line separator.
+	 */
+	static int lineEnd(@NotNull String contents, int lineStart) {
+		int lineEnd = lineStart;
+		while (lineEnd < contents.length() && contents.charAt(lineEnd) != '\n' && contents.charAt(lineEnd) != '\r')
+			lineEnd++;
+		return lineEnd;
+	}
+
+	/**
+	 * Find where the line after a line ending at lineEnd starts.
+	 */
+	static int nextLine(@NotNull String contents, int lineEnd) {
+		if (lineEnd >= contents.length())
+			return lineEnd;
+		return lineEnd + (contents.charAt(lineEnd) == '\r' && lineEnd + 1 < contents.length() && contents.charAt(lineEnd + 1) == '\n' ? 2 : 1);
+	}
+
+	private static String withNewLine(String entry) {
+		return entry.endsWith("\n") || entry.endsWith("\r") ? entry : entry + "\n";
+	}
+}
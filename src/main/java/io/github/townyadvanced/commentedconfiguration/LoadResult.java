@@ -0,0 +1,20 @@
+package io.github.townyadvanced.commentedconfiguration;
+
+/**
+ * The outcome of reloading a configuration.
+ */
+public enum LoadResult {
+	/**
+	 * The file was parsed and its values replaced the current ones.
+	 */
+	LOADED,
+	/**
+	 * The file still held exactly what was last loaded or saved, so it was not
+	 * parsed again.
+	 */
+	UNCHANGED,
+	/**
+	 * The file could not be read or parsed, the current values were kept.
+	 */
+	FAILED
+}
@@ -0,0 +1,65 @@
+package io.github.townyadvanced.commentedconfiguration;
+
+import java.nio.file.Path;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Receives timings and sizes of the loads and saves of a
+ * {@link CommentedConfiguration}. Called on the thread doing the load or save,
+ * so implementations should be quick and thread-safe.
+ */
+public interface MetricsListener {
+	/**
+	 * Called after a file was loaded.
+	 *
+	 * @param path       The file that was loaded.
+	 * @param parseNanos How long parsing the yaml took, in nanoseconds.
+	 * @param bytesRead  The size of the file.
+	 */
+	default void loaded(@NotNull Path path, long parseNanos, long bytesRead) {
+	}
+
+	/**
+	 * Called after a file was saved, or found to be up-to-date.
+	 *
+	 * @param path           The file that was saved.
+	 * @param result         Whether the file was written or already up-to-date.
+	 * @param serializeNanos How long serializing the configuration took, in
+	 *                       nanoseconds, or finding the changed values for a
+	 *                       save that only patches them.
+	 * @param commentNanos   How long merging in the comments and hashing the
+	 *                       result took, in nanoseconds. Zero for a save that
+	 *                       only patches the changed values.
+	 * @param writeNanos     How long writing the file took, in nanoseconds. Zero
+	 *                       if it was not written.
+	 * @param bytes          The size of the saved contents, in bytes. For a save
+	 *                       that only patches the changed values, the number of
+	 *                       bytes written to the file, or to the copy moved over
+	 *                       it.
+	 * @param commentBlocks  The number of comment blocks that were merged in.
+	 *                       Zero for a save that only patches the changed values,
+	 *                       as the comments in the file are kept as they are.
+	 */
+	default void saved(@NotNull Path path, @NotNull SaveResult result, long serializeNanos, long commentNanos,
+			long writeNanos, long bytes, int commentBlocks) {
+	}
+
+	/**
+	 * Called when a file failed to load or save.
+	 *
+	 * @param path      The file that failed.
+	 * @param operation What was being done with the file.
+	 * @param exception The cause of the failure.
+	 */
+	default void failed(@NotNull Path path, @NotNull Operation operation, @NotNull Exception exception) {
+	}
+
+	/**
+	 * Something done with a configuration file.
+	 */
+	enum Operation {
+		LOAD,
+		SAVE
+	}
+}
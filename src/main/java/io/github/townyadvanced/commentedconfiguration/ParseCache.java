@@ -0,0 +1,319 @@
+package io.github.townyadvanced.commentedconfiguration;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A binary snapshot of a parsed config, stored next to the config file, so the
+ * yaml does not need to be parsed again while the file is unchanged.
+ * <p>
+ * The snapshot is keyed by the {@link FileFingerprint} of the file it was
+ * parsed from, and only holds sections, strings, numbers, booleans, lists and
+ * maps. Configs holding anything else are not cached. A cache that cannot be
+ * read back is treated as missing, and the yaml is parsed instead.
+ */
+final class ParseCache {
+	private static final int MAGIC = 0x43434643;
+	private static final int VERSION = 1;
+
+	private static final byte NULL = 0;
+	private static final byte STRING = 1;
+	private static final byte INT = 2;
+	private static final byte LONG = 3;
+	private static final byte DOUBLE = 4;
+	private static final byte FLOAT = 5;
+	private static final byte BOOLEAN = 6;
+	private static final byte BIG_INTEGER = 7;
+	private static final byte LIST = 8;
+	private static final byte MAP = 9;
+	private static final byte SECTION = 10;
+
+	private ParseCache() {
+	}
+
+	/**
+	 * Get where the cache of a config file is stored.
+	 *
+	 * @param configPath The config file.
+	 * @return The hidden cache file next to the config file.
+	 */
+	static @NotNull Path pathFor(@NotNull Path configPath) {
+		return configPath.resolveSibling("." + configPath.getFileName() + ".cache");
+	}
+
+	/**
+	 * Read a cached config, if the cache was made from the fingerprinted
+	 * contents. The values are decoded apart from any section, so that this can
+	 * be done without holding the lock on the config, and then put in it in one
+	 * go with {@link #replace(ConfigurationSection, Map)}.
+	 *
+	 * @param cachePath   The cache file.
+	 * @param fingerprint The fingerprint of the contents that would be parsed.
+	 * @return The decoded values, or null if the cache is missing, stale or
+	 *         broken.
+	 */
+	static @Nullable Map<String, Object> read(@NotNull Path cachePath, @NotNull FileFingerprint fingerprint) {
+		byte[] data;
+		try {
+			data = Files.readAllBytes(cachePath);
+		} catch (IOException e) {
+			return null;
+		}
+		try {
+			DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+			if (in.readInt() != MAGIC || in.readUnsignedByte() != VERSION
+					|| !FileFingerprint.readFrom(in).matches(fingerprint))
+				return null;
+			return readSection(in);
+		} catch (IOException | RuntimeException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Replace everything in a section with values read from a cache.
+	 *
+	 * @param section The section to fill, usually the whole config.
+	 * @param values  The values, as returned by {@link #read(Path, FileFingerprint)}.
+	 */
+	static void replace(@NotNull ConfigurationSection section, @NotNull Map<String, Object> values) {
+		for (String key : section.getKeys(false))
+			section.set(key, null);
+		apply(values, section);
+	}
+
+	/**
+	 * Turn a section into a cache, if it only holds values the cache can store.
+	 *
+	 * @param fingerprint The fingerprint of the contents the section was parsed
+	 *                    from.
+	 * @param section     The parsed section.
+	 * @return The cache, or null if the section cannot be cached.
+	 */
+	static @Nullable byte[] encode(@NotNull FileFingerprint fingerprint, @NotNull ConfigurationSection section) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		try {
+			out.writeInt(MAGIC);
+			out.writeByte(VERSION);
+			fingerprint.writeTo(out);
+			if (!writeSection(out, section))
+				return null;
+			out.flush();
+		} catch (IOException e) {
+			// Writing in memory cannot fail.
+			throw new IllegalStateException(e);
+		}
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Store a cache, replacing the old one in a single step.
+	 *
+	 * @param cachePath The cache file.
+	 * @param data      The cache.
+	 * @throws IOException if the cache file cannot be written.
+	 */
+	static void write(@NotNull Path cachePath, @NotNull byte[] data) throws IOException {
+		Path temp = Files.createTempFile(cachePath.toAbsolutePath().getParent(), cachePath.getFileName().toString(), ".tmp");
+		try {
+			Files.write(temp, data);
+			try {
+				Files.move(temp, cachePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(temp, cachePath, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+	}
+
+	/**
+	 * Remove the cache of a config file, if there is one.
+	 *
+	 * @param cachePath The cache file.
+	 */
+	static void delete(@NotNull Path cachePath) {
+		try {
+			Files.deleteIfExists(cachePath);
+		} catch (IOException ignored) {
+			// A stale cache is never used, as its fingerprint will not match.
+		}
+	}
+
+	private static boolean writeSection(DataOutputStream out, ConfigurationSection section) throws IOException {
+		Map<String, Object> values = section.getValues(false);
+		out.writeInt(values.size());
+		for (Map.Entry<String, Object> entry : values.entrySet()) {
+			writeString(out, entry.getKey());
+			if (!writeValue(out, entry.getValue()))
+				return false;
+		}
+		return true;
+	}
+
+	private static boolean writeValue(DataOutputStream out, Object value) throws IOException {
+		if (value == null) {
+			out.writeByte(NULL);
+		} else if (value instanceof String) {
+			out.writeByte(STRING);
+			writeString(out, (String) value);
+		} else if (value instanceof Integer) {
+			out.writeByte(INT);
+			out.writeInt((Integer) value);
+		} else if (value instanceof Long) {
+			out.writeByte(LONG);
+			out.writeLong((Long) value);
+		} else if (value instanceof Double) {
+			out.writeByte(DOUBLE);
+			out.writeDouble((Double) value);
+		} else if (value instanceof Float) {
+			out.writeByte(FLOAT);
+			out.writeFloat((Float) value);
+		} else if (value instanceof Boolean) {
+			out.writeByte(BOOLEAN);
+			out.writeBoolean((Boolean) value);
+		} else if (value instanceof BigInteger) {
+			out.writeByte(BIG_INTEGER);
+			byte[] bytes = ((BigInteger) value).toByteArray();
+			out.writeInt(bytes.length);
+			out.write(bytes);
+		} else if (value instanceof List) {
+			List<?> list = (List<?>) value;
+			out.writeByte(LIST);
+			out.writeInt(list.size());
+			for (Object element : list)
+				if (!writeValue(out, element))
+					return false;
+		} else if (value instanceof Map) {
+			Map<?, ?> map = (Map<?, ?>) value;
+			out.writeByte(MAP);
+			out.writeInt(map.size());
+			for (Map.Entry<?, ?> entry : map.entrySet())
+				if (!writeValue(out, entry.getKey()) || !writeValue(out, entry.getValue()))
+					return false;
+		} else if (value instanceof ConfigurationSection) {
+			out.writeByte(SECTION);
+			return writeSection(out, (ConfigurationSection) value);
+		} else {
+			// Serialized objects and anything else are left to the yaml parser.
+			return false;
+		}
+		return true;
+	}
+
+	private static void writeString(DataOutputStream out, String string) throws IOException {
+		// writeUTF is limited to 64KB, which long lists of messages can exceed.
+		byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static Map<String, Object> readSection(DataInputStream in) throws IOException {
+		int size = readLength(in);
+		Map<String, Object> values = new LinkedHashMap<>();
+		for (int i = 0; i < size; i++) {
+			String key = readString(in);
+			values.put(key, readValue(in));
+		}
+		return values;
+	}
+
+	private static Object readValue(DataInputStream in) throws IOException {
+		byte tag = in.readByte();
+		switch (tag) {
+		case NULL:
+			return null;
+		case STRING:
+			return readString(in);
+		case INT:
+			return in.readInt();
+		case LONG:
+			return in.readLong();
+		case DOUBLE:
+			return in.readDouble();
+		case FLOAT:
+			return in.readFloat();
+		case BOOLEAN:
+			return in.readBoolean();
+		case BIG_INTEGER:
+			byte[] bytes = new byte[readLength(in)];
+			in.readFully(bytes);
+			return new BigInteger(bytes);
+		case LIST:
+			int length = readLength(in);
+			List<Object> list = new ArrayList<>(length);
+			for (int i = 0; i < length; i++)
+				list.add(readValue(in));
+			return list;
+		case MAP:
+			int size = readLength(in);
+			Map<Object, Object> map = new LinkedHashMap<>();
+			for (int i = 0; i < size; i++) {
+				Object key = readValue(in);
+				map.put(key, readValue(in));
+			}
+			return map;
+		case SECTION:
+			return new Section(readSection(in));
+		default:
+			throw new IOException("Unknown value type " + tag + " in config cache.");
+		}
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		byte[] bytes = new byte[readLength(in)];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Read the length of a string, list, map or section. Each of their elements
+	 * takes at least a byte, so a length beyond the end of the cache can only come
+	 * from a broken cache, and is rejected before anything is allocated for it.
+	 */
+	private static int readLength(DataInputStream in) throws IOException {
+		int length = in.readInt();
+		if (length < 0 || length > in.available())
+			throw new IOException("Invalid length " + length + " in config cache.");
+		return length;
+	}
+
+	private static void apply(Map<String, Object> values, ConfigurationSection section) {
+		for (Map.Entry<String, Object> entry : values.entrySet()) {
+			Object value = entry.getValue();
+			if (value instanceof Section)
+				apply(((Section) value).values, section.createSection(entry.getKey()));
+			else
+				section.set(entry.getKey(), value);
+		}
+	}
+
+	/**
+	 * A decoded section, kept apart from maps until it is applied.
+	 */
+	private static final class Section {
+		private final Map<String, Object> values;
+
+		private Section(Map<String, Object> values) {
+			this.values = values;
+		}
+	}
+}
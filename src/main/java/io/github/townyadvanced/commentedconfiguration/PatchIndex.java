@@ -0,0 +1,594 @@
+package io.github.townyadvanced.commentedconfiguration;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.configuration.serialization.ConfigurationSerializable;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Where the values of a config file are, by byte offset, and what they were
+ * when the file was last loaded or saved. A save that only changed some of
+ * those values can then rewrite just their spans and copy the rest of the file.
+ * <p>
+ * Only values written on a single line as a plain or quoted scalar are given a
+ * span. The lines are followed by their indentation, and anything that cannot
+ * be followed safely, such as list items, block scalars or quoted keys, is
+ * skipped along with everything nested under it. A change to a value without a
+ * span, or to which keys there are, means the file has to be saved in full.
+ * <p>
+ * The index keeps the bytes of the file, so that the patched contents can
+ * still be written in full if the file was changed by something else in the
+ * meantime.
+ */
+final class PatchIndex {
+	/**
+	 * Stands in for sections in the copied values, as only their keys matter.
+	 */
+	private static final Object SECTION = new Object();
+	/**
+	 * Longer strings are left to a full save, which may fold them over several
+	 * lines.
+	 */
+	private static final int MAX_RENDERED_LENGTH = 4096;
+	/**
+	 * Plain scalars starting with a digit, sign, period or underscore that are
+	 * read as numbers or timestamps, by the resolvers of both SnakeYAML 1 and 2.
+	 */
+	private static final Pattern NUMBER = Pattern.compile("[-+]?0b_*[0-1][0-1_]*|[-+]?0_*[0-7][0-7_]*|[-+]?(?:0|[1-9][0-9_]*)"
+			+ "|[-+]?0x_*[0-9a-fA-F][0-9a-fA-F_]*|[-+]?[1-9][0-9_]*(?::[0-5]?[0-9])+"
+			+ "|[-+]?(?:[0-9][0-9_]*)\\.[0-9_]*(?:[eE][-+]?[0-9]+)?|[-+]?(?:[0-9][0-9_]*)(?:[eE][-+]?[0-9]+)"
+			+ "|[-+]?\\.[0-9_]+(?:[eE][-+]?[0-9]+)?|[-+]?(?:\\.[0-9]+|[0-9_]+(?:\\.[0-9_]*)?)(?:[eE][-+]?[0-9]+)?"
+			+ "|[-+]?[0-9][0-9_]*(?::[0-5]?[0-9])+\\.[0-9_]*|[-+]?\\.(?:inf|Inf|INF)|\\.(?:nan|NaN|NAN)"
+			+ "|[0-9][0-9][0-9][0-9]-[0-9][0-9]?-[0-9][0-9]?(?:(?:[Tt]|[ \\t]+)[0-9][0-9]?:[0-9][0-9]:[0-9][0-9](?:\\.[0-9]*)?"
+			+ "(?:[ \\t]*(?:Z|[-+][0-9][0-9]?(?::[0-9][0-9])?))?)?");
+	/**
+	 * Other plain scalars that are read as booleans, null or a merge key.
+	 */
+	private static final Pattern KEYWORD = Pattern.compile("yes|Yes|YES|no|No|NO|true|True|TRUE|false|False|FALSE"
+			+ "|on|On|ON|off|Off|OFF|~|null|Null|NULL|<<");
+
+	private final FileFingerprint fingerprint;
+	private final byte[] contents;
+	private final long commentsVersion;
+	private final List<Object> options;
+	private final Map<String, Object> values;
+	private final Map<String, Span> spans;
+
+	private PatchIndex(FileFingerprint fingerprint, byte[] contents, long commentsVersion, List<Object> options,
+			Map<String, Object> values, Map<String, Span> spans) {
+		this.fingerprint = fingerprint;
+		this.contents = contents;
+		this.commentsVersion = commentsVersion;
+		this.options = options;
+		this.values = values;
+		this.spans = spans;
+	}
+
+	/**
+	 * Index the contents of a config file.
+	 *
+	 * @param contents        The contents of the file.
+	 * @param bytes           The contents of the file, encoded as UTF-8.
+	 * @param values          The values parsed from or serialized into the file,
+	 *                        as copied by {@link #copyValues(Map)}.
+	 * @param fingerprint     The fingerprint of the file.
+	 * @param commentsVersion The version of the comments merged into the file.
+	 * @param options         The options the file was written with, such as its
+	 *                        header, which are not in the values.
+	 * @return The index, or null if the file holds more than one document or
+	 *         uses tabs for indentation.
+	 */
+	static @Nullable PatchIndex build(@NotNull String contents, @NotNull byte[] bytes, @NotNull Map<String, Object> values,
+			@NotNull FileFingerprint fingerprint, long commentsVersion, @NotNull List<Object> options) {
+		Map<String, Span> spans = new HashMap<>();
+		Set<String> ambiguous = new HashSet<>();
+		// The sections the current line is nested in, with their indentation.
+		List<Integer> indents = new ArrayList<>();
+		List<String> paths = new ArrayList<>();
+		// Lines indented deeper than this belong to something that is not followed.
+		int skipDeeperThan = -1;
+		// The last value is only given its span once the next line shows it does not continue.
+		String pendingPath = null;
+		int pendingIndent = 0;
+		long pendingStart = 0;
+		long pendingEnd = 0;
+
+		long lineOffset = 0;
+		int length = contents.length();
+		int lineStart = 0;
+		while (lineStart < length) {
+			int lineEnd = LazySections.lineEnd(contents, lineStart);
+			int nextLine = LazySections.nextLine(contents, lineEnd);
+			long offset = lineOffset;
+			lineOffset += utf8Length(contents, lineStart, nextLine);
+
+			int indent = 0;
+			while (lineStart + indent < lineEnd && contents.charAt(lineStart + indent) == ' ')
+				indent++;
+			int first = lineStart + indent;
+			if (first == lineEnd || contents.charAt(first) == '#') {
+				lineStart = nextLine;
+				continue;
+			}
+			char c = contents.charAt(first);
+			if (c == '\t' || (indent == 0 && (c == '%' || contents.startsWith("---", first) || contents.startsWith("...", first))))
+				return null;
+
+			if (pendingPath != null) {
+				if (indent > pendingIndent)
+					skipDeeperThan = pendingIndent;
+				else if (spans.put(pendingPath, new Span(pendingStart, pendingEnd)) != null)
+					ambiguous.add(pendingPath);
+				pendingPath = null;
+			}
+			if (skipDeeperThan >= 0) {
+				if (indent > skipDeeperThan) {
+					lineStart = nextLine;
+					continue;
+				}
+				skipDeeperThan = -1;
+			}
+			while (!indents.isEmpty() && indents.get(indents.size() - 1) >= indent) {
+				indents.remove(indents.size() - 1);
+				paths.remove(paths.size() - 1);
+			}
+
+			String key = LazySections.keyOf(contents, first, lineEnd);
+			if (key == null) {
+				// List items, and keys that are quoted, complex or hold a period.
+				skipDeeperThan = indent;
+				lineStart = nextLine;
+				continue;
+			}
+			String path = paths.isEmpty() ? key : paths.get(paths.size() - 1) + '.' + key;
+			int valueStart = first + key.length() + 1;
+			while (valueStart < lineEnd && contents.charAt(valueStart) == ' ')
+				valueStart++;
+			if (valueStart == lineEnd || contents.charAt(valueStart) == '#') {
+				// A section, or a list, follows on the next lines.
+				indents.add(indent);
+				paths.add(path);
+			} else if (isScalarStart(contents.charAt(valueStart))) {
+				pendingPath = path;
+				pendingIndent = indent;
+				pendingStart = offset + utf8Length(contents, lineStart, valueStart);
+				pendingEnd = offset + utf8Length(contents, lineStart, scalarEnd(contents, valueStart, lineEnd));
+			} else {
+				skipDeeperThan = indent;
+			}
+			lineStart = nextLine;
+		}
+		if (pendingPath != null && spans.put(pendingPath, new Span(pendingStart, pendingEnd)) != null)
+			ambiguous.add(pendingPath);
+
+		spans.keySet().removeAll(ambiguous);
+		spans.keySet().removeIf(path -> !isScalar(values.get(path)));
+		return new PatchIndex(fingerprint, bytes, commentsVersion, options, values, spans);
+	}
+
+	/**
+	 * Copy the values of a configuration, so that later changes to lists and
+	 * maps they hold are seen.
+	 *
+	 * @param values The values, as returned by getValues(true).
+	 * @return The copied values, to index the file they are written to with.
+	 */
+	static @NotNull Map<String, Object> copyValues(@NotNull Map<String, Object> values) {
+		Map<String, Object> copied = new HashMap<>(values.size() * 4 / 3 + 1);
+		for (Map.Entry<String, Object> entry : values.entrySet())
+			copied.put(entry.getKey(), copy(entry.getValue()));
+		return copied;
+	}
+
+	/**
+	 * Get the fingerprint of the file this index is of.
+	 *
+	 * @return The fingerprint of the indexed file.
+	 */
+	@NotNull FileFingerprint getFingerprint() {
+		return fingerprint;
+	}
+
+	/**
+	 * Get the version of the comments that were merged into the indexed file.
+	 *
+	 * @return The version of the comments.
+	 */
+	long getCommentsVersion() {
+		return commentsVersion;
+	}
+
+	/**
+	 * Get the options the indexed file was written with. If they changed, the
+	 * parts of the file outside the values may have to change too.
+	 *
+	 * @return The options of the indexed file.
+	 */
+	@NotNull List<Object> getOptions() {
+		return options;
+	}
+
+	/**
+	 * Find the values that changed since the file was indexed.
+	 *
+	 * @param current The values now, as returned by getValues(true).
+	 * @return The changes to write, ordered by their place in the file, or null
+	 *         if something changed that cannot be patched, or a span does not
+	 *         hold the value the index has for it.
+	 */
+	@Nullable List<Patch> diff(@NotNull Map<String, Object> current) {
+		if (current.size() != values.size())
+			return null;
+		List<Patch> patches = new ArrayList<>();
+		for (Map.Entry<String, Object> entry : current.entrySet()) {
+			String path = entry.getKey();
+			Object old = values.get(path);
+			if (old == null)
+				return null;
+			Object value = copy(entry.getValue());
+			if (value == SECTION || old == SECTION) {
+				if (value != old)
+					return null;
+				continue;
+			}
+			if (value.equals(old))
+				continue;
+			Span span = spans.get(path);
+			if (span == null || !isScalar(value))
+				return null;
+			byte[] bytes = render(value);
+			if (bytes == null || !holds(span, old))
+				return null;
+			patches.add(new Patch(span, Arrays.copyOfRange(contents, (int) span.start, (int) span.end), value, bytes, path));
+		}
+		patches.sort((a, b) -> Long.compare(a.span.start, b.span.start));
+		return patches;
+	}
+
+	/**
+	 * Apply patches to the indexed contents, without touching the file.
+	 *
+	 * @param patches The changes, as found by {@link #diff(Map)}.
+	 * @return The patched contents.
+	 */
+	@NotNull byte[] apply(@NotNull List<Patch> patches) {
+		long shift = 0;
+		for (Patch patch : patches)
+			shift += patch.bytes.length - (patch.span.end - patch.span.start);
+		byte[] patched = new byte[(int) (contents.length + shift)];
+		int from = 0;
+		int to = 0;
+		for (Patch patch : patches) {
+			int unchanged = (int) patch.span.start - from;
+			System.arraycopy(contents, from, patched, to, unchanged);
+			to += unchanged;
+			System.arraycopy(patch.bytes, 0, patched, to, patch.bytes.length);
+			to += patch.bytes.length;
+			from = (int) patch.span.end;
+		}
+		System.arraycopy(contents, from, patched, to, contents.length - from);
+		return patched;
+	}
+
+	/**
+	 * Create the index of the file after patches were written to it.
+	 *
+	 * @param patches     The patches that were written, in order.
+	 * @param contents    The patched contents, as returned by
+	 *                    {@link #apply(List)}.
+	 * @param fingerprint The fingerprint of the patched file.
+	 * @return The index of the patched file.
+	 */
+	@NotNull PatchIndex patched(@NotNull List<Patch> patches, @NotNull byte[] contents, @NotNull FileFingerprint fingerprint) {
+		long[] starts = new long[patches.size()];
+		long[] shifts = new long[patches.size()];
+		long shift = 0;
+		for (int i = 0; i < starts.length; i++) {
+			Patch patch = patches.get(i);
+			starts[i] = patch.span.start;
+			shift += patch.bytes.length - (patch.span.end - patch.span.start);
+			shifts[i] = shift;
+		}
+		Map<String, Span> newSpans = new HashMap<>(spans.size() * 4 / 3 + 1);
+		for (Map.Entry<String, Span> entry : spans.entrySet()) {
+			Span span = entry.getValue();
+			// Every span is moved by the patches before it.
+			int before = -1;
+			int low = 0;
+			int high = starts.length - 1;
+			while (low <= high) {
+				int middle = (low + high) >>> 1;
+				if (starts[middle] < span.start) {
+					before = middle;
+					low = middle + 1;
+				} else {
+					high = middle - 1;
+				}
+			}
+			long moved = before < 0 ? 0 : shifts[before];
+			newSpans.put(entry.getKey(), new Span(span.start + moved, span.end + moved));
+		}
+		Map<String, Object> newValues = new HashMap<>(values);
+		for (int i = 0; i < starts.length; i++) {
+			Patch patch = patches.get(i);
+			long start = patch.span.start + (i == 0 ? 0 : shifts[i - 1]);
+			newSpans.put(patch.path, new Span(start, start + patch.bytes.length));
+			newValues.put(patch.path, patch.value);
+		}
+		return new PatchIndex(fingerprint, contents, commentsVersion, options, newValues, newSpans);
+	}
+
+	/**
+	 * Check that a span holds the value the index has for it, so a line that
+	 * was followed wrongly is never overwritten. Spans written by a save hold
+	 * the value exactly as it renders, anything else is parsed.
+	 */
+	private boolean holds(Span span, Object old) {
+		int start = (int) span.start;
+		int length = (int) (span.end - span.start);
+		byte[] rendered = render(old);
+		if (rendered != null && rendered.length == length) {
+			boolean equal = true;
+			for (int n = 0; n < length && equal; n++)
+				equal = rendered[n] == contents[start + n];
+			if (equal)
+				return true;
+		}
+		YamlConfiguration yaml = new YamlConfiguration();
+		try {
+			yaml.loadFromString("k: " + new String(contents, start, length, StandardCharsets.UTF_8));
+		} catch (InvalidConfigurationException e) {
+			return false;
+		}
+		Object parsed = yaml.get("k");
+		if (old.equals(parsed))
+			return true;
+		// A number set as a Long may be read back as an Integer.
+		if (!(parsed instanceof Number) || !(old instanceof Number))
+			return false;
+		try {
+			return new BigDecimal(parsed.toString()).compareTo(new BigDecimal(old.toString())) == 0;
+		} catch (NumberFormatException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Check whether the value can be given a span.
+	 */
+	private static boolean isScalar(@Nullable Object value) {
+		return value instanceof String || value instanceof Boolean || value instanceof Integer || value instanceof Long
+				|| value instanceof Double || value instanceof Float || value instanceof Short || value instanceof Byte
+				|| value instanceof BigInteger || value instanceof BigDecimal;
+	}
+
+	/**
+	 * Check whether a value starting with this character is on one line, unless
+	 * the lines after it are indented deeper.
+	 */
+	private static boolean isScalarStart(char c) {
+		return c != '|' && c != '>' && c != '[' && c != '{' && c != '&' && c != '*' && c != '!' && c != '%'
+				&& c != '@' && c != '`' && c != '?';
+	}
+
+	/**
+	 * Find where a scalar on one line ends, before any comment after it.
+	 *
+	 * @return The index just past the scalar, or the end of the line if a quoted
+	 *         scalar is not closed on it.
+	 */
+	private static int scalarEnd(String contents, int valueStart, int lineEnd) {
+		char quote = contents.charAt(valueStart);
+		if (quote == '\'' || quote == '"') {
+			for (int n = valueStart + 1; n < lineEnd; n++) {
+				char c = contents.charAt(n);
+				if (quote == '"' && c == '\\')
+					n++;
+				else if (c == quote && quote == '\'' && n + 1 < lineEnd && contents.charAt(n + 1) == '\'')
+					n++;
+				else if (c == quote)
+					return n + 1;
+			}
+			return lineEnd;
+		}
+		// A comment starts at a '#' that follows whitespace, anything else is part of the value.
+		int end = lineEnd;
+		for (int n = valueStart + 1; n < lineEnd; n++) {
+			if (contents.charAt(n) == '#' && (contents.charAt(n - 1) == ' ' || contents.charAt(n - 1) == '\t')) {
+				end = n;
+				break;
+			}
+		}
+		while (end > valueStart && (contents.charAt(end - 1) == ' ' || contents.charAt(end - 1) == '\t'))
+			end--;
+		return end;
+	}
+
+	/**
+	 * Copy a value, so that later changes to lists and maps it holds are seen.
+	 * Serializable objects are copied as they would be written. Values of any
+	 * other type never equal their copy, as they may be changed in place.
+	 */
+	private static Object copy(Object value) {
+		if (value instanceof ConfigurationSection)
+			return SECTION;
+		if (isScalar(value))
+			return value;
+		if (value instanceof List) {
+			List<Object> list = new ArrayList<>(((List<?>) value).size());
+			for (Object element : (List<?>) value)
+				list.add(element == null ? null : copy(element));
+			return list;
+		}
+		if (value instanceof Map) {
+			Map<Object, Object> map = new LinkedHashMap<>();
+			for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet())
+				map.put(entry.getKey(), entry.getValue() == null ? null : copy(entry.getValue()));
+			return map;
+		}
+		if (value instanceof ConfigurationSerializable) {
+			Map<Object, Object> map = new LinkedHashMap<>();
+			map.put("==", value.getClass().getName());
+			for (Map.Entry<String, Object> entry : ((ConfigurationSerializable) value).serialize().entrySet())
+				map.put(entry.getKey(), entry.getValue() == null ? null : copy(entry.getValue()));
+			return map;
+		}
+		return new Object();
+	}
+
+	/**
+	 * Serialize a scalar the way SnakeYAML writes it in block style, without
+	 * dumping it through a YamlConfiguration. Strings are written plain when
+	 * they read back as the same string, and single-quoted otherwise.
+	 *
+	 * @return The UTF-8 bytes of the value, or null if it is left to a full
+	 *         save, such as strings that need escaping or are long enough to
+	 *         be folded.
+	 */
+	private static @Nullable byte[] render(Object value) {
+		String rendered;
+		if (value instanceof String)
+			rendered = renderString((String) value);
+		else if (value instanceof Double || value instanceof Float) {
+			double number = ((Number) value).doubleValue();
+			if (Double.isNaN(number) || Double.isInfinite(number)) {
+				// Only doubles are written as .NaN or .inf, floats get an explicit tag.
+				if (value instanceof Float)
+					rendered = null;
+				else
+					rendered = Double.isNaN(number) ? ".NaN" : number > 0 ? ".inf" : "-.inf";
+			} else
+				rendered = value.toString();
+		} else if (value instanceof BigDecimal) {
+			// Without a fraction or exponent, it is written with an explicit tag.
+			rendered = value.toString();
+			if (rendered.indexOf('.') < 0 && rendered.indexOf('E') < 0)
+				rendered = null;
+		} else
+			rendered = value.toString();
+		return rendered == null ? null : rendered.getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static @Nullable String renderString(String value) {
+		int length = value.length();
+		if (length > MAX_RENDERED_LENGTH)
+			return null;
+		boolean plain = length > 0 && value.charAt(0) != ' ' && value.charAt(length - 1) != ' '
+				&& !value.startsWith("---") && !value.startsWith("...");
+		for (int n = 0; n < length; n++) {
+			char c = value.charAt(n);
+			// Line breaks and anything else that has to be escaped.
+			if (c < 0x20 || (c >= 0x7F && c <= 0x9F) || c == 0x2028 || c == 0x2029 || c == 0xFEFF || c >= 0xFFFE)
+				return null;
+			if (Character.isSurrogate(c)) {
+				if (!Character.isHighSurrogate(c) || n + 1 == length || !Character.isLowSurrogate(value.charAt(n + 1)))
+					return null;
+				n++;
+				continue;
+			}
+			boolean followedBySpace = n + 1 == length || value.charAt(n + 1) == ' ';
+			if (n == 0) {
+				if ("#,[]{}&*!|>'\"%@`".indexOf(c) >= 0 || ("?:-".indexOf(c) >= 0 && followedBySpace))
+					plain = false;
+			} else if ((c == ':' && followedBySpace) || (c == '#' && value.charAt(n - 1) == ' ')) {
+				plain = false;
+			}
+		}
+		if (plain && !readsAsOtherType(value))
+			return value;
+		return '\'' + value.replace("'", "''") + '\'';
+	}
+
+	/**
+	 * Check whether a plain scalar is read as something other than a string.
+	 */
+	private static boolean readsAsOtherType(String value) {
+		if ("-+._0123456789".indexOf(value.charAt(0)) >= 0)
+			return NUMBER.matcher(value).matches();
+		return KEYWORD.matcher(value).matches();
+	}
+
+	private static long utf8Length(String contents, int start, int end) {
+		long bytes = 0;
+		for (int n = start; n < end; n++) {
+			char c = contents.charAt(n);
+			if (c < 0x80)
+				bytes++;
+			else if (c < 0x800)
+				bytes += 2;
+			else if (Character.isHighSurrogate(c) && n + 1 < end && Character.isLowSurrogate(contents.charAt(n + 1))) {
+				bytes += 4;
+				n++;
+			} else
+				bytes += 3;
+		}
+		return bytes;
+	}
+
+	/**
+	 * Where a value is in the file, in bytes.
+	 */
+	static final class Span {
+		final long start;
+		final long end;
+
+		private Span(long start, long end) {
+			this.start = start;
+			this.end = end;
+		}
+	}
+
+	/**
+	 * A changed value and where it goes in the file.
+	 */
+	static final class Patch {
+		final Span span;
+		final byte[] bytes;
+		private final byte[] oldBytes;
+		private final Object value;
+		private final String path;
+
+		private Patch(Span span, byte[] oldBytes, Object value, byte[] bytes, String path) {
+			this.span = span;
+			this.oldBytes = oldBytes;
+			this.value = value;
+			this.bytes = bytes;
+			this.path = path;
+		}
+
+		/**
+		 * Check that the span in the file still holds the bytes the index has
+		 * for it, in case the file was changed without changing its size or
+		 * modification time.
+		 *
+		 * @param file The indexed file.
+		 * @return true if the span holds the indexed bytes.
+		 * @throws IOException if the file cannot be read.
+		 */
+		boolean holdsOldValue(@NotNull FileChannel file) throws IOException {
+			ByteBuffer buffer = ByteBuffer.allocate(oldBytes.length);
+			while (buffer.hasRemaining())
+				if (file.read(buffer, span.start + buffer.position()) < 0)
+					return false;
+			return Arrays.equals(buffer.array(), oldBytes);
+		}
+	}
+}
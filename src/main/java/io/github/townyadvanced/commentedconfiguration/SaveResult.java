@@ -0,0 +1,20 @@
+package io.github.townyadvanced.commentedconfiguration;
+
+/**
+ * The outcome of saving a configuration.
+ */
+public enum SaveResult {
+	/**
+	 * The file was written.
+	 */
+	WRITTEN,
+	/**
+	 * The file already held exactly what would have been written, so it was left
+	 * untouched.
+	 */
+	UNCHANGED,
+	/**
+	 * The file could not be written.
+	 */
+	FAILED
+}
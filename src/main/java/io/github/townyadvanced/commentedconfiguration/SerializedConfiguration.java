@@ -0,0 +1,96 @@
+package io.github.townyadvanced.commentedconfiguration;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A configuration as it was serialized at one point in time, made by
+ * {@link CommentedConfiguration#serialize()} or
+ * {@link CommentedConfiguration#serializeWithComments()} and written to file
+ * later with {@link CommentedConfiguration#save(SerializedConfiguration, Durability)}.
+ * This allows the configuration to be serialized while its values are guarded
+ * by a lock, and written after the lock is released.
+ * <p>
+ * With {@link CommentedConfiguration#setPatchSaving(boolean) patch saving} on,
+ * a configuration in which only some values changed since the file was indexed
+ * is not serialized in full, but holds just those values, to be patched into
+ * the file.
+ */
+public final class SerializedConfiguration {
+	final String yamlContents;
+	final boolean commentsMerged;
+	final long serializeNanos;
+	final long commentNanos;
+	final int commentBlocks;
+	/** The copied values, to index the file with once written, or null. */
+	final @Nullable Map<String, Object> values;
+	/** The version of the comments that were merged in, if they were. */
+	final long commentsVersion;
+	final @Nullable List<Object> options;
+	/** The index the patches were found with, or null if serialized in full. */
+	final @Nullable PatchIndex index;
+	final @Nullable List<PatchIndex.Patch> patches;
+
+	SerializedConfiguration(String yamlContents, long serializeNanos) {
+		this(yamlContents, false, serializeNanos, 0, 0);
+	}
+
+	SerializedConfiguration(String yamlContents, boolean commentsMerged, long serializeNanos, long commentNanos,
+			int commentBlocks) {
+		this(yamlContents, commentsMerged, serializeNanos, commentNanos, commentBlocks, null, 0, null, null, null);
+	}
+
+	SerializedConfiguration(@NotNull PatchIndex index, @NotNull List<PatchIndex.Patch> patches, long serializeNanos) {
+		this(null, true, serializeNanos, 0, 0, null, 0, null, index, patches);
+	}
+
+	private SerializedConfiguration(String yamlContents, boolean commentsMerged, long serializeNanos, long commentNanos,
+			int commentBlocks, @Nullable Map<String, Object> values, long commentsVersion, @Nullable List<Object> options,
+			@Nullable PatchIndex index, @Nullable List<PatchIndex.Patch> patches) {
+		this.yamlContents = yamlContents;
+		this.commentsMerged = commentsMerged;
+		this.serializeNanos = serializeNanos;
+		this.commentNanos = commentNanos;
+		this.commentBlocks = commentBlocks;
+		this.values = values;
+		this.commentsVersion = commentsVersion;
+		this.options = options;
+		this.index = index;
+		this.patches = patches;
+	}
+
+	/**
+	 * Keep what is needed to index the file once this is written to it.
+	 *
+	 * @param values          The values, as copied by
+	 *                        {@link PatchIndex#copyValues(Map)}.
+	 * @param commentsVersion The version of the comments, if they are merged in.
+	 * @param options         The options the file is written with.
+	 * @return The serialized configuration, to be indexed when written.
+	 */
+	@NotNull SerializedConfiguration indexed(@NotNull Map<String, Object> values, long commentsVersion,
+			@NotNull List<Object> options) {
+		return new SerializedConfiguration(yamlContents, commentsMerged, serializeNanos, commentNanos, commentBlocks,
+				values, commentsVersion, options, null, null);
+	}
+
+	/**
+	 * Get the serialized yaml. Unless it was made by
+	 * {@link CommentedConfiguration#serializeWithComments()} or only holds
+	 * patches, the comments are not in it yet, and are merged in when the
+	 * configuration is written.
+	 *
+	 * @return The yaml as made by {@link CommentedConfiguration#saveToString()}
+	 *         or {@link CommentedConfiguration#saveToStringWithComments()}, or
+	 *         the indexed file with the patches applied.
+	 */
+	public @NotNull String getYamlContents() {
+		if (index != null && patches != null)
+			return new String(index.apply(patches), StandardCharsets.UTF_8);
+		return yamlContents;
+	}
+}
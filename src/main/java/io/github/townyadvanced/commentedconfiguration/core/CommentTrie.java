@@ -0,0 +1,238 @@
+package io.github.townyadvanced.commentedconfiguration.core;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Comment blocks stored by Configuration path, split into a tree of path
+ * segments. Walking the tree with a {@link Cursor} finds the comment for a
+ * path straight from the characters of a yaml line, without building the path
+ * as a String.
+ */
+final class CommentTrie {
+	private final Node root = new Node();
+
+	/**
+	 * Build a trie from comment blocks keyed by Configuration path.
+	 *
+	 * @param comments The comment blocks to store.
+	 */
+	CommentTrie(@NotNull Map<String, String> comments) {
+		for (Map.Entry<String, String> entry : comments.entrySet())
+			put(entry.getKey(), entry.getValue());
+	}
+
+	private void put(String path, String comment) {
+		Node node = root;
+		int start = 0;
+		while (true) {
+			int dot = path.indexOf('.', start);
+			int end = dot < 0 ? path.length() : dot;
+			node = node.getOrCreate(path.substring(start, end));
+			if (dot < 0)
+				break;
+			start = dot + 1;
+		}
+		node.comment = comment;
+	}
+
+	/**
+	 * Create a cursor positioned at the empty path.
+	 *
+	 * @return A new cursor.
+	 */
+	@NotNull Cursor cursor() {
+		return new Cursor(root);
+	}
+
+	/**
+	 * A node in the trie, holding its children in an open addressing table keyed
+	 * by path segment.
+	 */
+	private static final class Node {
+		private String comment;
+		private String[] keys;
+		private Node[] children;
+		private int size;
+
+		private Node getOrCreate(String key) {
+			if (keys == null) {
+				keys = new String[4];
+				children = new Node[4];
+			} else if ((size + 1) * 2 > keys.length) {
+				grow();
+			}
+			int mask = keys.length - 1;
+			for (int i = spread(key.hashCode()) & mask;; i = (i + 1) & mask) {
+				if (keys[i] == null) {
+					keys[i] = key;
+					children[i] = new Node();
+					size++;
+					return children[i];
+				}
+				if (keys[i].equals(key))
+					return children[i];
+			}
+		}
+
+		private void grow() {
+			String[] oldKeys = keys;
+			Node[] oldChildren = children;
+			keys = new String[oldKeys.length * 2];
+			children = new Node[oldKeys.length * 2];
+			int mask = keys.length - 1;
+			for (int n = 0; n < oldKeys.length; n++) {
+				if (oldKeys[n] == null)
+					continue;
+				int i = spread(oldKeys[n].hashCode()) & mask;
+				while (keys[i] != null)
+					i = (i + 1) & mask;
+				keys[i] = oldKeys[n];
+				children[i] = oldChildren[n];
+			}
+		}
+
+		/**
+		 * Find the child keyed by a region of a line.
+		 *
+		 * @param line  The line holding the segment.
+		 * @param start The start of the segment, inclusive.
+		 * @param end   The end of the segment, exclusive.
+		 * @return The child, or null if there is none.
+		 */
+		private @Nullable Node child(CharSequence line, int start, int end) {
+			if (keys == null)
+				return null;
+			// Same hash as String#hashCode, so it matches the stored keys.
+			int hash = 0;
+			for (int n = start; n < end; n++)
+				hash = 31 * hash + line.charAt(n);
+			int length = end - start;
+			int mask = keys.length - 1;
+			for (int i = spread(hash) & mask;; i = (i + 1) & mask) {
+				String key = keys[i];
+				if (key == null)
+					return null;
+				if (key.length() == length && regionMatches(key, line, start))
+					return children[i];
+			}
+		}
+
+		private static boolean regionMatches(String key, CharSequence line, int start) {
+			for (int n = 0; n < key.length(); n++)
+				if (key.charAt(n) != line.charAt(start + n))
+					return false;
+			return true;
+		}
+
+		private static int spread(int hash) {
+			return hash ^ (hash >>> 16);
+		}
+	}
+
+	/**
+	 * A reusable stack of path segments which follows the trie as the path is
+	 * changed. The path behaves exactly like a String joined with periods, so a
+	 * node name containing a period counts as multiple segments.
+	 */
+	static final class Cursor {
+		private final Node root;
+		/**
+		 * The depth of the path as counted from the indentation of the yaml,
+		 * which can differ from the number of segments.
+		 */
+		int depth;
+		private Node[] nodes = new Node[16];
+		private boolean firstSegmentEmpty = true;
+		private int size = 1;
+
+		private Cursor(Node root) {
+			this.root = root;
+			this.nodes[0] = root.child("", 0, 0);
+		}
+
+		/**
+		 * Check whether the path is the empty String.
+		 *
+		 * @return true if the path is empty.
+		 */
+		boolean isEmpty() {
+			return size == 1 && firstSegmentEmpty;
+		}
+
+		/**
+		 * Replace the whole path with a region of a line.
+		 *
+		 * @param line  The line holding the path.
+		 * @param start The start of the path, inclusive.
+		 * @param end   The end of the path, exclusive.
+		 */
+		void set(CharSequence line, int start, int end) {
+			size = 0;
+			push(line, start, end);
+		}
+
+		/**
+		 * Add a period and a region of a line to the end of the path.
+		 *
+		 * @param line  The line holding the node name.
+		 * @param start The start of the node name, inclusive.
+		 * @param end   The end of the node name, exclusive.
+		 */
+		void append(CharSequence line, int start, int end) {
+			push(line, start, end);
+		}
+
+		/**
+		 * Replace everything after the last period of the path with a region of a
+		 * line, or the whole path if it has no period.
+		 *
+		 * @param line  The line holding the node name.
+		 * @param start The start of the node name, inclusive.
+		 * @param end   The end of the node name, exclusive.
+		 */
+		void replaceLast(CharSequence line, int start, int end) {
+			size--;
+			push(line, start, end);
+		}
+
+		/**
+		 * Remove the given number of segments from the end of the path. The first
+		 * segment is never removed.
+		 *
+		 * @param count The number of segments to remove.
+		 */
+		void shrink(int count) {
+			size = Math.max(1, size - count);
+		}
+
+		/**
+		 * Get the comment stored for the current path.
+		 *
+		 * @return The comment block, or null if the path has none.
+		 */
+		@Nullable String comment() {
+			Node node = nodes[size - 1];
+			return node == null ? null : node.comment;
+		}
+
+		private void push(CharSequence line, int start, int end) {
+			int segmentStart = start;
+			for (int n = start; n <= end; n++) {
+				if (n < end && line.charAt(n) != '.')
+					continue;
+				if (size == nodes.length)
+					nodes = Arrays.copyOf(nodes, size * 2);
+				Node parent = size == 0 ? root : nodes[size - 1];
+				nodes[size] = parent == null ? null : parent.child(line, segmentStart, n);
+				if (size == 0)
+					firstSegmentEmpty = n == segmentStart;
+				size++;
+				segmentStart = n + 1;
+			}
+		}
+	}
+}
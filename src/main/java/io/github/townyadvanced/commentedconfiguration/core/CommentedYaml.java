@@ -0,0 +1,245 @@
+package io.github.townyadvanced.commentedconfiguration.core;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.logging.Logger;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.yaml.snakeyaml.DumperOptions;
+import org.yaml.snakeyaml.LoaderOptions;
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.constructor.SafeConstructor;
+import org.yaml.snakeyaml.error.YAMLException;
+import org.yaml.snakeyaml.nodes.Tag;
+import org.yaml.snakeyaml.representer.Representer;
+
+/**
+ * A yaml file with comments that only needs SnakeYAML, for use outside of a
+ * Bukkit server such as on a proxy or in tooling.
+ * <p>
+ * The file is parsed straight into a tree of {@link CompactSection}s, and is
+ * written the same way as a CommentedConfiguration: dumped as block style yaml
+ * with the stored {@link Comments} merged in, through a temporary file that
+ * replaces the old one in a single step.
+ * <p>
+ * It is separate from CommentedConfiguration, which keeps its values in
+ * Bukkit's MemorySections and does not use this class or its sections. Only
+ * files loaded through a CommentedYaml are stored as CompactSections.
+ */
+public class CommentedYaml {
+	private static final Logger DEFAULT_LOGGER = Logger.getLogger("CommentedConfiguration");
+
+	private final Path path;
+	private final Logger logger;
+	private final Comments comments = new Comments();
+	private final Yaml yaml;
+	private CompactSection root = new CompactSection();
+
+	/**
+	 * Create a new CommentedYaml using the file at the given path.
+	 *
+	 * @param path The Path where the config will be/is saved.
+	 */
+	public CommentedYaml(@NotNull Path path) {
+		this(path, null);
+	}
+
+	/**
+	 * Create a new CommentedYaml using the file at the given path. Provide a
+	 * Logger to use for any error messages.
+	 *
+	 * @param path   The Path where the config will be/is saved.
+	 * @param logger The Logger to use for error messages.
+	 */
+	public CommentedYaml(@NotNull Path path, @Nullable Logger logger) {
+		this.path = path;
+		this.logger = logger == null ? DEFAULT_LOGGER : logger;
+		DumperOptions dumperOptions = new DumperOptions();
+		dumperOptions.setIndent(2);
+		dumperOptions.setDefaultFlowStyle(DumperOptions.FlowStyle.BLOCK);
+		// Same as CommentedConfiguration, so long values are not broken into multiple lines.
+		dumperOptions.setWidth(10000);
+		LoaderOptions loaderOptions = new LoaderOptions();
+		this.yaml = new Yaml(new SafeConstructor(loaderOptions), new SectionRepresenter(dumperOptions), dumperOptions, loaderOptions);
+	}
+
+	/**
+	 * Load the yaml configuration file into memory.
+	 *
+	 * @return true if file is able to load.
+	 */
+	public boolean load() {
+		try {
+			loadFromString(new String(Files.readAllBytes(path), StandardCharsets.UTF_8));
+			return true;
+		} catch (IOException e) {
+			logger.warning(String.format("Loading error: Failed to load file %s (does it pass a yaml parser?).", path));
+			logger.warning("https://jsonformatter.org/yaml-parser");
+			logger.warning(e.getMessage());
+			return false;
+		}
+	}
+
+	/**
+	 * Replace everything in memory with the parsed contents.
+	 *
+	 * @param contents The yaml to parse.
+	 * @throws IOException if the contents are not valid yaml, or are not a map at
+	 *                     the top level.
+	 */
+	public void loadFromString(@NotNull String contents) throws IOException {
+		Object loaded;
+		try {
+			loaded = yaml.load(contents);
+		} catch (YAMLException e) {
+			throw new IOException(e.getMessage(), e);
+		}
+		if (loaded != null && !(loaded instanceof Map))
+			throw new IOException("Top level is not a Map.");
+		CompactSection parsed = loaded == null ? new CompactSection() : CompactSection.fromMap((Map<?, ?>) loaded);
+		parsed.trimToSize();
+		root = parsed;
+	}
+
+	/**
+	 * Serialize the values into yaml, without comments.
+	 *
+	 * @return The yaml, or an empty String if there are no values.
+	 */
+	public @NotNull String saveToString() {
+		return root.size() == 0 ? "" : yaml.dump(root);
+	}
+
+	/**
+	 * Serialize the values into yaml, complete with the comments that have been
+	 * added with {@link #addComment(String, String...)}.
+	 *
+	 * @return The configuration as it would be written to file.
+	 */
+	public @NotNull String saveToStringWithComments() {
+		return comments.inject(saveToString());
+	}
+
+	/**
+	 * Save the values and comments to the file. The file is written next to the
+	 * old one and then moved over it, so it is never seen half-written.
+	 *
+	 * @return true if the file was written.
+	 */
+	public boolean save() {
+		String contents = saveToString();
+		try {
+			Path target = Files.exists(path) ? path.toRealPath() : path.toAbsolutePath();
+			Path parent = target.getParent();
+			if (parent != null)
+				Files.createDirectories(parent);
+			Path temp = TempFiles.createFor(target);
+			try {
+				try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+					if (comments.isEmpty())
+						writer.write(contents);
+					else
+						comments.inject(contents, writer);
+				}
+				try {
+					Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+				} catch (AtomicMoveNotSupportedException e) {
+					Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+				}
+			} finally {
+				Files.deleteIfExists(temp);
+			}
+			return true;
+		} catch (IOException e) {
+			logger.warning(String.format("Saving error: Failed to write to file %s.", path));
+			logger.warning(e.getMessage());
+			return false;
+		}
+	}
+
+	/**
+	 * Stores a comment for the specified Configuration path. The comment can be
+	 * multiple lines. An empty string will indicate a blank line.
+	 *
+	 * @param path         Configuration path to add comment.
+	 * @param commentLines Comments to add. One String per line.
+	 */
+	public void addComment(@NotNull String path, @NotNull String... commentLines) {
+		comments.add(path, commentLines);
+	}
+
+	/**
+	 * Gets the comments of this file, which are merged into the yaml when it is
+	 * saved.
+	 *
+	 * @return The stored comments.
+	 */
+	public @NotNull Comments getComments() {
+		return comments;
+	}
+
+	/**
+	 * Gets the top level section holding all values.
+	 *
+	 * @return The root section.
+	 */
+	public @NotNull CompactSection getRoot() {
+		return root;
+	}
+
+	/**
+	 * Get a value by path.
+	 *
+	 * @param path The path of the value, with sections separated by periods.
+	 * @return The value, or null if there is none.
+	 */
+	public @Nullable Object get(@NotNull String path) {
+		return root.get(path);
+	}
+
+	/**
+	 * Set a value by path, creating the sections on the way.
+	 *
+	 * @param path  The path of the value, with sections separated by periods.
+	 * @param value The value to set, or null to remove it.
+	 */
+	public void set(@NotNull String path, @Nullable Object value) {
+		root.set(path, value);
+	}
+
+	/**
+	 * Gets the Path of the file.
+	 *
+	 * @return The Path where the config will be/is saved.
+	 */
+	public @NotNull Path getPath() {
+		return path;
+	}
+
+	/**
+	 * Gets the Logger used for error messages.
+	 *
+	 * @return The Logger used for error messages.
+	 */
+	public @NotNull Logger getLogger() {
+		return logger;
+	}
+
+	/**
+	 * Dumps sections as the maps they hold, without copying child sections.
+	 */
+	private static final class SectionRepresenter extends Representer {
+		private SectionRepresenter(DumperOptions options) {
+			super(options);
+			this.representers.put(CompactSection.class,
+					data -> representMapping(Tag.MAP, ((CompactSection) data).toMap(false), DumperOptions.FlowStyle.BLOCK));
+		}
+	}
+}
@@ -0,0 +1,310 @@
+package io.github.townyadvanced.commentedconfiguration.core;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Comment blocks stored by Configuration path, and the merging of them into
+ * serialized yaml. This only works on the text of the yaml, so it can be used
+ * with any yaml serializer.
+ * <p>
+ * Comments can be added from any thread, also while another thread merges
+ * them into yaml. A merge sees every comment added before it started.
+ */
+public final class Comments {
+	private final Map<String, String> comments = new ConcurrentHashMap<>();
+	private final String newLine;
+	private volatile CommentTrie commentTrie;
+	private volatile long version;
+
+	/**
+	 * Create an empty set of comments, written with the line separator of the
+	 * system.
+	 */
+	public Comments() {
+		this(System.getProperty("line.separator"));
+	}
+
+	/**
+	 * Create an empty set of comments.
+	 *
+	 * @param newLine The line separator used between comment lines and the lines
+	 *                of the yaml.
+	 */
+	public Comments(@NotNull String newLine) {
+		this.newLine = newLine;
+	}
+
+	/**
+	 * Stores a comment for the specified Configuration path. The comment can be
+	 * multiple lines. An empty string will indicate a blank line.
+	 *
+	 * @param path         Configuration path to add comment.
+	 * @param commentLines Comments to add. One String per line.
+	 */
+	public synchronized void add(@NotNull String path, @NotNull String... commentLines) {
+		StringBuilder commentBlock = new StringBuilder();
+		// Get the preceding spaces based on how many .'s are in the path.
+		String leadingSpaces = indent(path);
+		// Parse over all of the comment lines.
+		for (String commentLine : commentLines) {
+			// Add the leading spaces if commentLine isn't empty.
+			commentLine = !commentLine.isEmpty() ? leadingSpaces + commentLine : "  ";
+			// Add a new line if this comment block already has more than one line.
+			if (commentBlock.length() > 0)
+				commentBlock.append(newLine);
+			// Add the line to the commentBlock.
+			commentBlock.append(commentLine);
+		}
+		// Put the comment block into the comments HashMap to be parsed into the config
+		// later.
+		comments.put(path, commentBlock.toString());
+		commentTrie = null;
+		version++;
+	}
+
+	/**
+	 * Stores all comments of another set, replacing comments stored for the same
+	 * paths. The comment blocks are copied as they are, so this is much cheaper
+	 * than adding them one by one.
+	 *
+	 * @param other The comments to copy.
+	 */
+	public synchronized void addAll(@NotNull Comments other) {
+		if (other.comments.isEmpty())
+			return;
+		// Without comments of its own, this set can share the trie of the other.
+		CommentTrie trie = comments.isEmpty() ? other.getTrie() : null;
+		comments.putAll(other.comments);
+		commentTrie = trie;
+		version++;
+	}
+
+	/**
+	 * Check whether any comments are stored.
+	 *
+	 * @return true if there are no comments.
+	 */
+	public boolean isEmpty() {
+		return comments.isEmpty();
+	}
+
+	/**
+	 * Get the number of stored comment blocks.
+	 *
+	 * @return The number of paths with a comment.
+	 */
+	public int size() {
+		return comments.size();
+	}
+
+	/**
+	 * Get a number that changes whenever comments are added, to tell whether yaml
+	 * merged earlier is still up to date.
+	 *
+	 * @return The number of times comments were added.
+	 */
+	public long getVersion() {
+		return version;
+	}
+
+	/**
+	 * Get the comment block stored for a path, with its indentation.
+	 *
+	 * @param path Configuration path of the comment.
+	 * @return The comment block, or null if the path has none.
+	 */
+	public @Nullable String get(@NotNull String path) {
+		return comments.get(path);
+	}
+
+	/**
+	 * Read through the contents of a serialized config and write an up to date
+	 * new config, complete with the stored comments. Comments already in the
+	 * contents and blank lines are dropped.
+	 * <p>
+	 * The lines are walked in place and the current path is followed through a
+	 * {@link CommentTrie}, so no Strings are created per line.
+	 *
+	 * @param oldContents The config as serialized by a yaml dumper.
+	 * @param newContents Where the new config is written to.
+	 * @return The number of comment blocks that were merged in.
+	 * @throws IOException if newContents cannot be written to.
+	 */
+	public int inject(@NotNull String oldContents, @NotNull Appendable newContents) throws IOException {
+		// This holds the current path the lines are at in the config, and its depth.
+		CommentTrie.Cursor currentPath = getTrie().cursor();
+		int commentBlocks = 0;
+
+		// Loop through the old config lines, splitting them the same way as
+		// BufferedReader#readLine.
+		int length = oldContents.length();
+		int lineStart = 0;
+		while (lineStart < length) {
+			int lineEnd = lineStart;
+			while (lineEnd < length && oldContents.charAt(lineEnd) != '\n' && oldContents.charAt(lineEnd) != '\r')
+				lineEnd++;
+			int nextLine = lineEnd;
+			if (nextLine < length)
+				nextLine += oldContents.charAt(nextLine) == '\r' && nextLine + 1 < length && oldContents.charAt(nextLine + 1) == '\n' ? 2 : 1;
+
+			if (injectComment(oldContents, lineStart, lineEnd, currentPath, newContents))
+				commentBlocks++;
+			lineStart = nextLine;
+		}
+		return commentBlocks;
+	}
+
+	/**
+	 * Merge the stored comments into the contents of a serialized config.
+	 *
+	 * @param contents The config as serialized by a yaml dumper.
+	 * @return The config with its comments.
+	 */
+	public @NotNull String inject(@NotNull String contents) {
+		if (comments.isEmpty())
+			return contents;
+		StringBuilder newContents = new StringBuilder(contents.length() + comments.size() * 64);
+		try {
+			inject(contents, newContents);
+		} catch (IOException e) {
+			// Appending to a StringBuilder cannot fail.
+			throw new IllegalStateException(e);
+		}
+		return newContents.toString();
+	}
+
+	/**
+	 * Write a single line of the old config, preceded by its comment if it has one.
+	 *
+	 * @param contents    The whole of the old config.
+	 * @param lineStart   Where the line starts in contents, inclusive.
+	 * @param lineEnd     Where the line ends in contents, exclusive.
+	 * @param currentPath The Configuration path and depth of the previous node
+	 *                    line, updated to this line's if it is a node.
+	 * @param newContents Where the new config is written to.
+	 * @return true if a comment block was written before the line.
+	 * @throws IOException if newContents cannot be written to.
+	 */
+	private boolean injectComment(String contents, int lineStart, int lineEnd, CommentTrie.Cursor currentPath,
+			Appendable newContents) throws IOException {
+		// Spigot's addition of native SnakeYAML comment support in MC 1.18.1, requires
+		// us to ignore the comments in our own file, which will be replaced later on
+		// with up-to-date comments from the ConfigNodes enum. Blank lines are dropped
+		// too. (This is what trimming the line would tell us.)
+		// TODO: This comment above is relevant to Towny's use.
+		int firstChar = lineStart;
+		while (firstChar < lineEnd && contents.charAt(firstChar) <= ' ')
+			firstChar++;
+		if (firstChar == lineEnd || contents.charAt(firstChar) == '#')
+			return false;
+
+		// If the line is a node (and not something like a list value)
+		boolean commented = false;
+		int index = indexOfKeySeparator(contents, lineStart, lineEnd);
+		if (index >= 0 || (lineEnd - lineStart > 1 && contents.charAt(lineEnd - 1) == ':')) {
+			// Grab the index of the end of the node name
+			if (index < 0)
+				index = lineEnd - 1;
+
+			// Build the new path, allowing us to get the comments made in the ConfigNodes
+			// enum.
+			// ie: new_world_settings.pvp.force_pvp_on
+			if (currentPath.isEmpty()) {
+				// The first line of the file, store the node name as the currentPath.
+				currentPath.set(contents, lineStart, index);
+			} else {
+				// Calculate the whitespace preceding the node name, allowing us to determine
+				// depth.
+				int whiteSpace = 0;
+				while (contents.charAt(lineStart + whiteSpace) == ' ')
+					whiteSpace++;
+				int nameStart = lineStart + whiteSpace;
+				// Find out if the current depth (whitespace * 2) is greater/lesser/equal to the
+				// previous depth.
+				int depth = currentPath.depth;
+				if (whiteSpace / 2 > depth) {
+					// Path is deeper. Add a . and the node name.
+					currentPath.append(contents, nameStart, index);
+					currentPath.depth++;
+				} else if (whiteSpace / 2 < depth) {
+					// Path is shallower, remove nodes with no more children and replace the
+					// last node name with the current one.
+					int newDepth = whiteSpace / 2;
+					currentPath.shrink(depth - newDepth);
+					currentPath.replaceLast(contents, nameStart, index);
+					currentPath.depth = newDepth;
+				} else {
+					// Path is same depth, replace the last path node name to the current node name.
+					currentPath.replaceLast(contents, nameStart, index);
+				}
+			}
+
+			// If there are comments, add them to the beginning of the current line.
+			String comment = currentPath.comment();
+			if (comment != null) {
+				newContents.append(comment).append(newLine);
+				commented = true;
+			}
+		}
+
+		// Add the line to what will be written in the new config.
+		newContents.append(contents, lineStart, lineEnd).append(newLine);
+		return commented;
+	}
+
+	/**
+	 * Find the first ": " in a line.
+	 *
+	 * @param contents  The whole of the old config.
+	 * @param lineStart Where the line starts in contents, inclusive.
+	 * @param lineEnd   Where the line ends in contents, exclusive.
+	 * @return The index of the ": " in contents, or -1 if the line has none.
+	 */
+	private static int indexOfKeySeparator(String contents, int lineStart, int lineEnd) {
+		for (int n = lineStart; n < lineEnd - 1; n++)
+			if (contents.charAt(n) == ':' && contents.charAt(n + 1) == ' ')
+				return n;
+		return -1;
+	}
+
+	/**
+	 * Get the indentation of a path's comments, two spaces per period.
+	 *
+	 * @param path Configuration path of the comment.
+	 * @return The spaces to put before each comment line.
+	 */
+	private static String indent(String path) {
+		StringBuilder spaces = new StringBuilder();
+		for (int n = 0; n < path.length(); n++)
+			if (path.charAt(n) == '.')
+				spaces.append("  ");
+		return spaces.toString();
+	}
+
+	/**
+	 * Get the comments as a trie, building it if comments were added since it was
+	 * last built.
+	 *
+	 * @return The comments keyed by Configuration path.
+	 */
+	private CommentTrie getTrie() {
+		CommentTrie trie = commentTrie;
+		if (trie != null)
+			return trie;
+		// Built under the lock, so a comment added meanwhile cannot be left out of a
+		// trie that is kept.
+		synchronized (this) {
+			trie = commentTrie;
+			if (trie == null) {
+				trie = new CommentTrie(comments);
+				commentTrie = trie;
+			}
+			return trie;
+		}
+	}
+}
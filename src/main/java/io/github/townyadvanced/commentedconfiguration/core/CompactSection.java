@@ -0,0 +1,304 @@
+package io.github.townyadvanced.commentedconfiguration.core;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A section of a yaml document, holding its keys and values in two arrays in
+ * the order they were added.
+ * <p>
+ * Sections keep no parent, root or path, and their keys are interned, so a key
+ * used in many sections or documents is stored once. Small sections are
+ * searched in place; only sections with many keys build a hash index. Paths
+ * are separated by periods, like Bukkit's configurations.
+ * <p>
+ * Sections are made by {@link CommentedYaml}, or by hand; CommentedConfiguration
+ * stores its values in Bukkit's MemorySections instead.
+ */
+public final class CompactSection {
+	private static final String[] NO_KEYS = new String[0];
+	private static final Object[] NO_VALUES = new Object[0];
+	/**
+	 * The most keys a section searches in place before it builds an index.
+	 */
+	private static final int INDEX_THRESHOLD = 8;
+
+	private String[] keys = NO_KEYS;
+	private Object[] values = NO_VALUES;
+	private int size;
+	private HashMap<String, Integer> index;
+
+	/**
+	 * Get a value by path.
+	 *
+	 * @param path The path of the value, with sections separated by periods.
+	 * @return The value, or null if there is none.
+	 */
+	public @Nullable Object get(@NotNull String path) {
+		CompactSection section = this;
+		int start = 0;
+		int dot;
+		while ((dot = path.indexOf('.', start)) >= 0) {
+			Object child = section.getLocal(path.substring(start, dot));
+			if (!(child instanceof CompactSection))
+				return null;
+			section = (CompactSection) child;
+			start = dot + 1;
+		}
+		return section.getLocal(start == 0 ? path : path.substring(start));
+	}
+
+	/**
+	 * Get a value by path, or a default if there is none.
+	 *
+	 * @param path The path of the value, with sections separated by periods.
+	 * @param def  The value to return if there is none.
+	 * @return The value, or def if there is none.
+	 */
+	public @Nullable Object get(@NotNull String path, @Nullable Object def) {
+		Object value = get(path);
+		return value != null ? value : def;
+	}
+
+	/**
+	 * Get a section by path.
+	 *
+	 * @param path The path of the section, with sections separated by periods.
+	 * @return The section, or null if there is none or the path holds a value.
+	 */
+	public @Nullable CompactSection getSection(@NotNull String path) {
+		Object value = get(path);
+		return value instanceof CompactSection ? (CompactSection) value : null;
+	}
+
+	/**
+	 * Check whether there is a value or section at a path.
+	 *
+	 * @param path The path to check, with sections separated by periods.
+	 * @return true if the path holds something.
+	 */
+	public boolean contains(@NotNull String path) {
+		return get(path) != null;
+	}
+
+	/**
+	 * Set a value by path, creating the sections on the way. Maps are stored as
+	 * sections. Setting null removes the value.
+	 *
+	 * @param path  The path of the value, with sections separated by periods.
+	 * @param value The value to set, or null to remove it.
+	 */
+	public void set(@NotNull String path, @Nullable Object value) {
+		CompactSection section = this;
+		int start = 0;
+		int dot;
+		while ((dot = path.indexOf('.', start)) >= 0) {
+			String key = path.substring(start, dot);
+			Object child = section.getLocal(key);
+			if (!(child instanceof CompactSection)) {
+				if (value == null)
+					return;
+				child = new CompactSection();
+				section.putLocal(key, child);
+			}
+			section = (CompactSection) child;
+			start = dot + 1;
+		}
+		String key = start == 0 ? path : path.substring(start);
+		if (value == null)
+			section.removeLocal(key);
+		else
+			section.putLocal(key, value instanceof Map ? fromMap((Map<?, ?>) value) : value);
+	}
+
+	/**
+	 * Create an empty section at a path, replacing anything there.
+	 *
+	 * @param path The path of the section, with sections separated by periods.
+	 * @return The new section.
+	 */
+	public @NotNull CompactSection createSection(@NotNull String path) {
+		CompactSection section = new CompactSection();
+		set(path, section);
+		return section;
+	}
+
+	/**
+	 * Get the keys of this section, in the order they were added.
+	 *
+	 * @param deep Whether to include the paths of everything in child sections.
+	 * @return The keys or paths.
+	 */
+	public @NotNull Set<String> getKeys(boolean deep) {
+		Set<String> result = new LinkedHashSet<>();
+		collectKeys(result, "", deep);
+		return result;
+	}
+
+	private void collectKeys(Set<String> result, String prefix, boolean deep) {
+		for (int i = 0; i < size; i++) {
+			String path = prefix.isEmpty() ? keys[i] : prefix + '.' + keys[i];
+			result.add(path);
+			if (deep && values[i] instanceof CompactSection)
+				((CompactSection) values[i]).collectKeys(result, path, true);
+		}
+	}
+
+	/**
+	 * Get the number of keys directly in this section.
+	 *
+	 * @return The number of keys.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Get the key at a position in this section.
+	 *
+	 * @param i The position, from 0 to {@link #size()}.
+	 * @return The key.
+	 */
+	public @NotNull String keyAt(int i) {
+		if (i >= size)
+			throw new IndexOutOfBoundsException("Index " + i + " out of " + size);
+		return keys[i];
+	}
+
+	/**
+	 * Get the value at a position in this section.
+	 *
+	 * @param i The position, from 0 to {@link #size()}.
+	 * @return The value, which is a CompactSection for child sections.
+	 */
+	public @NotNull Object valueAt(int i) {
+		if (i >= size)
+			throw new IndexOutOfBoundsException("Index " + i + " out of " + size);
+		return values[i];
+	}
+
+	/**
+	 * Copy this section into maps, as a yaml dumper or a Bukkit configuration
+	 * would take them.
+	 *
+	 * @param deep Whether to copy child sections into maps as well.
+	 * @return The keys and values of this section, in order.
+	 */
+	public @NotNull Map<String, Object> toMap(boolean deep) {
+		Map<String, Object> map = new LinkedHashMap<>(size * 4 / 3 + 1);
+		for (int i = 0; i < size; i++) {
+			Object value = values[i];
+			map.put(keys[i], deep && value instanceof CompactSection ? ((CompactSection) value).toMap(true) : value);
+		}
+		return map;
+	}
+
+	/**
+	 * Build a section from a map, such as one parsed by a yaml loader. Nested maps
+	 * become sections, and keys are turned into Strings.
+	 *
+	 * @param map The map to copy.
+	 * @return The new section.
+	 */
+	public static @NotNull CompactSection fromMap(@NotNull Map<?, ?> map) {
+		CompactSection section = new CompactSection();
+		section.ensureCapacity(map.size());
+		for (Map.Entry<?, ?> entry : map.entrySet()) {
+			Object value = entry.getValue();
+			if (value == null)
+				continue;
+			section.putLocal(String.valueOf(entry.getKey()), value instanceof Map ? fromMap((Map<?, ?>) value) : value);
+		}
+		return section;
+	}
+
+	/**
+	 * Shrink the arrays of this section and all child sections to their sizes,
+	 * which is worth doing once a document has been loaded.
+	 */
+	public void trimToSize() {
+		if (keys.length > size) {
+			keys = size == 0 ? NO_KEYS : Arrays.copyOf(keys, size);
+			values = size == 0 ? NO_VALUES : Arrays.copyOf(values, size);
+		}
+		for (int i = 0; i < size; i++)
+			if (values[i] instanceof CompactSection)
+				((CompactSection) values[i]).trimToSize();
+	}
+
+	private @Nullable Object getLocal(String key) {
+		int i = indexOf(key);
+		return i < 0 ? null : values[i];
+	}
+
+	private void putLocal(String key, Object value) {
+		int i = indexOf(key);
+		if (i >= 0) {
+			values[i] = value;
+			return;
+		}
+		ensureCapacity(size + 1);
+		key = key.intern();
+		keys[size] = key;
+		values[size] = value;
+		if (index != null)
+			index.put(key, size);
+		size++;
+		if (index == null && size > INDEX_THRESHOLD)
+			buildIndex();
+	}
+
+	private void removeLocal(String key) {
+		int i = indexOf(key);
+		if (i < 0)
+			return;
+		size--;
+		System.arraycopy(keys, i + 1, keys, i, size - i);
+		System.arraycopy(values, i + 1, values, i, size - i);
+		keys[size] = null;
+		values[size] = null;
+		if (index == null)
+			return;
+		if (size <= INDEX_THRESHOLD) {
+			// Small enough to be searched in place again.
+			index = null;
+			return;
+		}
+		// Only the positions after the removed key have moved.
+		index.remove(key);
+		for (int j = i; j < size; j++)
+			index.put(keys[j], j);
+	}
+
+	private int indexOf(String key) {
+		if (index != null) {
+			Integer i = index.get(key);
+			return i == null ? -1 : i;
+		}
+		for (int i = 0; i < size; i++)
+			if (keys[i].equals(key))
+				return i;
+		return -1;
+	}
+
+	private void buildIndex() {
+		index = new HashMap<>(size * 2);
+		for (int i = 0; i < size; i++)
+			index.put(keys[i], i);
+	}
+
+	private void ensureCapacity(int capacity) {
+		if (capacity <= keys.length)
+			return;
+		int newCapacity = Math.max(capacity, keys.length < 4 ? 4 : keys.length + (keys.length >> 1));
+		keys = Arrays.copyOf(keys, newCapacity);
+		values = Arrays.copyOf(values, newCapacity);
+	}
+}
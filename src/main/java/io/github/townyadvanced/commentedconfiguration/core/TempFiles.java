@@ -0,0 +1,75 @@
+package io.github.townyadvanced.commentedconfiguration.core;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributes;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Creates the temporary files that are moved over a file to replace it in a
+ * single step.
+ * <p>
+ * {@link Files#createTempFile} only lets its owner read the new file, and a
+ * moved file keeps its own permissions, so a file replaced that way would lose
+ * the permissions, owner and group it had. On file systems that support POSIX
+ * attributes, they are copied from the file that is replaced.
+ */
+public final class TempFiles {
+	private TempFiles() {
+	}
+
+	/**
+	 * Create an empty temporary file next to a file, to be moved over it once
+	 * written. If the file exists, the temporary file gets its permissions, and
+	 * its owner and group as far as the process is allowed to set them.
+	 *
+	 * @param target The file that will be replaced, which must have a parent.
+	 * @return The temporary file.
+	 * @throws IOException if the temporary file could not be created.
+	 */
+	public static @NotNull Path createFor(@NotNull Path target) throws IOException {
+		Path temp = Files.createTempFile(target.getParent(), "." + target.getFileName(), ".tmp");
+		copyAttributes(target, temp);
+		return temp;
+	}
+
+	/**
+	 * Copy the POSIX owner, group and permissions of one file to another. Every
+	 * attribute that cannot be read or set is left as it was, so this never
+	 * fails.
+	 *
+	 * @param from The file to copy the attributes of.
+	 * @param to   The file to copy the attributes to.
+	 */
+	private static void copyAttributes(Path from, Path to) {
+		PosixFileAttributeView source = Files.getFileAttributeView(from, PosixFileAttributeView.class);
+		PosixFileAttributeView copy = Files.getFileAttributeView(to, PosixFileAttributeView.class);
+		if (source == null || copy == null)
+			return;
+		PosixFileAttributes attributes;
+		try {
+			attributes = source.readAttributes();
+		} catch (IOException | SecurityException e) {
+			// The file does not exist yet, so there is nothing to keep.
+			return;
+		}
+		// Only privileged processes may give a file away, so these usually fail
+		// unless the owner is the one saving.
+		try {
+			copy.setOwner(attributes.owner());
+		} catch (IOException | SecurityException ignored) {
+		}
+		try {
+			copy.setGroup(attributes.group());
+		} catch (IOException | SecurityException ignored) {
+		}
+		// Set last, as changing the owner may clear some permission bits.
+		try {
+			copy.setPermissions(attributes.permissions());
+		} catch (IOException | SecurityException ignored) {
+		}
+	}
+}
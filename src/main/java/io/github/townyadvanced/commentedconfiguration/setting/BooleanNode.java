@@ -0,0 +1,78 @@
+package io.github.townyadvanced.commentedconfiguration.setting;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A {@link TypedValueNode} holding a boolean, which {@link Settings#getBoolean(BooleanNode)} can read without boxing.
+ * Values that are not a boolean in the configuration resolve to the default value.
+ */
+public class BooleanNode extends PrimitiveNode<Boolean> {
+
+    /**
+     * A builder for {@link BooleanNode}.
+     *
+     * @param path  The path of the node.
+     * @return A new builder.
+     */
+    public static Builder builder(@NotNull String path) {
+        return new Builder(path);
+    }
+
+    private final boolean defaultBoolean;
+
+    /**
+     * Creates a new node with the given path, default value and comments.
+     *
+     * @param path          The path of the node.
+     * @param defaultValue  The default value of the node.
+     * @param comments      The comments of the node.
+     */
+    public BooleanNode(@NotNull String path, boolean defaultValue, @NotNull String[] comments) {
+        super(path, Boolean.class, defaultValue, comments);
+        this.defaultBoolean = defaultValue;
+    }
+
+    /**
+     * Gets the default value of the node without boxing.
+     *
+     * @return The default value of the node.
+     */
+    public boolean getDefaultBoolean() {
+        return defaultBoolean;
+    }
+
+    /**
+     * A builder for {@link BooleanNode}s.
+     */
+    public static class Builder extends PrimitiveNode.Builder<Boolean, Builder> {
+        /**
+         * Creates a new builder with the given path.
+         *
+         * @param path  The path of the node.
+         */
+        protected Builder(@NotNull String path) {
+            super(path, Boolean.class, false);
+        }
+
+        /**
+         * Sets the default value of the node.
+         *
+         * @param defaultValue  The default value of the node.
+         * @return This builder.
+         */
+        public Builder defaultValue(boolean defaultValue) {
+            this.defaultValue = defaultValue;
+            return this;
+        }
+
+        /**
+         * Builds the node.
+         *
+         * @return The node.
+         */
+        @Override
+        public BooleanNode build() {
+            return new BooleanNode(path, defaultValue, comments.toArray(new String[0]));
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package io.github.townyadvanced.commentedconfiguration.setting;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.github.townyadvanced.commentedconfiguration.CommentedConfiguration;
+import io.github.townyadvanced.commentedconfiguration.core.Comments;
+import org.bukkit.configuration.ConfigurationSection;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Merges the comments and default values of the registered nodes into a freshly loaded configuration.
+ * <p>
+ * Everything that only depends on the node list is worked out once: the comment blocks are built into a template
+ * set of comments, and every node's path is split into its parent section and key. Merging then copies the comments
+ * in one go and looks up each parent section only once, instead of walking the full path of every node.
+ */
+final class DefaultNodes {
+    private final Comments comments;
+    private final ValueNode[] nodes;
+    private final String[] keys;
+    private final int[] parents;
+    private final String[] parentPaths;
+    /**
+     * For every node, the index of the parent path that is the node's own path, or -1 if no node is under it.
+     */
+    private final int[] ownSections;
+
+    /**
+     * Prepares the nodes for merging.
+     *
+     * @param defaultNodes  The nodes registered with the settings.
+     * @param nodeSlots     The slots of the registered value nodes.
+     * @param comments      The comments of the nodes as built by {@link #commentsOf(List)}, or null to build them.
+     */
+    DefaultNodes(@Nullable List<CommentedNode> defaultNodes, @NotNull NodeSlots nodeSlots, @Nullable Comments comments) {
+        this.comments = comments != null ? comments : commentsOf(defaultNodes);
+        this.nodes = new ValueNode[nodeSlots.size()];
+        this.keys = new String[nodes.length];
+        this.parents = new int[nodes.length];
+        this.ownSections = new int[nodes.length];
+        Map<String, Integer> parentIndexes = new HashMap<>();
+        List<String> paths = new ArrayList<>();
+        for (int i = 0; i < nodes.length; i++) {
+            ValueNode node = nodeSlots.nodeAt(i);
+            String path = node.getPath();
+            int split = path.lastIndexOf('.');
+            String parent = split < 0 ? "" : path.substring(0, split);
+            Integer index = parentIndexes.get(parent);
+            if (index == null) {
+                index = paths.size();
+                parentIndexes.put(parent, index);
+                paths.add(parent);
+            }
+            nodes[i] = node;
+            keys[i] = path.substring(split + 1);
+            parents[i] = index;
+        }
+        this.parentPaths = paths.toArray(new String[0]);
+        Arrays.fill(ownSections, -1);
+        for (int i = 0; i < nodes.length; i++) {
+            Integer index = parentIndexes.get(nodes[i].getPath());
+            if (index != null) {
+                ownSections[i] = index;
+            }
+        }
+    }
+
+    /**
+     * Builds the comment blocks of nodes.
+     *
+     * @param nodes The nodes to build the comment blocks of.
+     * @return The comments of the nodes, by path.
+     */
+    static @NotNull Comments commentsOf(@Nullable List<CommentedNode> nodes) {
+        Comments comments = new Comments();
+        if (nodes != null) {
+            for (CommentedNode node : nodes) {
+                if (node.getComments().length > 0) {
+                    comments.add(node.getPath(), node.getComments());
+                }
+            }
+        }
+        return comments;
+    }
+
+    /**
+     * Adds the comments of all nodes to the configuration, and sets every node that is not present to its
+     * default value. Missing nodes are added in the order they were registered in.
+     * <p>
+     * The default values are set in a single {@link CommentedConfiguration#edit edit}, so the sections can be
+     * changed directly while readers of a concurrent configuration are kept out.
+     *
+     * @param config    The configuration to merge the nodes into.
+     */
+    void mergeInto(@NotNull CommentedConfiguration config) {
+        config.getComments().addAll(comments);
+        config.edit(this::setDefaults);
+    }
+
+    /**
+     * Sets every node that is not present to its default value. Must be called while holding the write lock of
+     * the configuration.
+     *
+     * @param config    The configuration to set the default values in.
+     */
+    private void setDefaults(CommentedConfiguration config) {
+        ConfigurationSection[] sections = new ConfigurationSection[parentPaths.length];
+        for (int i = 0; i < nodes.length; i++) {
+            Object defaultValue = nodes[i].getDefaultValue();
+            if (defaultValue == null) {
+                // Setting null on a missing node changes nothing.
+                continue;
+            }
+            int parent = parents[i];
+            ConfigurationSection section = sections[parent];
+            if (section == null) {
+                section = getOrCreateSection(config, parentPaths[parent]);
+                sections[parent] = section;
+            }
+            if (section.get(keys[i]) == null) {
+                section.set(keys[i], defaultValue);
+                if (ownSections[i] >= 0) {
+                    // Nodes under this one need a section where the value now is, so it is looked up again.
+                    sections[ownSections[i]] = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets a section of the configuration, creating it if it is missing or holds a value.
+     *
+     * @param config    The configuration to get the section of.
+     * @param path      The path of the section, empty for the root.
+     * @return The section.
+     */
+    private static ConfigurationSection getOrCreateSection(CommentedConfiguration config, String path) {
+        if (path.isEmpty()) {
+            return config;
+        }
+        ConfigurationSection section = config.getConfigurationSection(path);
+        return section != null ? section : config.createSection(path);
+    }
+}
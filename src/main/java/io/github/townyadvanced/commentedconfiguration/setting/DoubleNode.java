@@ -0,0 +1,80 @@
+package io.github.townyadvanced.commentedconfiguration.setting;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A {@link TypedValueNode} holding a double, which {@link Settings#getDouble(DoubleNode)} can read without boxing.
+ * Any number in the configuration is converted to a double, the same way as
+ * {@link org.bukkit.configuration.ConfigurationSection#getDouble(String, double)}, so 5 resolves to 5.0.
+ * Values that are not a number resolve to the default value.
+ */
+public class DoubleNode extends PrimitiveNode<Double> {
+
+    /**
+     * A builder for {@link DoubleNode}.
+     *
+     * @param path  The path of the node.
+     * @return A new builder.
+     */
+    public static Builder builder(@NotNull String path) {
+        return new Builder(path);
+    }
+
+    private final double defaultDouble;
+
+    /**
+     * Creates a new node with the given path, default value and comments.
+     *
+     * @param path          The path of the node.
+     * @param defaultValue  The default value of the node.
+     * @param comments      The comments of the node.
+     */
+    public DoubleNode(@NotNull String path, double defaultValue, @NotNull String[] comments) {
+        super(path, Double.class, defaultValue, comments);
+        this.defaultDouble = defaultValue;
+    }
+
+    /**
+     * Gets the default value of the node without boxing.
+     *
+     * @return The default value of the node.
+     */
+    public double getDefaultDouble() {
+        return defaultDouble;
+    }
+
+    /**
+     * A builder for {@link DoubleNode}s.
+     */
+    public static class Builder extends PrimitiveNode.Builder<Double, Builder> {
+        /**
+         * Creates a new builder with the given path.
+         *
+         * @param path  The path of the node.
+         */
+        protected Builder(@NotNull String path) {
+            super(path, Double.class, 0.0);
+        }
+
+        /**
+         * Sets the default value of the node.
+         *
+         * @param defaultValue  The default value of the node.
+         * @return This builder.
+         */
+        public Builder defaultValue(double defaultValue) {
+            this.defaultValue = defaultValue;
+            return this;
+        }
+
+        /**
+         * Builds the node.
+         *
+         * @return The node.
+         */
+        @Override
+        public DoubleNode build() {
+            return new DoubleNode(path, defaultValue, comments.toArray(new String[0]));
+        }
+    }
+}
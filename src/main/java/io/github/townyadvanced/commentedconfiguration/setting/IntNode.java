@@ -0,0 +1,80 @@
+package io.github.townyadvanced.commentedconfiguration.setting;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A {@link TypedValueNode} holding an int, which {@link Settings#getInt(IntNode)} can read without boxing.
+ * Any number in the configuration is converted to an int, the same way as
+ * {@link org.bukkit.configuration.ConfigurationSection#getInt(String, int)}, so 5.9 resolves to 5.
+ * Values that are not a number resolve to the default value.
+ */
+public class IntNode extends PrimitiveNode<Integer> {
+
+    /**
+     * A builder for {@link IntNode}.
+     *
+     * @param path  The path of the node.
+     * @return A new builder.
+     */
+    public static Builder builder(@NotNull String path) {
+        return new Builder(path);
+    }
+
+    private final int defaultInt;
+
+    /**
+     * Creates a new node with the given path, default value and comments.
+     *
+     * @param path          The path of the node.
+     * @param defaultValue  The default value of the node.
+     * @param comments      The comments of the node.
+     */
+    public IntNode(@NotNull String path, int defaultValue, @NotNull String[] comments) {
+        super(path, Integer.class, defaultValue, comments);
+        this.defaultInt = defaultValue;
+    }
+
+    /**
+     * Gets the default value of the node without boxing.
+     *
+     * @return The default value of the node.
+     */
+    public int getDefaultInt() {
+        return defaultInt;
+    }
+
+    /**
+     * A builder for {@link IntNode}s.
+     */
+    public static class Builder extends PrimitiveNode.Builder<Integer, Builder> {
+        /**
+         * Creates a new builder with the given path.
+         *
+         * @param path  The path of the node.
+         */
+        protected Builder(@NotNull String path) {
+            super(path, Integer.class, 0);
+        }
+
+        /**
+         * Sets the default value of the node.
+         *
+         * @param defaultValue  The default value of the node.
+         * @return This builder.
+         */
+        public Builder defaultValue(int defaultValue) {
+            this.defaultValue = defaultValue;
+            return this;
+        }
+
+        /**
+         * Builds the node.
+         *
+         * @return The node.
+         */
+        @Override
+        public IntNode build() {
+            return new IntNode(path, defaultValue, comments.toArray(new String[0]));
+        }
+    }
+}
@@ -0,0 +1,480 @@
+package io.github.townyadvanced.commentedconfiguration.setting;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+import io.github.townyadvanced.commentedconfiguration.CommentedConfiguration;
+import org.bukkit.configuration.ConfigurationSection;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Messages in many languages, with one {@link CommentedConfiguration} per language file named after its locale,
+ * such as {@code en_US.yml}.
+ * <p>
+ * A message is looked up in the requested locale and then along its fallback chain: {@code en_US} falls back to
+ * {@code en}, and every locale falls back to the default locale last. Language files are loaded the first time they
+ * are needed, and the least recently used ones are unloaded once more locales, or more bytes of language files, are
+ * loaded than allowed. The default locale is never unloaded.
+ * <p>
+ * Locales are matched regardless of case, with {@code -} read as {@code _}, and must look like a language code
+ * followed by any number of {@code _} parts, such as {@code en}, {@code en_us} or {@code zh_hant_tw}. Anything else,
+ * such as a locale sent by a modified client, is looked up in the default locale only, so it can never name a file
+ * outside the directory. Locales are only loaded from the {@code .yml} files found in the directory, which is listed
+ * the first time it is needed and again after {@link #reload()}.
+ * <p>
+ * Resolved messages are cached by locale and key, so a message that is used often is a single lookup that takes no
+ * locks. The cache is emptied when it grows past its limit, and by {@link #reload()}.
+ */
+public class LocaleBundle {
+    private static final Logger DEFAULT_LOGGER = Logger.getLogger("CommentedConfiguration");
+    private static final Pattern LOCALE = Pattern.compile("[a-z]{2,3}(_[a-z0-9]{2,8})*");
+    /**
+     * Cached for keys that are in none of the locales of a chain.
+     */
+    private static final Object MISSING = new Object();
+
+    private final Path directory;
+    private final Logger logger;
+    private final String defaultLocale;
+    /**
+     * The locales that are loaded or being loaded, from least to most recently used. Guarded by its own lock, which
+     * is never held while a file is read.
+     */
+    private final LinkedHashMap<String, CompletableFuture<LoadedLocale>> loaded = new LinkedHashMap<>(16, 0.75f, true);
+    /**
+     * The language files in the directory by their locale, or null until it is listed. Guarded by {@link #loaded}.
+     */
+    private Map<String, Path> files;
+    private long loadedBytes;
+    /**
+     * Replaced by {@link #reload()}, so a message resolved from a file that was reloaded meanwhile is never cached.
+     */
+    private volatile MessageCache resolved = new MessageCache();
+    private volatile int maxLoadedLocales = 8;
+    private volatile long maxLoadedBytes = Long.MAX_VALUE;
+    private volatile int maxCachedMessages = 10_000;
+    private volatile boolean lazyLoading;
+
+    /**
+     * Creates a new bundle of the language files in a directory.
+     *
+     * @param directory     The directory holding a {@code <locale>.yml} file per locale.
+     * @param logger        The Logger to use for error messages.
+     * @param defaultLocale The locale every other locale falls back to.
+     * @throws IllegalArgumentException if the default locale is not a valid locale.
+     */
+    public LocaleBundle(@NotNull Path directory, @Nullable Logger logger, @NotNull String defaultLocale) {
+        String normalized = normalize(defaultLocale);
+        if (normalized == null) {
+            throw new IllegalArgumentException("Invalid default locale: " + defaultLocale);
+        }
+        this.directory = directory;
+        this.logger = logger == null ? DEFAULT_LOGGER : logger;
+        this.defaultLocale = normalized;
+    }
+
+    /**
+     * Turns a locale into the form it is looked up by.
+     *
+     * @param locale    The locale as requested.
+     * @return The locale in lower case with {@code _} between its parts, or null if it is not a valid locale.
+     */
+    private static @Nullable String normalize(String locale) {
+        String normalized = locale.toLowerCase(Locale.ROOT).replace('-', '_');
+        return LOCALE.matcher(normalized).matches() ? normalized : null;
+    }
+
+    /**
+     * Gets a message, looking through the locale's fallback chain.
+     * <p>
+     * Lists of lines are joined with new lines, and other values such as numbers are turned into Strings.
+     *
+     * @param locale    The locale to get the message in.
+     * @param key       The path of the message.
+     * @return The message, or null if no locale in the chain has it.
+     */
+    public @Nullable String getMessage(@NotNull String locale, @NotNull String key) {
+        String normalized = normalize(locale);
+        if (normalized == null) {
+            normalized = defaultLocale;
+        }
+        // Read before resolving, so the message is cached with the files it was resolved from.
+        MessageCache cache = resolved;
+        Map<String, Object> messages = cache.messages.get(normalized);
+        if (messages != null) {
+            Object cached = messages.get(key);
+            if (cached != null) {
+                return cached == MISSING ? null : (String) cached;
+            }
+        }
+
+        String message = resolve(normalized, key);
+        if (maxCachedMessages == 0) {
+            return message;
+        }
+        if (cache.count.incrementAndGet() > maxCachedMessages) {
+            // Hot messages are cached again on their next use.
+            MessageCache emptied = new MessageCache();
+            emptied.count.set(1);
+            synchronized (loaded) {
+                if (resolved != cache) {
+                    return message;
+                }
+                resolved = emptied;
+            }
+            cache = emptied;
+        }
+        cache.messages.computeIfAbsent(normalized, ignored -> new ConcurrentHashMap<>())
+                .put(key, message == null ? MISSING : message);
+        return message;
+    }
+
+    /**
+     * Gets a message, looking through the locale's fallback chain.
+     *
+     * @param locale    The locale to get the message in.
+     * @param key       The path of the message.
+     * @param def       The message to use if no locale in the chain has it.
+     * @return The message, or def if no locale in the chain has it.
+     */
+    public @NotNull String getMessage(@NotNull String locale, @NotNull String key, @NotNull String def) {
+        String message = getMessage(locale, key);
+        return message != null ? message : def;
+    }
+
+    /**
+     * Looks up a message without the cache.
+     *
+     * @param locale    The locale to get the message in.
+     * @param key       The path of the message.
+     * @return The message, or null if no locale in the chain has it.
+     */
+    private @Nullable String resolve(String locale, String key) {
+        for (String candidate : getFallbackChain(locale)) {
+            CommentedConfiguration config = getConfiguration(candidate);
+            if (config == null) {
+                continue;
+            }
+            Object value = config.get(key);
+            if (value == null || value instanceof ConfigurationSection) {
+                continue;
+            }
+            if (value instanceof List) {
+                List<String> lines = new ArrayList<>();
+                for (Object line : (List<?>) value) {
+                    lines.add(String.valueOf(line));
+                }
+                return String.join("\n", lines);
+            }
+            return value.toString();
+        }
+        return null;
+    }
+
+    /**
+     * Gets the locales a message is looked for in, in order. Each locale is followed by the locales it is a variant
+     * of, made by removing the last {@code _} part, and the default locale comes last.
+     *
+     * @param locale    The locale to get the chain of.
+     * @return The locale, the locales it falls back to, and the default locale, all as they are looked up. Only the
+     *         default locale if the locale is not valid.
+     */
+    public @NotNull List<String> getFallbackChain(@NotNull String locale) {
+        Set<String> locales = new LinkedHashSet<>();
+        String candidate = normalize(locale);
+        while (candidate != null) {
+            locales.add(candidate);
+            int split = candidate.lastIndexOf('_');
+            candidate = split < 0 ? null : candidate.substring(0, split);
+        }
+        locales.add(defaultLocale);
+        return Collections.unmodifiableList(new ArrayList<>(locales));
+    }
+
+    /**
+     * Gets the language file of a locale, loading it if it is not loaded. Loading may unload the least recently
+     * used locales. Threads that need the same locale while it is loaded wait for it, other locales can be used
+     * meanwhile.
+     *
+     * @param locale    The locale to get the language file of.
+     * @return The language file, or null if the locale is not valid, has no file or its file failed to load.
+     */
+    public @Nullable CommentedConfiguration getConfiguration(@NotNull String locale) {
+        String normalized = normalize(locale);
+        if (normalized == null) {
+            return null;
+        }
+        CompletableFuture<LoadedLocale> future;
+        Path file = null;
+        synchronized (loaded) {
+            future = loaded.get(normalized);
+            if (future == null) {
+                file = languageFiles().get(normalized);
+                if (file == null) {
+                    return null;
+                }
+                future = new CompletableFuture<>();
+                loaded.put(normalized, future);
+            }
+        }
+        if (file != null) {
+            load(normalized, file, future);
+        }
+        LoadedLocale entry = future.join();
+        return entry == null ? null : entry.config;
+    }
+
+    /**
+     * Lists the language files in the directory, the first time since the last reload. Must be called holding the
+     * lock on {@link #loaded}.
+     *
+     * @return The language files by their locale.
+     */
+    private Map<String, Path> languageFiles() {
+        if (files == null) {
+            files = new HashMap<>();
+            Path root = directory.normalize();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*.yml")) {
+                for (Path file : stream) {
+                    String name = file.getFileName().toString();
+                    String locale = normalize(name.substring(0, name.length() - 4));
+                    if (locale != null && file.normalize().startsWith(root) && Files.isRegularFile(file)) {
+                        files.put(locale, file);
+                    }
+                }
+            } catch (IOException e) {
+                logger.warning(String.format("Failed to list the language files in %s: %s", directory, e.getMessage()));
+            }
+        }
+        return files;
+    }
+
+    /**
+     * Loads a language file, without holding the lock on {@link #loaded}, and completes the future of its locale.
+     *
+     * @param locale    The locale of the language file.
+     * @param file      The language file.
+     * @param future    The future in {@link #loaded} to complete with the loaded file, or null if it failed to load.
+     */
+    private void load(String locale, Path file, CompletableFuture<LoadedLocale> future) {
+        LoadedLocale entry = null;
+        try {
+            long size = Files.size(file);
+            CommentedConfiguration config = new CommentedConfiguration(file, logger);
+            if (lazyLoading) {
+                // Messages are read from many threads, and lazy reads parse into the configuration.
+                config.setConcurrent(true);
+                config.setLazyLoading(true);
+            }
+            if (config.load()) {
+                entry = new LoadedLocale(config, size);
+            }
+        } catch (IOException e) {
+            logger.warning(String.format("Failed to read the language file %s: %s", file, e.getMessage()));
+        } finally {
+            synchronized (loaded) {
+                // Unless it was reloaded meanwhile, a file that failed to load is not tried again until it is.
+                if (loaded.get(locale) == future) {
+                    if (entry == null) {
+                        loaded.remove(locale);
+                        files.remove(locale);
+                    } else {
+                        loadedBytes += entry.size;
+                        evict();
+                    }
+                }
+            }
+            future.complete(entry);
+        }
+    }
+
+    /**
+     * Unloads the least recently used locales until the limits are met. Locales that are still being loaded are
+     * left alone. Must be called holding the lock on {@link #loaded}.
+     */
+    private void evict() {
+        Iterator<Map.Entry<String, CompletableFuture<LoadedLocale>>> iterator = loaded.entrySet().iterator();
+        while ((loaded.size() > maxLoadedLocales || loadedBytes > maxLoadedBytes) && iterator.hasNext()) {
+            Map.Entry<String, CompletableFuture<LoadedLocale>> entry = iterator.next();
+            if (entry.getKey().equals(defaultLocale) || !entry.getValue().isDone()) {
+                continue;
+            }
+            // Messages already resolved from it stay cached, as the file has not changed.
+            loadedBytes -= entry.getValue().join().size;
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Gets the locales that are loaded, from least to most recently used.
+     *
+     * @return The loaded locales.
+     */
+    public @NotNull Set<String> getLoadedLocales() {
+        synchronized (loaded) {
+            Set<String> locales = new LinkedHashSet<>();
+            for (Map.Entry<String, CompletableFuture<LoadedLocale>> entry : loaded.entrySet()) {
+                if (entry.getValue().isDone()) {
+                    locales.add(entry.getKey());
+                }
+            }
+            return locales;
+        }
+    }
+
+    /**
+     * Unloads every locale, lists the directory again and empties the message cache, so language files are read
+     * again when next used.
+     */
+    public void reload() {
+        synchronized (loaded) {
+            loaded.clear();
+            files = null;
+            loadedBytes = 0;
+            resolved = new MessageCache();
+        }
+    }
+
+    /**
+     * Gets the locale every other locale falls back to.
+     *
+     * @return The default locale.
+     */
+    public @NotNull String getDefaultLocale() {
+        return defaultLocale;
+    }
+
+    /**
+     * Gets the most locales kept loaded at the same time.
+     *
+     * @return The most loaded locales.
+     */
+    public int getMaxLoadedLocales() {
+        return maxLoadedLocales;
+    }
+
+    /**
+     * Sets the most locales kept loaded at the same time, 8 by default. The default locale counts towards it, but
+     * is never unloaded.
+     *
+     * @param maxLoadedLocales  The most loaded locales.
+     */
+    public void setMaxLoadedLocales(int maxLoadedLocales) {
+        if (maxLoadedLocales < 1) {
+            throw new IllegalArgumentException("maxLoadedLocales must be at least 1, got " + maxLoadedLocales);
+        }
+        this.maxLoadedLocales = maxLoadedLocales;
+        synchronized (loaded) {
+            evict();
+        }
+    }
+
+    /**
+     * Gets the most bytes of language files kept loaded at the same time.
+     *
+     * @return The most loaded bytes.
+     */
+    public long getMaxLoadedBytes() {
+        return maxLoadedBytes;
+    }
+
+    /**
+     * Sets the most bytes of language files kept loaded at the same time, counted by the size of the files, which
+     * the memory a loaded file takes grows with. Unlimited by default.
+     *
+     * @param maxLoadedBytes    The most loaded bytes.
+     */
+    public void setMaxLoadedBytes(long maxLoadedBytes) {
+        if (maxLoadedBytes < 0) {
+            throw new IllegalArgumentException("maxLoadedBytes must not be negative, got " + maxLoadedBytes);
+        }
+        this.maxLoadedBytes = maxLoadedBytes;
+        synchronized (loaded) {
+            evict();
+        }
+    }
+
+    /**
+     * Gets the most messages kept in the message cache.
+     *
+     * @return The most cached messages.
+     */
+    public int getMaxCachedMessages() {
+        return maxCachedMessages;
+    }
+
+    /**
+     * Sets the most messages kept in the message cache, 10000 by default, or 0 to not cache messages. Once more are
+     * cached, the cache is emptied and filled again by the messages in use.
+     *
+     * @param maxCachedMessages The most cached messages.
+     */
+    public void setMaxCachedMessages(int maxCachedMessages) {
+        if (maxCachedMessages < 0) {
+            throw new IllegalArgumentException("maxCachedMessages must not be negative, got " + maxCachedMessages);
+        }
+        this.maxCachedMessages = maxCachedMessages;
+    }
+
+    /**
+     * Gets whether language files are loaded lazily.
+     *
+     * @return True if language files are loaded lazily.
+     */
+    public boolean isLazyLoading() {
+        return lazyLoading;
+    }
+
+    /**
+     * Sets whether the top level sections of language files are parsed the first time a message in them is used.
+     * Applies to language files loaded from now on. Off by default.
+     * <p>
+     * Lazily loaded language files are in {@link CommentedConfiguration#setConcurrent(boolean) concurrent} mode, so
+     * messages can still be looked up from many threads at once, at the cost of a lock for every lookup that misses
+     * the message cache.
+     *
+     * @param lazyLoading   Whether to load language files lazily.
+     */
+    public void setLazyLoading(boolean lazyLoading) {
+        this.lazyLoading = lazyLoading;
+    }
+
+    /**
+     * Resolved messages by locale and key, and how many were cached.
+     */
+    private static class MessageCache {
+        private final Map<String, Map<String, Object>> messages = new ConcurrentHashMap<>();
+        private final AtomicInteger count = new AtomicInteger();
+    }
+
+    /**
+     * A loaded language file and its size on disk.
+     */
+    private static class LoadedLocale {
+        private final CommentedConfiguration config;
+        private final long size;
+
+        private LoadedLocale(CommentedConfiguration config, long size) {
+            this.config = config;
+            this.size = size;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package io.github.townyadvanced.commentedconfiguration.setting;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A {@link TypedValueNode} holding a long, which {@link Settings#getLong(LongNode)} can read without boxing.
+ * Any number in the configuration is converted to a long, the same way as
+ * {@link org.bukkit.configuration.ConfigurationSection#getLong(String, long)}, so 5.9 resolves to 5.
+ * Values that are not a number resolve to the default value.
+ */
+public class LongNode extends PrimitiveNode<Long> {
+
+    /**
+     * A builder for {@link LongNode}.
+     *
+     * @param path  The path of the node.
+     * @return A new builder.
+     */
+    public static Builder builder(@NotNull String path) {
+        return new Builder(path);
+    }
+
+    private final long defaultLong;
+
+    /**
+     * Creates a new node with the given path, default value and comments.
+     *
+     * @param path          The path of the node.
+     * @param defaultValue  The default value of the node.
+     * @param comments      The comments of the node.
+     */
+    public LongNode(@NotNull String path, long defaultValue, @NotNull String[] comments) {
+        super(path, Long.class, defaultValue, comments);
+        this.defaultLong = defaultValue;
+    }
+
+    /**
+     * Gets the default value of the node without boxing.
+     *
+     * @return The default value of the node.
+     */
+    public long getDefaultLong() {
+        return defaultLong;
+    }
+
+    /**
+     * A builder for {@link LongNode}s.
+     */
+    public static class Builder extends PrimitiveNode.Builder<Long, Builder> {
+        /**
+         * Creates a new builder with the given path.
+         *
+         * @param path  The path of the node.
+         */
+        protected Builder(@NotNull String path) {
+            super(path, Long.class, 0L);
+        }
+
+        /**
+         * Sets the default value of the node.
+         *
+         * @param defaultValue  The default value of the node.
+         * @return This builder.
+         */
+        public Builder defaultValue(long defaultValue) {
+            this.defaultValue = defaultValue;
+            return this;
+        }
+
+        /**
+         * Builds the node.
+         *
+         * @return The node.
+         */
+        @Override
+        public LongNode build() {
+            return new LongNode(path, defaultValue, comments.toArray(new String[0]));
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package io.github.townyadvanced.commentedconfiguration.setting;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Listens for changes to the value of a node registered with a {@link Settings}.
+ *
+ * @param <T> The type of the node value.
+ */
+@FunctionalInterface
+public interface NodeChangeListener<T> {
+    /**
+     * Called after the value of the node has changed, either because the settings were loaded or because the
+     * node was set. Called on the thread that loaded or set the settings.
+     *
+     * @param oldValue  The value of the node before the change.
+     * @param newValue  The value of the node after the change.
+     */
+    void onChange(@Nullable T oldValue, @Nullable T newValue);
+}
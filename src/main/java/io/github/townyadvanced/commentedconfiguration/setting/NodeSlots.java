@@ -0,0 +1,229 @@
+package io.github.townyadvanced.commentedconfiguration.setting;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Gives every registered {@link ValueNode} a fixed slot, so that resolved values can be kept in a flat array
+ * instead of walking the configuration's sections on every read.
+ */
+final class NodeSlots {
+    private final Map<ValueNode, Integer> slots = new IdentityHashMap<>();
+    private final ValueNode[] nodes;
+    private final int[] primitiveIndexes;
+    private final int[][] affected;
+    private int intCount;
+    private int longCount;
+    private int doubleCount;
+    private int booleanCount;
+
+    /**
+     * Creates slots for all {@link ValueNode}s in the given list, in order.
+     *
+     * @param defaultNodes  The nodes registered with the settings.
+     */
+    NodeSlots(@Nullable List<CommentedNode> defaultNodes) {
+        List<ValueNode> valueNodes = new ArrayList<>();
+        if (defaultNodes != null) {
+            for (CommentedNode node : defaultNodes) {
+                if (node instanceof ValueNode && !slots.containsKey(node)) {
+                    slots.put((ValueNode) node, valueNodes.size());
+                    valueNodes.add((ValueNode) node);
+                }
+            }
+        }
+        this.nodes = valueNodes.toArray(new ValueNode[0]);
+        this.primitiveIndexes = new int[nodes.length];
+        for (int i = 0; i < nodes.length; i++) {
+            ValueNode node = nodes[i];
+            if (node instanceof IntNode) {
+                primitiveIndexes[i] = intCount++;
+            } else if (node instanceof LongNode) {
+                primitiveIndexes[i] = longCount++;
+            } else if (node instanceof DoubleNode) {
+                primitiveIndexes[i] = doubleCount++;
+            } else if (node instanceof BooleanNode) {
+                primitiveIndexes[i] = booleanCount++;
+            } else {
+                primitiveIndexes[i] = -1;
+            }
+        }
+        this.affected = findAffected(nodes);
+    }
+
+    /**
+     * Finds, for every node, the nodes whose value can change when it is set: the node itself, nodes with the same
+     * path, and nodes whose path is inside or around its path.
+     *
+     * @param nodes The registered nodes.
+     * @return The affected slots, indexed by slot.
+     */
+    private static int[][] findAffected(ValueNode[] nodes) {
+        Map<String, List<Integer>> byPath = new HashMap<>();
+        for (int i = 0; i < nodes.length; i++) {
+            byPath.computeIfAbsent(nodes[i].getPath(), path -> new ArrayList<>()).add(i);
+        }
+        List<List<Integer>> affected = new ArrayList<>(nodes.length);
+        for (int i = 0; i < nodes.length; i++) {
+            affected.add(new ArrayList<>(byPath.get(nodes[i].getPath())));
+        }
+        for (int i = 0; i < nodes.length; i++) {
+            String path = nodes[i].getPath();
+            for (int split = path.lastIndexOf('.'); split > 0; split = path.lastIndexOf('.', split - 1)) {
+                List<Integer> parents = byPath.get(path.substring(0, split));
+                if (parents == null) {
+                    continue;
+                }
+                for (int parent : parents) {
+                    affected.get(i).add(parent);
+                    affected.get(parent).add(i);
+                }
+            }
+        }
+        int[][] result = new int[nodes.length][];
+        for (int i = 0; i < nodes.length; i++) {
+            result[i] = affected.get(i).stream().mapToInt(Integer::intValue).toArray();
+        }
+        return result;
+    }
+
+    /**
+     * Gets the slot of a node.
+     *
+     * @param node  The node to get the slot of.
+     * @return The slot of the node, or -1 if the node was not registered.
+     */
+    int slotOf(@NotNull ValueNode node) {
+        Integer slot = slots.get(node);
+        return slot == null ? -1 : slot;
+    }
+
+    /**
+     * Gets the number of slots.
+     *
+     * @return The number of slots.
+     */
+    int size() {
+        return nodes.length;
+    }
+
+    /**
+     * Gets the node in a slot.
+     *
+     * @param slot  The slot of the node.
+     * @return The node in the slot.
+     */
+    @NotNull ValueNode nodeAt(int slot) {
+        return nodes[slot];
+    }
+
+    /**
+     * Gets the slots of the nodes whose value can change when the node in a slot is set, because their paths are
+     * the same or one is inside the other. The node's own slot is always included.
+     *
+     * @param slot  The slot of the node.
+     * @return The affected slots.
+     */
+    int[] affectedBy(int slot) {
+        return affected[slot];
+    }
+
+    /**
+     * Gets the index of a primitive node's value within the array for its kind of primitive.
+     *
+     * @param slot  The slot of the node.
+     * @return The index of the node's value, or -1 if the node is not a primitive node.
+     */
+    int primitiveIndex(int slot) {
+        return primitiveIndexes[slot];
+    }
+
+    /**
+     * Gets the number of {@link IntNode}s.
+     *
+     * @return The number of int nodes.
+     */
+    int intCount() {
+        return intCount;
+    }
+
+    /**
+     * Gets the number of {@link LongNode}s.
+     *
+     * @return The number of long nodes.
+     */
+    int longCount() {
+        return longCount;
+    }
+
+    /**
+     * Gets the number of {@link DoubleNode}s.
+     *
+     * @return The number of double nodes.
+     */
+    int doubleCount() {
+        return doubleCount;
+    }
+
+    /**
+     * Gets the number of {@link BooleanNode}s.
+     *
+     * @return The number of boolean nodes.
+     */
+    int booleanCount() {
+        return booleanCount;
+    }
+
+    /**
+     * Resolves the values of all nodes from the configuration.
+     *
+     * @param config    The configuration to read from.
+     * @return The values, indexed by slot.
+     */
+    @NotNull Object[] resolve(@NotNull ConfigurationSection config) {
+        Object[] values = new Object[nodes.length];
+        for (int i = 0; i < nodes.length; i++) {
+            values[i] = resolve(nodes[i], config);
+        }
+        return values;
+    }
+
+    /**
+     * Resolves the value of a node from the configuration, the same way {@link Settings#get(ValueNode)} and
+     * {@link Settings#get(TypedValueNode)} would. Primitive nodes accept any number and convert it to their own type,
+     * like {@link ConfigurationSection#getInt(String, int)} does.
+     *
+     * @param node      The node to resolve.
+     * @param config    The configuration to read from.
+     * @return The value of the node, or its default value if it is not set or has the wrong type.
+     */
+    static @Nullable Object resolve(@NotNull ValueNode node, @NotNull ConfigurationSection config) {
+        if (node instanceof IntNode) {
+            return config.getInt(node.getPath(), ((IntNode) node).getDefaultInt());
+        }
+        if (node instanceof LongNode) {
+            return config.getLong(node.getPath(), ((LongNode) node).getDefaultLong());
+        }
+        if (node instanceof DoubleNode) {
+            return config.getDouble(node.getPath(), ((DoubleNode) node).getDefaultDouble());
+        }
+        if (node instanceof BooleanNode) {
+            return config.getBoolean(node.getPath(), ((BooleanNode) node).getDefaultBoolean());
+        }
+        if (node instanceof TypedValueNode) {
+            return resolveTyped((TypedValueNode<?>) node, config);
+        }
+        return config.get(node.getPath(), node.getDefaultValue());
+    }
+
+    private static <T> T resolveTyped(TypedValueNode<T> node, ConfigurationSection config) {
+        return config.getObject(node.getPath(), node.getType(), node.getDefaultValue());
+    }
+}
@@ -0,0 +1,74 @@
+package io.github.townyadvanced.commentedconfiguration.setting;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * The base of the {@link TypedValueNode}s holding a primitive value, which {@link Settings} and
+ * {@link SettingsSnapshot} can read without boxing.
+ * <p>
+ * Values are read the same way as the matching getter of the configuration, such as
+ * {@link org.bukkit.configuration.ConfigurationSection#getInt(String, int)}: any number is converted to the node's
+ * type, so {@code 5.9} resolves to {@code 5} for an int node, and everything else resolves to the default value.
+ *
+ * @param <T> The boxed type of the node value.
+ */
+abstract class PrimitiveNode<T> extends SimpleNode<T> {
+
+    /**
+     * Creates a new node with the given path, type, default value and comments.
+     *
+     * @param path          The path of the node.
+     * @param type          The boxed type of the node value.
+     * @param defaultValue  The default value of the node.
+     * @param comments      The comments of the node.
+     */
+    PrimitiveNode(@NotNull String path, @NotNull Class<T> type, @NotNull T defaultValue, @NotNull String[] comments) {
+        super(path, type, defaultValue, comments);
+    }
+
+    /**
+     * The base of the builders of primitive nodes, returning the builder of the specific node type.
+     *
+     * @param <T> The boxed type of the node value.
+     * @param <B> The type of the builder.
+     */
+    abstract static class Builder<T, B extends Builder<T, B>> extends SimpleNode.Builder<T> {
+        /**
+         * Creates a new builder with the given path and type.
+         *
+         * @param path          The path of the node.
+         * @param type          The boxed type of the node value.
+         * @param defaultValue  The default value of the node, used if none is set.
+         */
+        Builder(@NotNull String path, @NotNull Class<T> type, @NotNull T defaultValue) {
+            super(path, type);
+            this.defaultValue = defaultValue;
+        }
+
+        /**
+         * Sets the default value of the node.
+         *
+         * @param defaultValue  The default value of the node, must not be null.
+         * @return This builder.
+         */
+        @Override
+        public B defaultValue(@NotNull T defaultValue) {
+            this.defaultValue = defaultValue;
+            return self();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public B comment(@NotNull String comment) {
+            super.comment(comment);
+            return self();
+        }
+
+        @SuppressWarnings("unchecked")
+        private B self() {
+            return (B) this;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package io.github.townyadvanced.commentedconfiguration.setting;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A {@link CommentedNode} that only adds comments to a section, such as a header, without a value of its own.
+ * Unlike a {@link ValueNode}, it is not given a slot in {@link Settings}, so it is never resolved, snapshotted or
+ * passed to listeners.
+ */
+public class SectionNode implements CommentedNode {
+
+    /**
+     * A builder for {@link SectionNode}.
+     *
+     * @param path  The path of the section.
+     * @return A new builder.
+     */
+    public static Builder builder(@NotNull String path) {
+        return new Builder(path);
+    }
+
+    private final String path;
+    private final String[] comments;
+
+    /**
+     * Creates a new node with the given path and comments.
+     *
+     * @param path      The path of the section.
+     * @param comments  The comments of the section.
+     */
+    public SectionNode(@NotNull String path, @NotNull String[] comments) {
+        this.path = path;
+        this.comments = comments;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull String getPath() {
+        return path;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull String[] getComments() {
+        return comments;
+    }
+
+    /**
+     * A builder for {@link SectionNode}s.
+     */
+    public static class Builder {
+        private final String path;
+        private final List<String> comments = new ArrayList<>();
+
+        /**
+         * Creates a new builder with the given path.
+         *
+         * @param path  The path of the section.
+         */
+        protected Builder(@NotNull String path) {
+            this.path = path;
+        }
+
+        /**
+         * Adds a comment line to the section.
+         * Automatically adds a comment prefix "#" if the comment doesn't start with one.
+         *
+         * @param comment  The comment to add.
+         * @return This builder.
+         */
+        public Builder comment(@NotNull String comment) {
+            if (!comment.isEmpty() && !comment.startsWith("#")) {
+                comment = "# " + comment;
+            }
+            this.comments.add(comment);
+            return this;
+        }
+
+        /**
+         * Builds the node.
+         *
+         * @return The node.
+         */
+        public SectionNode build() {
+            return new SectionNode(path, comments.toArray(new String[0]));
+        }
+    }
+}
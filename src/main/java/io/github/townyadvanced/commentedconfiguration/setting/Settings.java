@@ -3,10 +3,31 @@ package io.github.townyadvanced.commentedconfiguration.setting;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import io.github.townyadvanced.commentedconfiguration.CommentedConfiguration;
+import io.github.townyadvanced.commentedconfiguration.Durability;
+import io.github.townyadvanced.commentedconfiguration.LoadResult;
+import io.github.townyadvanced.commentedconfiguration.MetricsListener;
+import io.github.townyadvanced.commentedconfiguration.SaveResult;
+import io.github.townyadvanced.commentedconfiguration.SerializedConfiguration;
+import io.github.townyadvanced.commentedconfiguration.core.Comments;
 import org.bukkit.plugin.Plugin;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -17,7 +38,23 @@ import org.jetbrains.annotations.Nullable;
 public class Settings {
     private final CommentedConfiguration config;
     private final Path configPath;
-    private final List<CommentedNode> defaultNodes;
+    private final NodeSlots nodeSlots;
+    private final DefaultNodes defaults;
+    private volatile SettingsSnapshot snapshot;
+    private final Object stateLock = new Object();
+    private final AtomicReferenceArray<List<NodeChangeListener<Object>>> listeners;
+    private volatile LongAdder[] accessCounts;
+    private volatile boolean modified;
+    private long changes;
+    private long savedChanges;
+    private volatile SettingsJournal journal;
+
+    private final AtomicLong saveSequence = new AtomicLong();
+    private final Object writeLock = new Object();
+    private long writtenSequence;
+    private final Object pendingLock = new Object();
+    private PendingSave pendingSave;
+    private ExecutorService saveExecutor;
 
     /**
      * Creates a new CommentedSettings instance that makes use of CommentedConfiguration.
@@ -27,9 +64,7 @@ public class Settings {
      * @param defaultNodes  The default node values to add to the configuration.
      */
     public Settings(@NotNull Path configPath, @NotNull Plugin plugin, @Nullable List<CommentedNode> defaultNodes) {
-        this.config = new CommentedConfiguration(configPath, plugin);
-        this.configPath = configPath;
-        this.defaultNodes = defaultNodes;
+        this(configPath, plugin.getLogger(), defaultNodes);
     }
 
     /**
@@ -40,13 +75,49 @@ public class Settings {
      * @param defaultNodes  The default node values to add to the configuration.
      */
     public Settings(@NotNull Path configPath, @Nullable Logger logger, @Nullable List<CommentedNode> defaultNodes) {
+        this(configPath, logger, defaultNodes, null);
+    }
+
+    /**
+     * Creates a new CommentedSettings instance with the comment blocks of its nodes built ahead by
+     * {@link #buildComments(List)}, so that settings created from the same nodes, such as by a generated settings
+     * class, share them instead of each building their own.
+     *
+     * @param configPath    The path to the configuration file.
+     * @param logger        The Logger to use for error messages.
+     * @param defaultNodes  The default node values to add to the configuration.
+     * @param comments      The comments of the default nodes, or null to build them. They are only read.
+     */
+    public Settings(@NotNull Path configPath, @Nullable Logger logger, @Nullable List<CommentedNode> defaultNodes,
+                    @Nullable Comments comments) {
         this.config = new CommentedConfiguration(configPath, logger);
         this.configPath = configPath;
-        this.defaultNodes = defaultNodes;
+        this.nodeSlots = new NodeSlots(defaultNodes);
+        this.defaults = new DefaultNodes(defaultNodes, nodeSlots, comments);
+        this.snapshot = new SettingsSnapshot(nodeSlots, config);
+        this.listeners = new AtomicReferenceArray<>(nodeSlots.size());
+    }
+
+    /**
+     * Builds the comment blocks of nodes once, to be shared by all settings created from them.
+     *
+     * @param nodes The nodes to build the comment blocks of.
+     * @return The comments of the nodes, to pass to {@link #Settings(Path, Logger, List, Comments)}.
+     */
+    public static @NotNull Comments buildComments(@Nullable List<CommentedNode> nodes) {
+        return DefaultNodes.commentsOf(nodes);
     }
 
     /**
      * Loads the configuration.
+     * <p>
+     * The file is loaded into the same configuration object every time, so {@link #getConfig()} can be kept across
+     * reloads. Threads reading registered nodes through {@link #get(ValueNode)} keep seeing the previous values until
+     * the file is fully loaded, and {@link #set(ValueNode, Object)} waits for the load to finish. The configuration
+     * itself, which also backs nodes that were not registered, is cleared and refilled while loading; in
+     * {@link #setConcurrent(boolean) concurrent} mode that happens under its write lock together with adding the
+     * defaults, so other threads see either the old values or the new ones, otherwise it must not be read from other
+     * threads while loading. If loading fails, the current values are kept.
      *
      * @return True if the configuration was loaded successfully, false otherwise.
      */
@@ -54,13 +125,84 @@ public class Settings {
         if (!createConfigFile()) {
             return false;
         }
-        if (!config.load()) {
+        SettingsSnapshot oldSnapshot;
+        SettingsSnapshot newSnapshot;
+        synchronized (stateLock) {
+            oldSnapshot = snapshot;
+            if (!loadLocked()) {
+                return false;
+            }
+            newSnapshot = snapshot;
+        }
+        fireChanges(oldSnapshot, newSnapshot);
+        return true;
+    }
+
+    /**
+     * Loads the file into the configuration and resolves all nodes. Must be called while holding the stateLock.
+     *
+     * @return True if the configuration was loaded successfully, false otherwise.
+     */
+    private boolean loadLocked() {
+        boolean loaded = config.load(loadedConfig -> {
+            defaults.mergeInto(loadedConfig);
+            replayJournal(loadedConfig);
+        });
+        if (!loaded) {
             return false;
         }
-        addDefaultNodes();
+        snapshot = new SettingsSnapshot(nodeSlots, config);
+        modified = false;
+        savedChanges = changes;
         return true;
     }
 
+    /**
+     * Loads the configuration if the file changed since it was last loaded or saved.
+     * <p>
+     * While the file's size and modification time are unchanged this is only a stat, otherwise the file is hashed
+     * and only parsed if its contents changed. Values set through {@link #set(ValueNode, Object)} since the last
+     * load always cause a full load, so they are replaced by what is in the file like with {@link #load()}.
+     * Changes made directly to {@link #getConfig()} are not tracked.
+     *
+     * @return Whether new values were loaded, the file was unchanged, or loading failed.
+     */
+    public @NotNull LoadResult reload() {
+        if (!modified && config.isUnchangedOnDisk()) {
+            return LoadResult.UNCHANGED;
+        }
+        return load() ? LoadResult.LOADED : LoadResult.FAILED;
+    }
+
+    /**
+     * Loads the file if it was changed by someone else since it was last loaded or saved, for the
+     * {@link SettingsWatcher}. Nothing is loaded while values set through {@link #set(ValueNode, Object)} have not
+     * been saved, as loading would drop them; the next save writes them over the changed file instead.
+     *
+     * @return Whether new values were loaded, nothing was loaded, or loading failed.
+     */
+    @NotNull LoadResult reloadChangedFile() {
+        SettingsSnapshot oldSnapshot;
+        SettingsSnapshot newSnapshot;
+        synchronized (stateLock) {
+            if (!config.isModifiedOnDisk()) {
+                return LoadResult.UNCHANGED;
+            }
+            if (changes != savedChanges) {
+                config.getLogger().warning(String.format("%s was changed on disk, but is not reloaded as it has "
+                        + "unsaved changes.", configPath));
+                return LoadResult.UNCHANGED;
+            }
+            oldSnapshot = snapshot;
+            if (!loadLocked()) {
+                return LoadResult.FAILED;
+            }
+            newSnapshot = snapshot;
+        }
+        fireChanges(oldSnapshot, newSnapshot);
+        return LoadResult.LOADED;
+    }
+
     /**
      * Create a new config file if file does not exist
      *
@@ -82,27 +224,418 @@ public class Settings {
     }
 
     /**
-     * Adds default node values to the configuration if they are not already present.
+     * Saves the configuration, using the durability set with {@link #setDurability(Durability)}.
+     * The file is left untouched if it already holds exactly what would be written.
+     * Use {@link #saveWithResult()} to find out whether the file was written.
      */
-    private void addDefaultNodes() {
-        if (defaultNodes == null || defaultNodes.isEmpty()) {
-            return;
+    public void save() {
+        save(config.getDurability());
+    }
+
+    /**
+     * Saves the configuration, using the durability set with {@link #setDurability(Durability)}.
+     * The file is left untouched if it already holds exactly what would be written.
+     *
+     * @return Whether the file was written, was already up-to-date or failed to be written.
+     */
+    public @NotNull SaveResult saveWithResult() {
+        return save(config.getDurability());
+    }
+
+    /**
+     * Saves the configuration.
+     * The file is left untouched if it already holds exactly what would be written. The comments are merged in
+     * after the values are serialized, outside the lock that {@link #set(ValueNode, Object)} waits for.
+     *
+     * @param durability    How the file should be written.
+     * @return Whether the file was written, was already up-to-date or failed to be written.
+     */
+    public @NotNull SaveResult save(@NotNull Durability durability) {
+        SettingsJournal currentJournal;
+        long sequence;
+        long journalMark;
+        long changeMark;
+        SerializedConfiguration serialized;
+        synchronized (stateLock) {
+            currentJournal = journal;
+            sequence = saveSequence.incrementAndGet();
+            journalMark = currentJournal == null ? 0 : currentJournal.mark();
+            changeMark = changes;
+            // Serialized with the sequence, so a later save never holds older values.
+            serialized = config.serialize();
+        }
+        SaveResult result = write(sequence, () -> config.save(serialized, durability));
+        if (result != SaveResult.FAILED) {
+            compactJournal(currentJournal, journalMark);
+            markSaved(changeMark);
+        }
+        return result;
+    }
+
+    /**
+     * Saves the configuration on a background thread.
+     * <p>
+     * The configuration is serialized on the calling thread, so later changes will not end up in this save.
+     * Saves that are requested while an earlier one is still waiting to be written are coalesced: only the
+     * newest contents are written and all of those requests share the same future.
+     * <p>
+     * Call {@link #shutdown()} when the settings are no longer used to make sure pending saves are written.
+     *
+     * @return A future that completes with the result once the contents have been written.
+     */
+    public @NotNull CompletableFuture<SaveResult> saveAsync() {
+        SettingsJournal currentJournal;
+        long sequence;
+        long journalMark;
+        long changeMark;
+        SerializedConfiguration serialized;
+        synchronized (stateLock) {
+            currentJournal = journal;
+            sequence = saveSequence.incrementAndGet();
+            journalMark = currentJournal == null ? 0 : currentJournal.mark();
+            changeMark = changes;
+            // The comments are merged in now rather than while writing, as they may change before the save runs.
+            serialized = config.serializeWithComments();
         }
-        for (CommentedNode node : defaultNodes) {
-            if (node.getComments().length > 0) {
-                config.addComment(node.getPath(), node.getComments());
+        Durability durability = config.getDurability();
+        synchronized (pendingLock) {
+            if (pendingSave == null) {
+                pendingSave = new PendingSave();
+                getSaveExecutor().execute(this::writePendingSave);
             }
-            if (node instanceof ValueNode && config.get(node.getPath()) == null) {
-                config.set(node.getPath(), ((ValueNode)node).getDefaultValue());
+            pendingSave.sequence = sequence;
+            pendingSave.serialized = serialized;
+            pendingSave.durability = durability;
+            pendingSave.journal = currentJournal;
+            pendingSave.journalMark = journalMark;
+            pendingSave.changeMark = changeMark;
+            return pendingSave.future;
+        }
+    }
+
+    /**
+     * Waits for pending asynchronous saves to be written and stops the background thread.
+     * A later {@link #saveAsync()} will start a new one.
+     *
+     * @return True if all pending saves finished writing, false if interrupted or timed out while waiting.
+     */
+    public boolean shutdown() {
+        SettingsJournal currentJournal = journal;
+        if (currentJournal != null) {
+            currentJournal.sync();
+        }
+        ExecutorService executor;
+        synchronized (pendingLock) {
+            executor = saveExecutor;
+            saveExecutor = null;
+        }
+        if (executor == null) {
+            return true;
+        }
+        executor.shutdown();
+        try {
+            return executor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Gets the executor that writes asynchronous saves, creating it if needed.
+     * Must be called while holding the pendingLock.
+     *
+     * @return The single thread executor for this file.
+     */
+    private ExecutorService getSaveExecutor() {
+        if (saveExecutor == null) {
+            String threadName = "CommentedConfiguration Saver - " + configPath.getFileName();
+            saveExecutor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, threadName);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return saveExecutor;
+    }
+
+    /**
+     * Writes the newest pending asynchronous save, run on the save executor. The future of the save always
+     * completes, exceptionally if writing it threw.
+     */
+    private void writePendingSave() {
+        PendingSave save;
+        synchronized (pendingLock) {
+            save = pendingSave;
+            pendingSave = null;
+        }
+        try {
+            SaveResult result = write(save.sequence, () -> config.save(save.serialized, save.durability));
+            if (result != SaveResult.FAILED) {
+                compactJournal(save.journal, save.journalMark);
+                markSaved(save.changeMark);
             }
+            save.future.complete(result);
+        } catch (RuntimeException | Error e) {
+            save.future.completeExceptionally(e);
+            throw e;
         }
     }
 
     /**
-     * Saves the configuration.
+     * Records that the values set before a save are in the file.
+     *
+     * @param changeMark    How many values had been set when the configuration was serialized.
      */
-    public void save() {
-        config.save();
+    private void markSaved(long changeMark) {
+        synchronized (stateLock) {
+            savedChanges = Math.max(savedChanges, changeMark);
+        }
+    }
+
+    /**
+     * Writes serialized contents to file, unless contents that were serialized later have already been written.
+     *
+     * @param sequence  The order in which the contents were serialized.
+     * @param writer    Writes the contents to file.
+     * @return Whether the file was written, was already up-to-date or failed to be written.
+     */
+    private SaveResult write(long sequence, Supplier<SaveResult> writer) {
+        synchronized (writeLock) {
+            if (sequence < writtenSequence) {
+                return SaveResult.UNCHANGED;
+            }
+            SaveResult result = writer.get();
+            if (result != SaveResult.FAILED) {
+                writtenSequence = sequence;
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Gets the durability used by {@link #save()}.
+     *
+     * @return The durability used when saving.
+     */
+    public @NotNull Durability getDurability() {
+        return config.getDurability();
+    }
+
+    /**
+     * Sets the durability used by {@link #save()}, trading the cost of syncing the file against the
+     * chance of losing it on a crash. Defaults to {@link Durability#ATOMIC}.
+     *
+     * @param durability    The durability to use when saving.
+     */
+    public void setDurability(@NotNull Durability durability) {
+        config.setDurability(durability);
+    }
+
+    /**
+     * Starts recording every value set through {@link #set(ValueNode, Object)} in a journal next to the
+     * configuration file, so that runtime changes survive a crash without saving the whole file each time.
+     * <p>
+     * Recorded values are synced to disk in batches, at most the sync delay after they were set. They are applied
+     * again by {@link #load()}, so enable the journal before loading. A save drops the values it wrote to the file
+     * from the journal; use {@link Durability#SYNC} if the file must be on disk before they are dropped.
+     *
+     * @param syncDelay How long set values may wait before they are synced to disk, zero to sync on every set.
+     * @param unit      The unit of the sync delay.
+     * @throws IOException if the journal cannot be opened.
+     */
+    public void enableJournal(long syncDelay, @NotNull TimeUnit unit) throws IOException {
+        SettingsJournal newJournal = new SettingsJournal(SettingsJournal.pathFor(configPath), syncDelay, unit,
+                config.getLogger());
+        SettingsJournal oldJournal;
+        synchronized (stateLock) {
+            oldJournal = journal;
+            journal = newJournal;
+        }
+        if (oldJournal != null) {
+            oldJournal.close();
+        }
+    }
+
+    /**
+     * Syncs and closes the journal. Values still in it are applied again once it is enabled and loaded.
+     */
+    public void disableJournal() {
+        SettingsJournal oldJournal;
+        synchronized (stateLock) {
+            oldJournal = journal;
+            journal = null;
+        }
+        if (oldJournal != null) {
+            oldJournal.close();
+        }
+    }
+
+    /**
+     * Gets whether set values are recorded in a journal.
+     *
+     * @return True if the journal is enabled.
+     */
+    public boolean isJournalEnabled() {
+        return journal != null;
+    }
+
+    /**
+     * Records a set value in the journal, if it is enabled. Must be called while holding the stateLock,
+     * so the journal is in the same order as the changes.
+     *
+     * @param path  The path the value was set at.
+     * @param value The value that was set.
+     */
+    private void appendJournal(String path, Object value) {
+        SettingsJournal currentJournal = journal;
+        if (currentJournal == null) {
+            return;
+        }
+        try {
+            currentJournal.append(path, value);
+        } catch (IOException e) {
+            config.getLogger().warning(String.format("Failed to record %s in the journal of %s: %s", path,
+                    configPath, e.getMessage()));
+        }
+    }
+
+    /**
+     * Applies the values recorded in the journal to a freshly loaded configuration, if the journal is enabled.
+     *
+     * @param newConfig The configuration to apply the values to.
+     */
+    private void replayJournal(CommentedConfiguration newConfig) {
+        SettingsJournal currentJournal = journal;
+        if (currentJournal == null) {
+            return;
+        }
+        try {
+            currentJournal.replay(newConfig);
+        } catch (IOException e) {
+            newConfig.getLogger().warning(String.format("Failed to replay the journal of %s: %s", configPath,
+                    e.getMessage()));
+        }
+    }
+
+    /**
+     * Drops the values that were saved to the file from the journal.
+     *
+     * @param savedJournal  The journal that was enabled when the configuration was serialized, or null.
+     * @param mark          How far the journal was when the configuration was serialized.
+     */
+    private void compactJournal(@Nullable SettingsJournal savedJournal, long mark) {
+        if (savedJournal == null) {
+            return;
+        }
+        try {
+            savedJournal.compact(mark);
+        } catch (IOException e) {
+            config.getLogger().warning(String.format("Failed to compact the journal of %s: %s", configPath,
+                    e.getMessage()));
+        }
+    }
+
+    /**
+     * Gets whether parsed files are cached.
+     *
+     * @return True if the parse cache is used.
+     */
+    public boolean isParseCacheEnabled() {
+        return config.isParseCacheEnabled();
+    }
+
+    /**
+     * Sets whether parsed files are cached next to the configuration file, so that {@link #load()} can skip
+     * parsing the yaml while the file is unchanged. Off by default.
+     *
+     * @param parseCache    Whether to use the parse cache.
+     */
+    public void setParseCacheEnabled(boolean parseCache) {
+        config.setParseCacheEnabled(parseCache);
+    }
+
+    /**
+     * Gets whether saves only rewrite the values that changed.
+     *
+     * @return True if saves patch the file.
+     */
+    public boolean isPatchSaving() {
+        return config.isPatchSaving();
+    }
+
+    /**
+     * Sets whether saves only rewrite the values that changed since the file was last loaded or saved, see
+     * {@link CommentedConfiguration#setPatchSaving(boolean)}. This applies to {@link #save()} and
+     * {@link #saveAsync()} alike, from the next load or save on. Off by default.
+     *
+     * @param patchSaving   Whether saves patch the file.
+     */
+    public void setPatchSaving(boolean patchSaving) {
+        config.setPatchSaving(patchSaving);
+    }
+
+    /**
+     * Gets whether top level sections are parsed the first time they are used.
+     *
+     * @return True if the configuration is loaded lazily.
+     */
+    public boolean isLazyLoading() {
+        return config.isLazyLoading();
+    }
+
+    /**
+     * Sets whether top level sections are parsed the first time they are used, through {@link #get} or
+     * {@link #getConfig()}. Sections holding registered nodes are parsed on load, as their defaults are merged in;
+     * sections that are never used are saved exactly as they were read. Off by default.
+     * <p>
+     * Registered nodes are read from the snapshot and stay safe to use from any thread. Reading anything else from
+     * the configuration parses it on first use, which changes the configuration, so that is only safe from several
+     * threads at once in {@link #setConcurrent(boolean) concurrent} mode.
+     *
+     * @param lazyLoading   Whether to load the configuration lazily.
+     */
+    public void setLazyLoading(boolean lazyLoading) {
+        config.setLazyLoading(lazyLoading);
+    }
+
+    /**
+     * Gets whether the configuration guards its values for use from many threads.
+     *
+     * @return True if the configuration is in concurrent mode.
+     */
+    public boolean isConcurrent() {
+        return config.isConcurrent();
+    }
+
+    /**
+     * Sets whether the configuration guards its values for use from many threads. Registered nodes are always safe
+     * to use from any thread, through the snapshot; concurrent mode also makes it safe to use {@link #getConfig()}
+     * by path, or to add comments, while another thread sets a node or saves. Off by default, and kept across
+     * reloads. Only change it while no other thread is using the settings.
+     *
+     * @param concurrent    Whether to use the configuration from many threads.
+     */
+    public void setConcurrent(boolean concurrent) {
+        config.setConcurrent(concurrent);
+    }
+
+    /**
+     * Adds a listener that receives the timings and sizes of every load and save.
+     *
+     * @param listener  The listener to add.
+     */
+    public void addMetricsListener(@NotNull MetricsListener listener) {
+        config.addMetricsListener(listener);
+    }
+
+    /**
+     * Removes a listener added with {@link #addMetricsListener(MetricsListener)}.
+     *
+     * @param listener  The listener to remove.
+     */
+    public void removeMetricsListener(@NotNull MetricsListener listener) {
+        config.removeMetricsListener(listener);
     }
 
     /**
@@ -112,7 +645,12 @@ public class Settings {
      * @return The value of the node.
      */
     public Object get(@NotNull ValueNode node) {
-        return config.get(node.getPath(), node.getDefaultValue());
+        int slot = nodeSlots.slotOf(node);
+        if (slot < 0) {
+            return config.get(node.getPath(), node.getDefaultValue());
+        }
+        countAccess(slot);
+        return snapshot.valueAt(slot);
     }
 
     /**
@@ -124,7 +662,13 @@ public class Settings {
      * @param <T> The type of the node value.
      */
     public <T> T get(@NotNull ValueNode node, Class<T> type) {
-        return config.getObject(node.getPath(), type, (T) node.getDefaultValue());
+        int slot = nodeSlots.slotOf(node);
+        if (slot < 0) {
+            return config.getObject(node.getPath(), type, (T) node.getDefaultValue());
+        }
+        countAccess(slot);
+        Object value = snapshot.valueAt(slot);
+        return type.isInstance(value) ? type.cast(value) : (T) node.getDefaultValue();
     }
 
     /**
@@ -134,8 +678,188 @@ public class Settings {
      * @return The value of the node.
      * @param <T> The type of the node value.
      */
+    @SuppressWarnings("unchecked")
     public <T> T get(@NotNull TypedValueNode<T> node) {
-        return config.getObject(node.getPath(), node.getType(), node.getDefaultValue());
+        int slot = nodeSlots.slotOf(node);
+        if (slot < 0) {
+            return config.getObject(node.getPath(), node.getType(), node.getDefaultValue());
+        }
+        countAccess(slot);
+        return (T) snapshot.valueAt(slot);
+    }
+
+    /**
+     * Gets the value of an int node without boxing, if the node is not found its default value will be returned.
+     *
+     * @param node  The node to get the value of.
+     * @return The value of the node.
+     */
+    public int getInt(@NotNull IntNode node) {
+        int slot = nodeSlots.slotOf(node);
+        if (slot < 0) {
+            return config.getInt(node.getPath(), node.getDefaultInt());
+        }
+        countAccess(slot);
+        return snapshot.intAt(slot);
+    }
+
+    /**
+     * Gets the value of a long node without boxing, if the node is not found its default value will be returned.
+     *
+     * @param node  The node to get the value of.
+     * @return The value of the node.
+     */
+    public long getLong(@NotNull LongNode node) {
+        int slot = nodeSlots.slotOf(node);
+        if (slot < 0) {
+            return config.getLong(node.getPath(), node.getDefaultLong());
+        }
+        countAccess(slot);
+        return snapshot.longAt(slot);
+    }
+
+    /**
+     * Gets the value of a double node without boxing, if the node is not found its default value will be returned.
+     *
+     * @param node  The node to get the value of.
+     * @return The value of the node.
+     */
+    public double getDouble(@NotNull DoubleNode node) {
+        int slot = nodeSlots.slotOf(node);
+        if (slot < 0) {
+            return config.getDouble(node.getPath(), node.getDefaultDouble());
+        }
+        countAccess(slot);
+        return snapshot.doubleAt(slot);
+    }
+
+    /**
+     * Gets the value of a boolean node without boxing, if the node is not found its default value will be returned.
+     *
+     * @param node  The node to get the value of.
+     * @return The value of the node.
+     */
+    public boolean getBoolean(@NotNull BooleanNode node) {
+        int slot = nodeSlots.slotOf(node);
+        if (slot < 0) {
+            return config.getBoolean(node.getPath(), node.getDefaultBoolean());
+        }
+        countAccess(slot);
+        return snapshot.booleanAt(slot);
+    }
+
+    /**
+     * Counts a read of the node in a slot, if access tracking is enabled.
+     *
+     * @param slot  The slot of the node that was read.
+     */
+    private void countAccess(int slot) {
+        LongAdder[] counts = accessCounts;
+        if (counts != null) {
+            counts[slot].increment();
+        }
+    }
+
+    /**
+     * Enables or disables counting how often each registered node is read through the getters of these settings.
+     * Reads are not counted by default; enabling tracking starts all counts at zero again.
+     *
+     * @param enabled   Whether reads should be counted.
+     */
+    public void setAccessTracking(boolean enabled) {
+        if (!enabled) {
+            accessCounts = null;
+            return;
+        }
+        LongAdder[] counts = new LongAdder[nodeSlots.size()];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = new LongAdder();
+        }
+        accessCounts = counts;
+    }
+
+    /**
+     * Gets whether reads of nodes are being counted.
+     *
+     * @return True if access tracking is enabled.
+     */
+    public boolean isAccessTracking() {
+        return accessCounts != null;
+    }
+
+    /**
+     * Gets how often each registered node was read since access tracking was enabled, most read first.
+     * Nodes that were never read are included with a count of zero.
+     *
+     * @return The read counts of all registered nodes, or an empty map if access tracking is disabled.
+     */
+    public @NotNull Map<ValueNode, Long> getAccessCounts() {
+        LongAdder[] counts = accessCounts;
+        Map<ValueNode, Long> report = new LinkedHashMap<>();
+        if (counts == null) {
+            return report;
+        }
+        List<Integer> slots = new ArrayList<>(counts.length);
+        long[] sums = new long[counts.length];
+        for (int i = 0; i < counts.length; i++) {
+            slots.add(i);
+            sums[i] = counts[i].sum();
+        }
+        slots.sort(Comparator.comparingLong((Integer slot) -> sums[slot]).reversed());
+        for (int slot : slots) {
+            report.put(nodeSlots.nodeAt(slot), sums[slot]);
+        }
+        return report;
+    }
+
+    /**
+     * Logs how often each registered node was read, most read first, followed by the nodes that were never read.
+     */
+    public void logAccessCounts() {
+        Logger log = config.getLogger();
+        if (!isAccessTracking()) {
+            log.info(String.format("Access tracking is disabled for %s.", configPath));
+            return;
+        }
+        StringBuilder report = new StringBuilder(String.format("Node reads for %s:", configPath));
+        List<String> unread = new ArrayList<>();
+        for (Map.Entry<ValueNode, Long> entry : getAccessCounts().entrySet()) {
+            if (entry.getValue() == 0) {
+                unread.add(entry.getKey().getPath());
+            } else {
+                report.append(String.format("%n  %s: %d", entry.getKey().getPath(), entry.getValue()));
+            }
+        }
+        if (!unread.isEmpty()) {
+            report.append(String.format("%nNever read: %s", String.join(", ", unread)));
+        }
+        log.info(report.toString());
+    }
+
+    /**
+     * Resolves the values of all registered nodes from the configuration again, so that changes made directly to
+     * {@link #getConfig()} are seen by {@link #get(ValueNode)} and the other getters. Listeners are called for
+     * every node whose value changed.
+     */
+    public void refresh() {
+        SettingsSnapshot oldSnapshot;
+        SettingsSnapshot newSnapshot;
+        synchronized (stateLock) {
+            oldSnapshot = snapshot;
+            newSnapshot = new SettingsSnapshot(nodeSlots, config);
+            snapshot = newSnapshot;
+        }
+        fireChanges(oldSnapshot, newSnapshot);
+    }
+
+    /**
+     * Gets the current values of all registered nodes. The snapshot never changes, use this to read several
+     * values that must be consistent with each other while the settings may be reloaded or set concurrently.
+     *
+     * @return The current snapshot.
+     */
+    public @NotNull SettingsSnapshot getSnapshot() {
+        return snapshot;
     }
 
     /**
@@ -145,7 +869,7 @@ public class Settings {
      * @param value The value to set.
      */
     public void set(@NotNull ValueNode node, Object value) {
-        config.set(node.getPath(), value);
+        setValue(node, value);
     }
 
     /**
@@ -156,15 +880,166 @@ public class Settings {
      * @param <T> The type of the node value.
      */
     public <T> void set(@NotNull TypedValueNode<T> node, T value) {
-        config.set(node.getPath(), value);
+        setValue(node, value);
+    }
+
+    /**
+     * Sets the value of a node and updates the snapshot. Only the slots of the node and of the registered nodes
+     * nested in or around it are resolved again, all of them if the node is not registered.
+     *
+     * @param node  The node to set the value of.
+     * @param value The value to set.
+     */
+    private void setValue(ValueNode node, Object value) {
+        int slot = nodeSlots.slotOf(node);
+        int[] changed = slot < 0 ? null : nodeSlots.affectedBy(slot);
+        SettingsSnapshot oldSnapshot;
+        SettingsSnapshot newSnapshot;
+        synchronized (stateLock) {
+            config.set(node.getPath(), value);
+            modified = true;
+            changes++;
+            appendJournal(node.getPath(), value);
+            oldSnapshot = snapshot;
+            newSnapshot = changed == null ? new SettingsSnapshot(nodeSlots, config) : oldSnapshot.withSlots(changed, config);
+            snapshot = newSnapshot;
+        }
+        if (changed == null) {
+            fireChanges(oldSnapshot, newSnapshot);
+            return;
+        }
+        for (int changedSlot : changed) {
+            fireChange(changedSlot, oldSnapshot, newSnapshot);
+        }
+    }
+
+    /**
+     * Adds a listener that is called whenever the value of a registered node changes.
+     * The values are passed to the listener as they are, without checking their type.
+     *
+     * @param node      The node to listen to.
+     * @param listener  The listener to add.
+     * @param <T> The type the listener expects the node value to have.
+     * @throws IllegalArgumentException if the node was not registered with these settings.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> void addListener(@NotNull ValueNode node, @NotNull NodeChangeListener<T> listener) {
+        int slot = listenerSlot(node);
+        List<NodeChangeListener<Object>> slotListeners = listeners.get(slot);
+        if (slotListeners == null) {
+            listeners.compareAndSet(slot, null, new CopyOnWriteArrayList<>());
+            slotListeners = listeners.get(slot);
+        }
+        slotListeners.add((NodeChangeListener<Object>) listener);
+    }
+
+    /**
+     * Adds a listener that is called whenever the value of a registered node changes.
+     *
+     * @param node      The node to listen to.
+     * @param listener  The listener to add.
+     * @param <T> The type of the node value.
+     * @throws IllegalArgumentException if the node was not registered with these settings.
+     */
+    public <T> void addListener(@NotNull TypedValueNode<T> node, @NotNull NodeChangeListener<T> listener) {
+        addListener((ValueNode) node, listener);
+    }
+
+    /**
+     * Removes a listener from a node.
+     *
+     * @param node      The node the listener was added to.
+     * @param listener  The listener to remove.
+     */
+    public void removeListener(@NotNull ValueNode node, @NotNull NodeChangeListener<?> listener) {
+        int slot = nodeSlots.slotOf(node);
+        if (slot < 0) {
+            return;
+        }
+        List<NodeChangeListener<Object>> slotListeners = listeners.get(slot);
+        if (slotListeners != null) {
+            slotListeners.remove(listener);
+        }
+    }
+
+    private int listenerSlot(ValueNode node) {
+        int slot = nodeSlots.slotOf(node);
+        if (slot < 0) {
+            throw new IllegalArgumentException("Node " + node.getPath() + " is not registered with these settings.");
+        }
+        return slot;
+    }
+
+    /**
+     * Calls the listeners of every node whose value differs between two snapshots.
+     *
+     * @param oldSnapshot   The snapshot before the change.
+     * @param newSnapshot   The snapshot after the change.
+     */
+    private void fireChanges(SettingsSnapshot oldSnapshot, SettingsSnapshot newSnapshot) {
+        for (int slot = 0; slot < listeners.length(); slot++) {
+            fireChange(slot, oldSnapshot, newSnapshot);
+        }
+    }
+
+    /**
+     * Calls the listeners of the node in a slot, if its value differs between two snapshots.
+     *
+     * @param slot          The slot of the node.
+     * @param oldSnapshot   The snapshot before the change.
+     * @param newSnapshot   The snapshot after the change.
+     */
+    private void fireChange(int slot, SettingsSnapshot oldSnapshot, SettingsSnapshot newSnapshot) {
+        List<NodeChangeListener<Object>> slotListeners = listeners.get(slot);
+        if (slotListeners == null || slotListeners.isEmpty()) {
+            return;
+        }
+        Object oldValue = oldSnapshot.valueAt(slot);
+        Object newValue = newSnapshot.valueAt(slot);
+        if (Objects.equals(oldValue, newValue)) {
+            return;
+        }
+        for (NodeChangeListener<Object> listener : slotListeners) {
+            try {
+                listener.onChange(oldValue, newValue);
+            } catch (RuntimeException e) {
+                config.getLogger().log(Level.WARNING, "Listener for node " + nodeSlots.nodeAt(slot).getPath() + " failed.", e);
+            }
+        }
+    }
+
+    /**
+     * Gets the path to the configuration file.
+     *
+     * @return The path to the configuration file.
+     */
+    public @NotNull Path getConfigPath() {
+        return configPath;
     }
 
     /**
      * Gets the configuration object.
+     * <p>
+     * Values of registered nodes are resolved on {@link #load()} and {@link #set(ValueNode, Object)}, so changes
+     * made directly to the configuration object are only seen by {@link #get(ValueNode)} and the other getters of
+     * these settings after {@link #refresh()}. The same object is kept across reloads.
      *
      * @return The configuration object.
      */
     public @NotNull CommentedConfiguration getConfig() {
         return config;
     }
+
+    /**
+     * An asynchronous save that is waiting to be written.
+     */
+    private static class PendingSave {
+        private final CompletableFuture<SaveResult> future = new CompletableFuture<>();
+        private long sequence;
+        private SerializedConfiguration serialized;
+        private Durability durability;
+        private SettingsJournal journal;
+        private long journalMark;
+        private long changeMark;
+    }
 }
@@ -0,0 +1,346 @@
+package io.github.townyadvanced.commentedconfiguration.setting;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * An append-only log of the values set on a {@link Settings} since it was last saved, kept next to the
+ * configuration file so that runtime changes survive a crash without rewriting the whole file.
+ * <p>
+ * Every entry holds a path and its value as yaml, behind a length and a checksum, so a torn write at the end of
+ * the file is recognised and dropped. Appends go to the operating system straight away and are synced to disk
+ * in batches. Positions in the journal are counted from when it was opened, so that a save can mark how far the
+ * journal was when the configuration was serialized and drop everything before that once the file is written.
+ */
+final class SettingsJournal {
+    private static final String VALUE_KEY = "value";
+
+    private final Path path;
+    private final long syncDelayNanos;
+    private final Logger logger;
+    private final ScheduledExecutorService syncer;
+    private final YamlConfiguration encoder = new YamlConfiguration();
+    private FileChannel channel;
+    private long start;
+    private long end;
+    private boolean syncScheduled;
+    private boolean closed;
+
+    /**
+     * Opens the journal, keeping the entries already in it and dropping a torn entry at its end.
+     *
+     * @param path      The journal file.
+     * @param syncDelay How long appended entries may wait before they are synced to disk, zero to sync every entry.
+     * @param unit      The unit of the sync delay.
+     * @param logger    The Logger to use for error messages.
+     * @throws IOException if the journal cannot be opened.
+     */
+    SettingsJournal(@NotNull Path path, long syncDelay, @NotNull TimeUnit unit, @NotNull Logger logger) throws IOException {
+        this.path = path;
+        this.syncDelayNanos = unit.toNanos(syncDelay);
+        this.logger = logger;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long valid = readEntries(readAll(channel), null);
+        if (valid < channel.size()) {
+            channel.truncate(valid);
+        }
+        this.end = valid;
+        if (syncDelayNanos > 0) {
+            String threadName = "CommentedConfiguration Journal - " + path.getFileName();
+            this.syncer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, threadName);
+                thread.setDaemon(true);
+                return thread;
+            });
+        } else {
+            this.syncer = null;
+        }
+    }
+
+    /**
+     * Gets where the journal of a configuration file is stored.
+     *
+     * @param configPath    The configuration file.
+     * @return The hidden journal file next to the configuration file.
+     */
+    static @NotNull Path pathFor(@NotNull Path configPath) {
+        return configPath.resolveSibling("." + configPath.getFileName() + ".journal");
+    }
+
+    /**
+     * Appends a value that was set. It is synced to disk within the sync delay.
+     *
+     * @param nodePath  The path the value was set at.
+     * @param value     The value that was set, null if it was removed.
+     * @throws IOException if the journal cannot be written to.
+     */
+    synchronized void append(@NotNull String nodePath, @Nullable Object value) throws IOException {
+        if (closed) {
+            return;
+        }
+        encoder.set(VALUE_KEY, value);
+        String yaml = encoder.saveToString();
+        encoder.set(VALUE_KEY, null);
+
+        byte[] pathBytes = nodePath.getBytes(StandardCharsets.UTF_8);
+        byte[] valueBytes = yaml.getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream payload = new ByteArrayOutputStream(4 + pathBytes.length + valueBytes.length);
+        DataOutputStream out = new DataOutputStream(payload);
+        out.writeInt(pathBytes.length);
+        out.write(pathBytes);
+        out.write(valueBytes);
+        byte[] bytes = payload.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+
+        ByteBuffer entry = ByteBuffer.allocate(8 + bytes.length);
+        entry.putInt(bytes.length).putInt((int) crc.getValue()).put(bytes).flip();
+        long position = end - start;
+        while (entry.hasRemaining()) {
+            position += channel.write(entry, position);
+        }
+        end += entry.capacity();
+
+        if (syncer == null) {
+            channel.force(false);
+        } else if (!syncScheduled) {
+            syncScheduled = true;
+            syncer.schedule(this::sync, syncDelayNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Syncs the appended entries to disk.
+     */
+    void sync() {
+        FileChannel current;
+        synchronized (this) {
+            syncScheduled = false;
+            if (closed) {
+                return;
+            }
+            current = channel;
+        }
+        try {
+            // Synced outside the lock, so appends do not wait for the disk.
+            current.force(false);
+        } catch (IOException e) {
+            // A compaction replaced the channel with one that is already synced.
+            if (current.isOpen()) {
+                logger.warning(String.format("Failed to sync journal %s: %s", path, e.getMessage()));
+            }
+        }
+    }
+
+    /**
+     * Gets the position after the last entry, to be passed to {@link #compact(long)} once everything set so far
+     * has been saved.
+     *
+     * @return The current end of the journal.
+     */
+    synchronized long mark() {
+        return end;
+    }
+
+    /**
+     * Drops the entries before a mark, as they have been saved to the configuration file.
+     *
+     * @param mark  A position returned by {@link #mark()}.
+     * @throws IOException if the journal cannot be rewritten.
+     */
+    synchronized void compact(long mark) throws IOException {
+        if (closed || mark <= start) {
+            return;
+        }
+        if (mark >= end) {
+            // Everything was saved. Should the truncation be lost, replaying the entries again is harmless.
+            channel.truncate(0);
+            start = end;
+            return;
+        }
+        // Keep the entries that were added while saving.
+        ByteBuffer tail = ByteBuffer.allocate((int) (end - mark));
+        long position = mark - start;
+        while (tail.hasRemaining()) {
+            int read = channel.read(tail, position);
+            if (read < 0) {
+                throw new IOException("Journal " + path + " is shorter than expected.");
+            }
+            position += read;
+        }
+        tail.flip();
+        Path temp = Files.createTempFile(path.toAbsolutePath().getParent(), path.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                while (tail.hasRemaining()) {
+                    out.write(tail);
+                }
+                out.force(false);
+            }
+            try {
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        FileChannel old = channel;
+        channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        old.close();
+        start = mark;
+    }
+
+    /**
+     * Sets every value in the journal on a configuration, in the order they were appended.
+     *
+     * @param config    The configuration to apply the values to.
+     * @return The number of values that were applied.
+     * @throws IOException if the journal cannot be read.
+     */
+    synchronized int replay(@NotNull ConfigurationSection config) throws IOException {
+        if (closed) {
+            return 0;
+        }
+        int[] count = new int[1];
+        readEntries(readAll(channel), (nodePath, value) -> {
+            config.set(nodePath, value);
+            count[0]++;
+        });
+        return count[0];
+    }
+
+    /**
+     * Syncs the journal and closes it. Its entries stay on disk until a later journal compacts them.
+     */
+    void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        if (syncer != null) {
+            syncer.shutdownNow();
+        }
+        try {
+            channel.force(false);
+            channel.close();
+        } catch (IOException e) {
+            logger.warning(String.format("Failed to close journal %s: %s", path, e.getMessage()));
+        }
+    }
+
+    /**
+     * Reads a whole journal file.
+     *
+     * @param channel   The journal file.
+     * @return The contents of the journal.
+     * @throws IOException if the journal cannot be read.
+     */
+    private static ByteBuffer readAll(FileChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+        long position = 0;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                break;
+            }
+            position += read;
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Reads the entries of a journal, stopping at the first one that is incomplete or damaged.
+     *
+     * @param buffer    The contents of the journal.
+     * @param consumer  Receives the entries in order, or null to only check them.
+     * @return The length of the journal up to the first bad entry.
+     */
+    private long readEntries(ByteBuffer buffer, @Nullable EntryConsumer consumer) {
+        YamlConfiguration decoder = new YamlConfiguration();
+        CRC32 crc = new CRC32();
+        while (buffer.remaining() >= 8) {
+            int entryStart = buffer.position();
+            int length = buffer.getInt();
+            int checksum = buffer.getInt();
+            if (length < 4 || length > buffer.remaining()) {
+                return entryStart;
+            }
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            crc.reset();
+            crc.update(bytes);
+            if ((int) crc.getValue() != checksum) {
+                return entryStart;
+            }
+            if (consumer == null) {
+                continue;
+            }
+            ByteBuffer entry = ByteBuffer.wrap(bytes);
+            int pathLength = entry.getInt();
+            if (pathLength < 0 || pathLength > entry.remaining()) {
+                return entryStart;
+            }
+            String nodePath = new String(bytes, 4, pathLength, StandardCharsets.UTF_8);
+            String yaml = new String(bytes, 4 + pathLength, length - 4 - pathLength, StandardCharsets.UTF_8);
+            try {
+                decoder.loadFromString(yaml);
+            } catch (InvalidConfigurationException e) {
+                logger.warning(String.format("Skipping unreadable value for %s in journal %s.", nodePath, path));
+                continue;
+            }
+            consumer.accept(nodePath, toPlainValue(decoder.get(VALUE_KEY)));
+        }
+        return buffer.position();
+    }
+
+    /**
+     * Turns sections that were read back from yaml into maps, so they can be set like the value that was appended.
+     *
+     * @param value The value read from the journal.
+     * @return The value, with sections turned into maps.
+     */
+    private static Object toPlainValue(Object value) {
+        if (!(value instanceof ConfigurationSection)) {
+            return value;
+        }
+        Map<String, Object> map = new LinkedHashMap<>();
+        for (Map.Entry<String, Object> entry : ((ConfigurationSection) value).getValues(false).entrySet()) {
+            map.put(entry.getKey(), toPlainValue(entry.getValue()));
+        }
+        return map;
+    }
+
+    /**
+     * Receives the entries read from a journal.
+     */
+    @FunctionalInterface
+    private interface EntryConsumer {
+        void accept(String nodePath, Object value);
+    }
+}
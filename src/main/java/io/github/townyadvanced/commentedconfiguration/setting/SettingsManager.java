@@ -0,0 +1,256 @@
+package io.github.townyadvanced.commentedconfiguration.setting;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import io.github.townyadvanced.commentedconfiguration.CommentedConfiguration;
+import io.github.townyadvanced.commentedconfiguration.SaveResult;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Owns a group of {@link Settings} and {@link CommentedConfiguration}s, such as a main config, per-world configs and
+ * language files, and loads or saves all of them at once.
+ * <p>
+ * The files are handled in parallel on a bounded pool of daemon threads, so loading many files takes about as long
+ * as loading the largest of them. A file that fails does not stop the others; failures are logged and returned
+ * together once every file has been handled.
+ */
+public class SettingsManager implements AutoCloseable {
+    private static final Logger DEFAULT_LOGGER = Logger.getLogger("CommentedConfiguration");
+    private static final AtomicInteger POOL_COUNT = new AtomicInteger();
+
+    private final Map<String, Entry> entries = new LinkedHashMap<>();
+    private final Logger logger;
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * Creates a new manager with one thread per available processor, at most 4.
+     *
+     * @param logger    The Logger to use for error messages.
+     */
+    public SettingsManager(@Nullable Logger logger) {
+        this(logger, Math.min(4, Runtime.getRuntime().availableProcessors()));
+    }
+
+    /**
+     * Creates a new manager.
+     *
+     * @param logger        The Logger to use for error messages.
+     * @param parallelism   The most files to load or save at the same time.
+     */
+    public SettingsManager(@Nullable Logger logger, int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be at least 1, got " + parallelism);
+        }
+        this.logger = logger == null ? DEFAULT_LOGGER : logger;
+        this.executor = new ThreadPoolExecutor(parallelism, parallelism, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), newThreadFactory());
+        // Threads are only needed while loading or saving, let them go in between.
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Creates the factory for the daemon threads of the pool.
+     *
+     * @return The thread factory.
+     */
+    private static ThreadFactory newThreadFactory() {
+        int pool = POOL_COUNT.incrementAndGet();
+        AtomicInteger threadCount = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "CommentedConfiguration Manager " + pool + " - " + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Adds settings to the manager, replacing anything registered under the same name.
+     *
+     * @param name      The name to register the settings under, used in results and error messages.
+     * @param settings  The settings to manage.
+     * @return The settings.
+     */
+    public synchronized @NotNull Settings register(@NotNull String name, @NotNull Settings settings) {
+        entries.put(name, new Entry(settings, settings::load, settings::saveWithResult));
+        return settings;
+    }
+
+    /**
+     * Adds a configuration to the manager, replacing anything registered under the same name.
+     *
+     * @param name      The name to register the configuration under, used in results and error messages.
+     * @param config    The configuration to manage.
+     * @return The configuration.
+     */
+    public synchronized @NotNull CommentedConfiguration register(@NotNull String name, @NotNull CommentedConfiguration config) {
+        entries.put(name, new Entry(config, config::load, config::saveWithResult));
+        return config;
+    }
+
+    /**
+     * Removes something from the manager.
+     *
+     * @param name  The name it was registered under.
+     * @return True if something was registered under the name.
+     */
+    public synchronized boolean unregister(@NotNull String name) {
+        return entries.remove(name) != null;
+    }
+
+    /**
+     * Gets the settings registered under a name.
+     *
+     * @param name  The name the settings were registered under.
+     * @return The settings, or null if no settings were registered under the name.
+     */
+    public synchronized @Nullable Settings getSettings(@NotNull String name) {
+        Entry entry = entries.get(name);
+        return entry != null && entry.owner instanceof Settings ? (Settings) entry.owner : null;
+    }
+
+    /**
+     * Gets the configuration registered under a name.
+     *
+     * @param name  The name the configuration was registered under.
+     * @return The configuration, or null if no configuration was registered under the name.
+     */
+    public synchronized @Nullable CommentedConfiguration getConfiguration(@NotNull String name) {
+        Entry entry = entries.get(name);
+        return entry != null && entry.owner instanceof CommentedConfiguration ? (CommentedConfiguration) entry.owner : null;
+    }
+
+    /**
+     * Gets the names of everything registered, in the order it was registered.
+     *
+     * @return The registered names.
+     */
+    public synchronized @NotNull Set<String> getNames() {
+        return new LinkedHashSet<>(entries.keySet());
+    }
+
+    /**
+     * Loads everything registered in parallel and waits for all of it to finish.
+     *
+     * @return The names of the files that failed to load, empty if all of them loaded.
+     */
+    public @NotNull Set<String> loadAll() {
+        Map<String, Entry> snapshot = entriesSnapshot();
+        Map<String, CompletableFuture<Boolean>> futures = new LinkedHashMap<>();
+        for (Map.Entry<String, Entry> entry : snapshot.entrySet()) {
+            BooleanSupplier load = entry.getValue().load;
+            futures.put(entry.getKey(), CompletableFuture.supplyAsync(load::getAsBoolean, executor));
+        }
+
+        Set<String> failed = new LinkedHashSet<>();
+        for (Map.Entry<String, CompletableFuture<Boolean>> entry : futures.entrySet()) {
+            Boolean loaded = join(entry.getKey(), "load", entry.getValue());
+            if (loaded == null || !loaded) {
+                failed.add(entry.getKey());
+            }
+        }
+        if (!failed.isEmpty()) {
+            logger.warning(String.format("Failed to load %d of %d configurations: %s", failed.size(), futures.size(),
+                    String.join(", ", failed)));
+        }
+        return failed;
+    }
+
+    /**
+     * Saves everything registered in parallel and waits for all of it to finish.
+     *
+     * @return The result of every save by name, in the order the files were registered.
+     */
+    public @NotNull Map<String, SaveResult> saveAll() {
+        Map<String, Entry> snapshot = entriesSnapshot();
+        Map<String, CompletableFuture<SaveResult>> futures = new LinkedHashMap<>();
+        for (Map.Entry<String, Entry> entry : snapshot.entrySet()) {
+            futures.put(entry.getKey(), CompletableFuture.supplyAsync(entry.getValue().save, executor));
+        }
+
+        Map<String, SaveResult> results = new LinkedHashMap<>();
+        List<String> failed = new ArrayList<>();
+        for (Map.Entry<String, CompletableFuture<SaveResult>> entry : futures.entrySet()) {
+            SaveResult result = join(entry.getKey(), "save", entry.getValue());
+            if (result == null) {
+                result = SaveResult.FAILED;
+            }
+            if (result == SaveResult.FAILED) {
+                failed.add(entry.getKey());
+            }
+            results.put(entry.getKey(), result);
+        }
+        if (!failed.isEmpty()) {
+            logger.warning(String.format("Failed to save %d of %d configurations: %s", failed.size(), futures.size(),
+                    String.join(", ", failed)));
+        }
+        return results;
+    }
+
+    /**
+     * Waits for a load or save to finish, logging it if it threw.
+     *
+     * @param name      The name of the file.
+     * @param operation What was being done with the file, for the error message.
+     * @param future    The running load or save.
+     * @return The result, or null if it threw.
+     * @param <T> The type of the result.
+     */
+    private <T> @Nullable T join(String name, String operation, CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() == null ? e : e.getCause();
+            logger.log(Level.WARNING, String.format("Failed to %s %s.", operation, name), cause);
+            return null;
+        }
+    }
+
+    /**
+     * Copies the registered entries, so they can be handled without holding the lock.
+     *
+     * @return A copy of the entries.
+     */
+    private synchronized Map<String, Entry> entriesSnapshot() {
+        return new LinkedHashMap<>(entries);
+    }
+
+    /**
+     * Stops the threads of the manager. Loads and saves that are running are allowed to finish.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    /**
+     * Something registered with the manager, and how to load and save it.
+     */
+    private static class Entry {
+        private final Object owner;
+        private final BooleanSupplier load;
+        private final Supplier<SaveResult> save;
+
+        private Entry(Object owner, BooleanSupplier load, Supplier<SaveResult> save) {
+            this.owner = owner;
+            this.load = load;
+            this.save = save;
+        }
+    }
+}
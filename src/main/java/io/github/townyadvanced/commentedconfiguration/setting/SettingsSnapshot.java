@@ -0,0 +1,242 @@
+package io.github.townyadvanced.commentedconfiguration.setting;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * An immutable view of the values of all nodes registered with a {@link Settings}, as they were at one point in
+ * time. A snapshot never changes, so it can be read from any thread without locking and multiple reads from the
+ * same snapshot are always consistent with each other.
+ */
+public final class SettingsSnapshot {
+    private final NodeSlots slots;
+    private final Object[] values;
+    private final int[] ints;
+    private final long[] longs;
+    private final double[] doubles;
+    private final boolean[] booleans;
+
+    /**
+     * Creates a snapshot by resolving all nodes from the configuration.
+     *
+     * @param slots     The slots of the registered nodes.
+     * @param config    The configuration to read from.
+     */
+    SettingsSnapshot(@NotNull NodeSlots slots, @NotNull ConfigurationSection config) {
+        this.slots = slots;
+        this.values = slots.resolve(config);
+        this.ints = new int[slots.intCount()];
+        this.longs = new long[slots.longCount()];
+        this.doubles = new double[slots.doubleCount()];
+        this.booleans = new boolean[slots.booleanCount()];
+        for (int slot = 0; slot < values.length; slot++) {
+            storePrimitive(slot);
+        }
+    }
+
+    /**
+     * Creates a snapshot that only differs from another one in some slots. Only the arrays holding those slots'
+     * values are copied, the others are shared with the previous snapshot.
+     *
+     * @param previous  The snapshot to copy.
+     * @param changed   The slots to resolve again.
+     * @param config    The configuration to read from.
+     */
+    private SettingsSnapshot(SettingsSnapshot previous, int[] changed, ConfigurationSection config) {
+        boolean anyInt = false;
+        boolean anyLong = false;
+        boolean anyDouble = false;
+        boolean anyBoolean = false;
+        for (int slot : changed) {
+            ValueNode node = previous.slots.nodeAt(slot);
+            anyInt |= node instanceof IntNode;
+            anyLong |= node instanceof LongNode;
+            anyDouble |= node instanceof DoubleNode;
+            anyBoolean |= node instanceof BooleanNode;
+        }
+        this.slots = previous.slots;
+        this.values = previous.values.clone();
+        this.ints = anyInt ? previous.ints.clone() : previous.ints;
+        this.longs = anyLong ? previous.longs.clone() : previous.longs;
+        this.doubles = anyDouble ? previous.doubles.clone() : previous.doubles;
+        this.booleans = anyBoolean ? previous.booleans.clone() : previous.booleans;
+        for (int slot : changed) {
+            values[slot] = NodeSlots.resolve(slots.nodeAt(slot), config);
+            storePrimitive(slot);
+        }
+    }
+
+    /**
+     * Creates a copy of this snapshot with the values of some nodes resolved from the configuration again.
+     *
+     * @param changed   The slots of the nodes.
+     * @param config    The configuration to read from.
+     * @return The new snapshot.
+     */
+    @NotNull SettingsSnapshot withSlots(@NotNull int[] changed, @NotNull ConfigurationSection config) {
+        return new SettingsSnapshot(this, changed, config);
+    }
+
+    /**
+     * Copies the value in a slot into the array for its kind of primitive, if the node is a primitive node.
+     *
+     * @param slot  The slot of the node.
+     */
+    private void storePrimitive(int slot) {
+        ValueNode node = slots.nodeAt(slot);
+        int index = slots.primitiveIndex(slot);
+        if (node instanceof IntNode) {
+            ints[index] = (Integer) values[slot];
+        } else if (node instanceof LongNode) {
+            longs[index] = (Long) values[slot];
+        } else if (node instanceof DoubleNode) {
+            doubles[index] = (Double) values[slot];
+        } else if (node instanceof BooleanNode) {
+            booleans[index] = (Boolean) values[slot];
+        }
+    }
+
+    /**
+     * Gets the value of a registered node, if the node has a default value, it will be returned if the node is
+     * not found.
+     *
+     * @param node  The node to get the value of.
+     * @return The value of the node.
+     * @throws IllegalArgumentException if the node was not registered with the settings.
+     */
+    public Object get(@NotNull ValueNode node) {
+        return values[slotOf(node)];
+    }
+
+    /**
+     * Gets the value of a registered node, if the node has a default value, it will be returned if the node is
+     * not found.
+     *
+     * @param node  The node to get the value of.
+     * @param type  The type of the node value.
+     * @return The value of the node.
+     * @param <T> The type of the node value.
+     * @throws IllegalArgumentException if the node was not registered with the settings.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(@NotNull ValueNode node, @NotNull Class<T> type) {
+        Object value = values[slotOf(node)];
+        return type.isInstance(value) ? type.cast(value) : (T) node.getDefaultValue();
+    }
+
+    /**
+     * Gets the value of a registered node, if the node has a default value, it will be returned if the node is
+     * not found.
+     *
+     * @param node  The node to get the value of.
+     * @return The value of the node.
+     * @param <T> The type of the node value.
+     * @throws IllegalArgumentException if the node was not registered with the settings.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(@NotNull TypedValueNode<T> node) {
+        return (T) values[slotOf(node)];
+    }
+
+    /**
+     * Gets the value of a registered int node without boxing.
+     *
+     * @param node  The node to get the value of.
+     * @return The value of the node.
+     * @throws IllegalArgumentException if the node was not registered with the settings.
+     */
+    public int getInt(@NotNull IntNode node) {
+        return ints[slots.primitiveIndex(slotOf(node))];
+    }
+
+    /**
+     * Gets the value of a registered long node without boxing.
+     *
+     * @param node  The node to get the value of.
+     * @return The value of the node.
+     * @throws IllegalArgumentException if the node was not registered with the settings.
+     */
+    public long getLong(@NotNull LongNode node) {
+        return longs[slots.primitiveIndex(slotOf(node))];
+    }
+
+    /**
+     * Gets the value of a registered double node without boxing.
+     *
+     * @param node  The node to get the value of.
+     * @return The value of the node.
+     * @throws IllegalArgumentException if the node was not registered with the settings.
+     */
+    public double getDouble(@NotNull DoubleNode node) {
+        return doubles[slots.primitiveIndex(slotOf(node))];
+    }
+
+    /**
+     * Gets the value of a registered boolean node without boxing.
+     *
+     * @param node  The node to get the value of.
+     * @return The value of the node.
+     * @throws IllegalArgumentException if the node was not registered with the settings.
+     */
+    public boolean getBoolean(@NotNull BooleanNode node) {
+        return booleans[slots.primitiveIndex(slotOf(node))];
+    }
+
+    /**
+     * Gets the value in a slot.
+     *
+     * @param slot  The slot of the node.
+     * @return The value in the slot.
+     */
+    Object valueAt(int slot) {
+        return values[slot];
+    }
+
+    /**
+     * Gets the int value of a slot holding an {@link IntNode}.
+     *
+     * @param slot  The slot of the node.
+     * @return The value in the slot.
+     */
+    int intAt(int slot) {
+        return ints[slots.primitiveIndex(slot)];
+    }
+
+    /**
+     * Gets the long value of a slot holding a {@link LongNode}.
+     *
+     * @param slot  The slot of the node.
+     * @return The value in the slot.
+     */
+    long longAt(int slot) {
+        return longs[slots.primitiveIndex(slot)];
+    }
+
+    /**
+     * Gets the double value of a slot holding a {@link DoubleNode}.
+     *
+     * @param slot  The slot of the node.
+     * @return The value in the slot.
+     */
+    double doubleAt(int slot) {
+        return doubles[slots.primitiveIndex(slot)];
+    }
+
+    /**
+     * Gets the boolean value of a slot holding a {@link BooleanNode}.
+     *
+     * @param slot  The slot of the node.
+     * @return The value in the slot.
+     */
+    boolean booleanAt(int slot) {
+        return booleans[slots.primitiveIndex(slot)];
+    }
+
+    private int slotOf(ValueNode node) {
+        int slot = slots.slotOf(node);
+        if (slot < 0) {
+            throw new IllegalArgumentException("Node " + node.getPath() + " is not registered with these settings.");
+        }
+        return slot;
+    }
+}
@@ -0,0 +1,164 @@
+package io.github.townyadvanced.commentedconfiguration.setting;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import io.github.townyadvanced.commentedconfiguration.LoadResult;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Watches the file of a {@link Settings} and reloads it on a background thread when it is edited.
+ * <p>
+ * Editors often write a file in several steps, so the reload only happens once the file has not been touched for
+ * the debounce delay. Changes made by the settings' own saves are ignored, and a file that fails to parse is
+ * logged and leaves the current values in place. While values set through
+ * {@link Settings#set(ValueNode, Object)} have not been saved, the file is not reloaded, so they are not lost.
+ */
+public class SettingsWatcher implements AutoCloseable {
+    private final Settings settings;
+    private final Path directory;
+    private final Path fileName;
+    private final long debounceNanos;
+    private final Consumer<? super LoadResult> listener;
+    private WatchService watchService;
+    private Thread thread;
+
+    /**
+     * Creates a new watcher, call {@link #start()} to start watching.
+     *
+     * @param settings  The settings to reload.
+     * @param debounce  How long the file must be left alone before it is reloaded.
+     * @param unit      The unit of the debounce delay.
+     */
+    public SettingsWatcher(@NotNull Settings settings, long debounce, @NotNull TimeUnit unit) {
+        this(settings, debounce, unit, null);
+    }
+
+    /**
+     * Creates a new watcher that reports every time the file settled, call {@link #start()} to start watching.
+     *
+     * @param settings  The settings to reload.
+     * @param debounce  How long the file must be left alone before it is reloaded.
+     * @param unit      The unit of the debounce delay.
+     * @param listener  Called on the watcher thread each time the file settled, with {@link LoadResult#LOADED} if
+     *                  it was reloaded, {@link LoadResult#FAILED} if it did not parse, or
+     *                  {@link LoadResult#UNCHANGED} if it was left alone as it was not edited or has unsaved values.
+     */
+    public SettingsWatcher(@NotNull Settings settings, long debounce, @NotNull TimeUnit unit,
+                           @Nullable Consumer<? super LoadResult> listener) {
+        Path file = settings.getConfigPath().toAbsolutePath();
+        this.settings = settings;
+        this.directory = file.getParent();
+        this.fileName = file.getFileName();
+        this.debounceNanos = unit.toNanos(debounce);
+        this.listener = listener;
+    }
+
+    /**
+     * Starts watching the file's directory.
+     *
+     * @throws IOException if the directory cannot be watched.
+     */
+    public synchronized void start() throws IOException {
+        if (thread != null) {
+            return;
+        }
+        WatchService service = directory.getFileSystem().newWatchService();
+        directory.register(service, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        watchService = service;
+        // Hand the thread its own service, so that it never takes events from one started after it was closed.
+        thread = new Thread(() -> run(service), "CommentedConfiguration Watcher - " + fileName);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stops watching the file. A reload that is already running is allowed to finish.
+     */
+    @Override
+    public synchronized void close() {
+        if (thread == null) {
+            return;
+        }
+        try {
+            watchService.close();
+        } catch (IOException ignored) {
+        }
+        thread = null;
+        watchService = null;
+    }
+
+    /**
+     * Waits for changes to the file and reloads it once they have settled.
+     *
+     * @param service   The service the file's directory is registered with.
+     */
+    private void run(WatchService service) {
+        long deadline = 0;
+        boolean pending = false;
+        try {
+            while (true) {
+                WatchKey key;
+                if (pending) {
+                    long remaining = deadline - System.nanoTime();
+                    key = remaining > 0 ? service.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                } else {
+                    key = service.take();
+                }
+
+                if (key == null) {
+                    // Nothing happened during the debounce delay, so the file has settled.
+                    pending = false;
+                    reload();
+                    continue;
+                }
+
+                if (isRelevant(key)) {
+                    pending = true;
+                    deadline = System.nanoTime() + debounceNanos;
+                }
+                if (!key.reset()) {
+                    // The directory is gone.
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException ignored) {
+        }
+    }
+
+    /**
+     * Checks whether any of the events of a key concern the watched file.
+     *
+     * @param key   The key to check.
+     * @return True if the watched file might have changed.
+     */
+    private boolean isRelevant(WatchKey key) {
+        boolean relevant = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW || fileName.equals(event.context())) {
+                relevant = true;
+            }
+        }
+        return relevant;
+    }
+
+    /**
+     * Reloads the settings, unless the file is exactly as it was last loaded or saved.
+     */
+    private void reload() {
+        LoadResult result = settings.reloadChangedFile();
+        if (listener != null) {
+            listener.accept(result);
+        }
+    }
+}
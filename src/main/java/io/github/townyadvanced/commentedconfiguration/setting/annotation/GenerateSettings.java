@@ -0,0 +1,36 @@
+package io.github.townyadvanced.commentedconfiguration.setting.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks an interface whose methods describe the nodes of a configuration file. The CommentedConfiguration-processor
+ * annotation processor generates a class implementing the interface, with a constant for every node, the node list
+ * to pass to {@link io.github.townyadvanced.commentedconfiguration.setting.Settings} and a getter for every method
+ * that reads the node through the typed getters of the settings.
+ * <p>
+ * Every abstract method of the interface must take no parameters and be annotated with {@link Setting}. This includes
+ * the methods inherited from super-interfaces, which must be compiled along with the interface, as the annotations are
+ * not kept in class files.
+ */
+@Documented
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface GenerateSettings {
+    /**
+     * The simple name of the generated class, defaults to the name of the interface followed by "Settings".
+     *
+     * @return The name of the generated class.
+     */
+    String className() default "";
+
+    /**
+     * Sections that only hold comments, such as a header. They come before the nodes of the methods.
+     *
+     * @return The commented sections.
+     */
+    Section[] sections() default {};
+}
@@ -0,0 +1,28 @@
+package io.github.townyadvanced.commentedconfiguration.setting.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * A commented section of a {@link GenerateSettings} interface that has no value of its own.
+ */
+@Documented
+@Retention(RetentionPolicy.SOURCE)
+@Target({})
+public @interface Section {
+    /**
+     * The YAML path of the section.
+     *
+     * @return The path of the section.
+     */
+    String path();
+
+    /**
+     * The comment lines of the section.
+     *
+     * @return The comment lines.
+     */
+    String[] comment();
+}
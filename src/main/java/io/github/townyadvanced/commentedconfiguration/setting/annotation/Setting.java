@@ -0,0 +1,39 @@
+package io.github.townyadvanced.commentedconfiguration.setting.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Describes the node read by a method of a {@link GenerateSettings} interface. The return type of the method is the
+ * type of the node: {@code int}, {@code long}, {@code double} and {@code boolean} become the matching primitive
+ * nodes, anything else becomes a {@link io.github.townyadvanced.commentedconfiguration.setting.TypedValueNode}.
+ */
+@Documented
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.METHOD)
+public @interface Setting {
+    /**
+     * The YAML path of the node.
+     *
+     * @return The path of the node.
+     */
+    String path();
+
+    /**
+     * A Java expression for the default value, copied into the generated class as it is, for example
+     * {@code "1234"}, {@code "\"text\""} or {@code "java.util.Arrays.asList(\"a\", \"b\")"}. No default when empty.
+     *
+     * @return The default value expression.
+     */
+    String defaultValue() default "";
+
+    /**
+     * The comment lines of the node.
+     *
+     * @return The comment lines.
+     */
+    String[] comment() default {};
+}
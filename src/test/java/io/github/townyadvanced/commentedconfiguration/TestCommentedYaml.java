@@ -0,0 +1,113 @@
+package io.github.townyadvanced.commentedconfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.logging.Logger;
+
+import com.google.common.collect.Lists;
+import io.github.townyadvanced.commentedconfiguration.core.CommentedYaml;
+import io.github.townyadvanced.commentedconfiguration.core.CompactSection;
+import io.github.townyadvanced.commentedconfiguration.setting.CommentedNode;
+import io.github.townyadvanced.commentedconfiguration.setting.Settings;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestCommentedYaml {
+    private static final File testdir = new File("bin/coreyaml/");
+
+    private final File configFile = new File("bin/coreyaml/config.yml");
+    private List<String> savedConfigFile;
+    private Settings settings;
+
+    @BeforeAll
+    public static void setUpAll() {
+        testdir.mkdirs();
+    }
+
+    @AfterAll
+    public static void tearDownAll() throws IOException {
+        FileUtils.deleteDirectory(testdir);
+        testdir.getParentFile().delete();
+    }
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        List<String> ogConfigFile = IOUtils.readLines(Objects.requireNonNull(this.getClass().getResourceAsStream("/og_config.yml")), StandardCharsets.UTF_8);
+        savedConfigFile = IOUtils.readLines(Objects.requireNonNull(this.getClass().getResourceAsStream("/saved_config.yml")), StandardCharsets.UTF_8);
+        FileUtils.writeLines(configFile, ogConfigFile);
+
+        settings = new Settings(configFile.toPath(), Logger.getLogger("TestCommentedYaml"), TestNodes.getAllNodes());
+        assertTrue(settings.load());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        settings.shutdown();
+        configFile.delete();
+    }
+
+    @Test
+    @DisplayName("Load and save the configuration file without Bukkit.")
+    public void coreYaml() throws IOException {
+        settings.save();
+        File otherFile = new File(testdir, "other.yml");
+        CommentedYaml yaml = new CommentedYaml(configFile.toPath());
+        assertTrue(yaml.load());
+        assertEquals("test", yaml.get("test.string"));
+        assertEquals(1234, yaml.get("test.integer"));
+        assertEquals(Lists.newArrayList("one", "two", "three"), yaml.get("test.nested.list"));
+
+        for (CommentedNode node : TestNodes.getAllNodes()) {
+            yaml.addComment(node.getPath(), node.getComments());
+        }
+        CommentedYaml other = new CommentedYaml(otherFile.toPath());
+        other.getRoot().set("test", yaml.getRoot().getSection("test"));
+        other.getComments().addAll(yaml.getComments());
+        try {
+            assertTrue(other.save());
+            assertEquals(FileUtils.readLines(otherFile, StandardCharsets.UTF_8), savedConfigFile);
+        } finally {
+            otherFile.delete();
+        }
+    }
+
+    @Test
+    @DisplayName("Keep finding the keys of a large section after some are removed.")
+    public void compactSectionRemove() {
+        CompactSection section = new CompactSection();
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            section.set("key" + i, i);
+            expected.add("key" + i);
+        }
+        for (int i : new int[]{0, 7, 19, 10}) {
+            section.set("key" + i, null);
+            expected.remove("key" + i);
+        }
+        assertEquals(expected, new ArrayList<>(section.getKeys(false)));
+        for (int i = 0; i < 20; i++) {
+            assertEquals(expected.contains("key" + i) ? i : null, section.get("key" + i));
+        }
+
+        section.set("key7", 70);
+        assertEquals(70, section.get("key7"));
+        assertEquals("key7", section.keyAt(section.size() - 1));
+        while (section.size() > 1) {
+            section.set(section.keyAt(0), null);
+        }
+        assertEquals(70, section.get("key7"));
+    }
+}
@@ -0,0 +1,233 @@
+package io.github.townyadvanced.commentedconfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import io.github.townyadvanced.commentedconfiguration.setting.Settings;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestConcurrentSettings {
+    private static final File testdir = new File("bin/concurrent/");
+    private static final int THREADS = 8;
+    private static final int ROUNDS = 500;
+
+    private final File configFile = new File("bin/concurrent/config.yml");
+    private Settings settings;
+
+    @BeforeAll
+    public static void setUpAll() {
+        testdir.mkdirs();
+    }
+
+    @AfterAll
+    public static void tearDownAll() throws IOException {
+        FileUtils.deleteDirectory(testdir);
+        testdir.getParentFile().delete();
+    }
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        List<String> ogConfigFile = IOUtils.readLines(Objects.requireNonNull(this.getClass().getResourceAsStream("/og_config.yml")), StandardCharsets.UTF_8);
+        FileUtils.writeLines(configFile, ogConfigFile);
+
+        settings = new Settings(configFile.toPath(), Logger.getLogger("TestConcurrentSettings"), TestNodes.getAllNodes());
+        settings.setConcurrent(true);
+        assertTrue(settings.load());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        settings.shutdown();
+        configFile.delete();
+    }
+
+    @Test
+    @DisplayName("Set nodes and paths while other threads save and read.")
+    public void setWhileSaving() throws Exception {
+        run(thread -> {
+            for (int i = 0; i < ROUNDS; i++) {
+                switch (thread % 4) {
+                    case 0:
+                        settings.set(TestNodes.INTEGER_NODE, i);
+                        settings.getConfig().set("concurrent.thread" + thread, i);
+                        break;
+                    case 1:
+                        settings.set(TestNodes.STRING_NODE, "value" + i);
+                        settings.getConfig().set("concurrent.thread" + thread, i);
+                        break;
+                    case 2:
+                        if (i % 2 == 0) {
+                            settings.save();
+                        } else {
+                            settings.saveAsync();
+                        }
+                        break;
+                    default:
+                        settings.getConfig().get("concurrent.thread0");
+                        settings.getConfig().getKeys(true);
+                        settings.get(TestNodes.INTEGER_NODE);
+                        break;
+                }
+            }
+        });
+
+        assertEquals(ROUNDS - 1, settings.get(TestNodes.INTEGER_NODE));
+        settings.save();
+        assertTrue(settings.shutdown());
+        assertTrue(settings.load());
+        assertEquals(ROUNDS - 1, settings.get(TestNodes.INTEGER_NODE));
+        assertEquals("value" + (ROUNDS - 1), settings.get(TestNodes.STRING_NODE));
+        for (int thread = 0; thread < THREADS; thread++) {
+            if (thread % 4 < 2) {
+                assertEquals(ROUNDS - 1, settings.getConfig().getInt("concurrent.thread" + thread));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Read the configuration while other threads reload it.")
+    public void readWhileLoading() throws Exception {
+        CommentedConfiguration config = settings.getConfig();
+        run(thread -> {
+            for (int i = 0; i < ROUNDS; i++) {
+                if (thread == 0) {
+                    assertTrue(settings.load());
+                } else {
+                    // Set in the file, and only added as a default.
+                    assertEquals("test", config.getString("test.string"));
+                    assertEquals(1234, config.getInt("test.integer"));
+                }
+            }
+        });
+    }
+
+    @Test
+    @DisplayName("Read the configuration while other threads reload it from the parse cache.")
+    public void readWhileLoadingFromCache() throws Exception {
+        File cacheFile = new File(testdir, ".config.yml.cache");
+        try {
+            settings.setParseCacheEnabled(true);
+            assertTrue(settings.load());
+            assertTrue(cacheFile.exists());
+            CommentedConfiguration config = settings.getConfig();
+            run(thread -> {
+                for (int i = 0; i < ROUNDS; i++) {
+                    if (thread == 0) {
+                        assertTrue(settings.load());
+                    } else {
+                        assertEquals("test", config.getString("test.string"));
+                        assertEquals(1234, config.getInt("test.integer"));
+                    }
+                }
+            });
+        } finally {
+            cacheFile.delete();
+        }
+    }
+
+    @Test
+    @DisplayName("Add comments while other threads serialize the configuration.")
+    public void commentWhileSaving() throws Exception {
+        CommentedConfiguration config = settings.getConfig();
+        run(thread -> {
+            for (int i = 0; i < ROUNDS; i++) {
+                if (thread % 2 == 0) {
+                    config.set("comments.thread" + thread + ".key" + i, i);
+                    config.addComment("comments.thread" + thread + ".key" + i, "# Comment " + thread + "." + i);
+                } else {
+                    config.saveToStringWithComments();
+                }
+            }
+        });
+
+        String contents = config.saveToStringWithComments();
+        for (int thread = 0; thread < THREADS; thread += 2) {
+            assertTrue(contents.contains("# Comment " + thread + "." + (ROUNDS - 1)));
+            assertTrue(config.contains("comments.thread" + thread + ".key" + (ROUNDS - 1)));
+        }
+    }
+
+    @Test
+    @DisplayName("Parse lazily loaded sections from several threads at once.")
+    public void lazyLoading() throws Exception {
+        StringBuilder yaml = new StringBuilder();
+        for (int section = 0; section < THREADS; section++) {
+            yaml.append("section").append(section).append(":\n");
+            for (int key = 0; key < 50; key++) {
+                yaml.append("  key").append(key).append(": ").append(key).append('\n');
+            }
+        }
+        FileUtils.writeStringToFile(configFile, yaml.toString(), StandardCharsets.UTF_8);
+        CommentedConfiguration config = new CommentedConfiguration(configFile.toPath(), Logger.getLogger("TestConcurrentSettings"));
+        config.setLazyLoading(true);
+        config.setConcurrent(true);
+        assertTrue(config.load());
+
+        run(thread -> {
+            for (int i = 0; i < ROUNDS; i++) {
+                int section = (thread + i) % THREADS;
+                assertEquals(i % 50, config.getInt("section" + section + ".key" + (i % 50)));
+                if (thread == 0) {
+                    config.set("section" + section + ".extra", i);
+                } else if (thread == 1) {
+                    config.saveToString();
+                }
+            }
+        });
+
+        for (int section = 0; section < THREADS; section++) {
+            config.set("section" + section + ".extra", null);
+        }
+        assertEquals(yaml.toString(), config.saveToString());
+    }
+
+    /**
+     * Runs a task on many threads at once, failing with the first error thrown by any of them.
+     */
+    private void run(ThreadTask task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        Queue<Throwable> errors = new ConcurrentLinkedQueue<>();
+        for (int thread = 0; thread < THREADS; thread++) {
+            int id = thread;
+            executor.execute(() -> {
+                try {
+                    start.await();
+                    task.run(id);
+                } catch (Throwable e) {
+                    errors.add(e);
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+        if (!errors.isEmpty()) {
+            throw new AssertionError(errors.peek());
+        }
+    }
+
+    private interface ThreadTask {
+        void run(int thread) throws Exception;
+    }
+}
@@ -0,0 +1,165 @@
+package io.github.townyadvanced.commentedconfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.logging.Logger;
+
+import com.google.common.collect.Lists;
+import io.github.townyadvanced.commentedconfiguration.setting.LocaleBundle;
+import io.github.townyadvanced.commentedconfiguration.setting.Settings;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestLocaleBundle {
+    private static final File testdir = new File("bin/locale/");
+
+    private final File configFile = new File("bin/locale/config.yml");
+    private Settings settings;
+
+    @BeforeAll
+    public static void setUpAll() {
+        testdir.mkdirs();
+    }
+
+    @AfterAll
+    public static void tearDownAll() throws IOException {
+        FileUtils.deleteDirectory(testdir);
+        testdir.getParentFile().delete();
+    }
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        List<String> ogConfigFile = IOUtils.readLines(Objects.requireNonNull(this.getClass().getResourceAsStream("/og_config.yml")), StandardCharsets.UTF_8);
+        FileUtils.writeLines(configFile, ogConfigFile);
+
+        settings = new Settings(configFile.toPath(), Logger.getLogger("TestLocaleBundle"), TestNodes.getAllNodes());
+        assertTrue(settings.load());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        settings.shutdown();
+        configFile.delete();
+    }
+
+    @Test
+    @DisplayName("Resolve messages through the fallback chain and unload unused locales.")
+    public void localeBundle() throws IOException {
+        File langDir = new File(testdir, "lang");
+        try {
+            FileUtils.writeStringToFile(new File(langDir, "en.yml"), "greeting: Hello\nfarewell: Bye\n", StandardCharsets.UTF_8);
+            FileUtils.writeStringToFile(new File(langDir, "en_GB.yml"), "greeting: Hello there\n", StandardCharsets.UTF_8);
+            FileUtils.writeStringToFile(new File(langDir, "de.yml"), "greeting: Hallo\n", StandardCharsets.UTF_8);
+
+            LocaleBundle bundle = new LocaleBundle(langDir.toPath(), Logger.getLogger("TestLocaleBundle"), "en");
+            bundle.setMaxLoadedLocales(2);
+            assertEquals(Lists.newArrayList("en_gb", "en"), bundle.getFallbackChain("en-GB"));
+            assertEquals("Hello there", bundle.getMessage("en_GB", "greeting"));
+            assertEquals("Bye", bundle.getMessage("en_GB", "farewell"));
+            assertEquals("Hallo", bundle.getMessage("de_AT", "greeting"));
+            assertEquals("Bye", bundle.getMessage("de_AT", "farewell"));
+            assertEquals("missing", bundle.getMessage("de", "unknown", "missing"));
+
+            // The default locale stays loaded, the least recently used other locale is unloaded.
+            assertEquals(Lists.newArrayList("de", "en"), new ArrayList<>(bundle.getLoadedLocales()));
+            assertEquals("Hello there", bundle.getMessage("en_GB", "greeting"));
+        } finally {
+            FileUtils.deleteDirectory(langDir);
+        }
+    }
+
+    @Test
+    @DisplayName("Look up invalid locales in the default locale only, and read files again after a reload.")
+    public void invalidLocales() throws IOException {
+        File langDir = new File(testdir, "lang");
+        try {
+            FileUtils.writeStringToFile(new File(langDir, "en.yml"), "greeting: Hello\n", StandardCharsets.UTF_8);
+            FileUtils.writeStringToFile(new File(testdir, "secret.yml"), "greeting: Secret\n", StandardCharsets.UTF_8);
+
+            LocaleBundle bundle = new LocaleBundle(langDir.toPath(), Logger.getLogger("TestLocaleBundle"), "en");
+            for (String locale : Lists.newArrayList("../secret", "en/../../secret", "secret", "", "e", "en_", "en_GB!")) {
+                assertEquals("Hello", bundle.getMessage(locale, "greeting"), locale);
+                assertNull(bundle.getConfiguration(locale), locale);
+            }
+            assertEquals(Lists.newArrayList("en"), bundle.getFallbackChain("../secret"));
+            assertEquals(Lists.newArrayList("en"), new ArrayList<>(bundle.getLoadedLocales()));
+
+            FileUtils.writeStringToFile(new File(langDir, "en.yml"), "greeting: Hi\n", StandardCharsets.UTF_8);
+            assertEquals("Hello", bundle.getMessage("en", "greeting"));
+            bundle.reload();
+            assertEquals("Hi", bundle.getMessage("EN", "greeting"));
+        } finally {
+            FileUtils.deleteDirectory(langDir);
+        }
+    }
+
+    @Test
+    @DisplayName("Look up messages of lazily loaded locales from many threads at once.")
+    public void concurrentLazyLookups() throws Exception {
+        File langDir = new File(testdir, "lang");
+        try {
+            StringBuilder en = new StringBuilder();
+            StringBuilder de = new StringBuilder();
+            for (int section = 0; section < 200; section++) {
+                en.append("section").append(section).append(":\n");
+                de.append("section").append(section).append(":\n");
+                for (int key = 0; key < 10; key++) {
+                    en.append("  key").append(key).append(": en ").append(section).append('.').append(key).append('\n');
+                    if (key % 2 == 0) {
+                        de.append("  key").append(key).append(": de ").append(section).append('.').append(key).append('\n');
+                    }
+                }
+            }
+            FileUtils.writeStringToFile(new File(langDir, "en.yml"), en.toString(), StandardCharsets.UTF_8);
+            FileUtils.writeStringToFile(new File(langDir, "de.yml"), de.toString(), StandardCharsets.UTF_8);
+
+            LocaleBundle bundle = new LocaleBundle(langDir.toPath(), Logger.getLogger("TestLocaleBundle"), "en");
+            bundle.setLazyLoading(true);
+            bundle.setMaxCachedMessages(0);
+            for (int round = 0; round < 5; round++) {
+                bundle.reload();
+                List<Thread> threads = new ArrayList<>();
+                List<Throwable> failures = Collections.synchronizedList(new ArrayList<>());
+                for (int t = 0; t < 8; t++) {
+                    int offset = t;
+                    Thread thread = new Thread(() -> {
+                        try {
+                            for (int i = 0; i < 2000; i++) {
+                                int section = (i * 7 + offset * 25) % 200;
+                                int key = (i / 200 + offset) % 10;
+                                String path = "section" + section + ".key" + key;
+                                String prefix = key % 2 == 0 ? "de " : "en ";
+                                assertEquals(prefix + section + "." + key, bundle.getMessage("de", path));
+                            }
+                        } catch (Throwable e) {
+                            failures.add(e);
+                        }
+                    });
+                    threads.add(thread);
+                    thread.start();
+                }
+                for (Thread thread : threads) {
+                    thread.join();
+                }
+                assertTrue(failures.isEmpty(), failures.toString());
+            }
+        } finally {
+            FileUtils.deleteDirectory(langDir);
+        }
+    }
+}
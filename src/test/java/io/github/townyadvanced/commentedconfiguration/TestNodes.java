@@ -4,13 +4,18 @@ import java.util.ArrayList;
 import java.util.List;
 
 import com.google.common.collect.Lists;
+import io.github.townyadvanced.commentedconfiguration.setting.BooleanNode;
 import io.github.townyadvanced.commentedconfiguration.setting.CommentedNode;
+import io.github.townyadvanced.commentedconfiguration.setting.DoubleNode;
+import io.github.townyadvanced.commentedconfiguration.setting.IntNode;
+import io.github.townyadvanced.commentedconfiguration.setting.LongNode;
 import io.github.townyadvanced.commentedconfiguration.setting.SimpleNode;
 import io.github.townyadvanced.commentedconfiguration.setting.TypedValueNode;
 import org.bukkit.Location;
 
 public class TestNodes {
     private static final List<CommentedNode> nodes = new ArrayList<>();
+    private static final List<CommentedNode> primitiveNodes = new ArrayList<>();
 
     private static <T> TypedValueNode<T> node(TypedValueNode<T> node) {
         nodes.add(node);
@@ -47,7 +52,36 @@ public class TestNodes {
             .comment("This is a list")
             .build());
 
+    public static final IntNode PRIMITIVE_INT_NODE = primitiveNode(IntNode.builder("primitive.int")
+            .defaultValue(1234)
+            .comment("This is an int")
+            .build());
+
+    public static final LongNode PRIMITIVE_LONG_NODE = primitiveNode(LongNode.builder("primitive.long")
+            .defaultValue(123456789012L)
+            .comment("This is a long")
+            .build());
+
+    public static final DoubleNode PRIMITIVE_DOUBLE_NODE = primitiveNode(DoubleNode.builder("primitive.double")
+            .defaultValue(12.5)
+            .comment("This is a double")
+            .build());
+
+    public static final BooleanNode PRIMITIVE_BOOLEAN_NODE = primitiveNode(BooleanNode.builder("primitive.boolean")
+            .defaultValue(true)
+            .comment("This is a boolean")
+            .build());
+
+    private static <N extends CommentedNode> N primitiveNode(N node) {
+        primitiveNodes.add(node);
+        return node;
+    }
+
     public static List<CommentedNode> getAllNodes() {
         return nodes;
     }
+
+    public static List<CommentedNode> getPrimitiveNodes() {
+        return primitiveNodes;
+    }
 }
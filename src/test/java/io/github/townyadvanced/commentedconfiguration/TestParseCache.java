@@ -0,0 +1,135 @@
+package io.github.townyadvanced.commentedconfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.logging.Logger;
+
+import io.github.townyadvanced.commentedconfiguration.setting.Settings;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestParseCache {
+    private static final File testdir = new File("bin/parsecache/");
+
+    private final File configFile = new File("bin/parsecache/config.yml");
+    private List<String> savedConfigFile;
+    private Settings settings;
+
+    @BeforeAll
+    public static void setUpAll() {
+        testdir.mkdirs();
+    }
+
+    @AfterAll
+    public static void tearDownAll() throws IOException {
+        FileUtils.deleteDirectory(testdir);
+        testdir.getParentFile().delete();
+    }
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        List<String> ogConfigFile = IOUtils.readLines(Objects.requireNonNull(this.getClass().getResourceAsStream("/og_config.yml")), StandardCharsets.UTF_8);
+        savedConfigFile = IOUtils.readLines(Objects.requireNonNull(this.getClass().getResourceAsStream("/saved_config.yml")), StandardCharsets.UTF_8);
+        FileUtils.writeLines(configFile, ogConfigFile);
+
+        settings = new Settings(configFile.toPath(), Logger.getLogger("TestParseCache"), TestNodes.getAllNodes());
+        assertTrue(settings.load());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        settings.shutdown();
+        configFile.delete();
+    }
+
+    @Test
+    @DisplayName("Load an unchanged configuration file from the parse cache.")
+    public void loadParseCache() throws IOException {
+        File cacheFile = new File(testdir, ".config.yml.cache");
+        try {
+            settings.setParseCacheEnabled(true);
+            assertTrue(settings.load());
+            assertTrue(cacheFile.exists());
+            assertTrue(settings.load());
+            assertEquals("test", settings.get(TestNodes.STRING_NODE));
+            settings.save();
+            assertEquals(FileUtils.readLines(configFile, StandardCharsets.UTF_8), savedConfigFile);
+
+            FileUtils.writeStringToFile(configFile, "test:\n  string: changed\n", StandardCharsets.UTF_8);
+            assertTrue(settings.load());
+            assertEquals("changed", settings.get(TestNodes.STRING_NODE));
+        } finally {
+            cacheFile.delete();
+        }
+    }
+
+    @Test
+    @DisplayName("Restore exactly what was parsed from the parse cache.")
+    public void parseCacheMatchesParse() throws IOException {
+        File cacheFile = new File(testdir, ".config.yml.cache");
+        try {
+            settings.setParseCacheEnabled(true);
+            assertTrue(settings.load());
+            assertTrue(cacheFile.exists());
+
+            CommentedConfiguration parsed = new CommentedConfiguration(configFile.toPath(), Logger.getLogger("TestParseCache"));
+            assertTrue(parsed.load());
+            CommentedConfiguration cached = new CommentedConfiguration(configFile.toPath(), Logger.getLogger("TestParseCache"));
+            byte[] bytes = Files.readAllBytes(configFile.toPath());
+            FileFingerprint fingerprint = FileFingerprint.ofContents(FileFingerprint.attributes(configFile.toPath()), bytes);
+            Map<String, Object> values = ParseCache.read(cacheFile.toPath(), fingerprint);
+            assertNotNull(values);
+            ParseCache.replace(cached, values);
+            assertEquals(parsed.saveToString(), cached.saveToString());
+        } finally {
+            cacheFile.delete();
+        }
+    }
+
+    @Test
+    @DisplayName("Parse the file when the parse cache is broken.")
+    public void brokenParseCache() throws IOException {
+        File cacheFile = new File(testdir, ".config.yml.cache");
+        try {
+            settings.setParseCacheEnabled(true);
+            assertTrue(settings.load());
+            byte[] cache = Files.readAllBytes(cacheFile.toPath());
+
+            // A huge size for the root section, which must not be allocated. It follows the magic number, the
+            // version, and the fingerprint's size, modification time and hash.
+            byte[] broken = Arrays.copyOf(cache, cache.length);
+            int hashLength = ((cache[21] & 0xff) << 8) | (cache[22] & 0xff);
+            broken[23 + hashLength] = 0x7f;
+            Files.write(cacheFile.toPath(), broken);
+            assertTrue(settings.load());
+            assertEquals("test", settings.get(TestNodes.STRING_NODE));
+
+            // A cache cut short.
+            Files.write(cacheFile.toPath(), Arrays.copyOf(cache, cache.length / 2));
+            assertTrue(settings.load());
+            assertEquals("test", settings.get(TestNodes.STRING_NODE));
+
+            // The broken cache was replaced once the file was parsed.
+            assertArrayEquals(cache, Files.readAllBytes(cacheFile.toPath()));
+        } finally {
+            cacheFile.delete();
+        }
+    }
+}
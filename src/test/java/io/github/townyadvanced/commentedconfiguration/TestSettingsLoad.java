@@ -0,0 +1,255 @@
+package io.github.townyadvanced.commentedconfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.logging.Logger;
+
+import com.google.common.collect.Lists;
+import io.github.townyadvanced.commentedconfiguration.setting.Settings;
+import io.github.townyadvanced.commentedconfiguration.setting.SettingsManager;
+import io.github.townyadvanced.commentedconfiguration.setting.SettingsSnapshot;
+import io.github.townyadvanced.commentedconfiguration.setting.SimpleNode;
+import io.github.townyadvanced.commentedconfiguration.setting.TypedValueNode;
+import io.github.townyadvanced.commentedconfiguration.setting.ValueNode;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestSettingsLoad {
+    private static final File testdir = new File("bin/load/");
+
+    private final File configFile = new File("bin/load/config.yml");
+    private final Logger logger = Logger.getLogger("TestSettingsLoad");
+    private List<String> ogConfigFile;
+    private List<String> savedConfigFile;
+    private Settings settings;
+
+    @BeforeAll
+    public static void setUpAll() {
+        testdir.mkdirs();
+    }
+
+    @AfterAll
+    public static void tearDownAll() throws IOException {
+        FileUtils.deleteDirectory(testdir);
+        testdir.getParentFile().delete();
+    }
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        ogConfigFile = IOUtils.readLines(Objects.requireNonNull(this.getClass().getResourceAsStream("/og_config.yml")), StandardCharsets.UTF_8);
+        savedConfigFile = IOUtils.readLines(Objects.requireNonNull(this.getClass().getResourceAsStream("/saved_config.yml")), StandardCharsets.UTF_8);
+        FileUtils.writeLines(configFile, ogConfigFile);
+
+        settings = new Settings(configFile.toPath(), logger, TestNodes.getAllNodes());
+        assertTrue(settings.load());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        settings.shutdown();
+        configFile.delete();
+    }
+
+    @Test
+    @DisplayName("Keep the loaded values when reloading a broken configuration file.")
+    public void reloadBrokenFile() throws IOException {
+        SettingsSnapshot snapshot = settings.getSnapshot();
+        FileUtils.writeStringToFile(configFile, "test: [broken", StandardCharsets.UTF_8);
+        assertFalse(settings.load());
+        assertSame(snapshot, settings.getSnapshot());
+        assertEquals("test", settings.get(TestNodes.STRING_NODE));
+        assertEquals("test", snapshot.get(TestNodes.STRING_NODE));
+        assertEquals("test", settings.getConfig().getString("test.string"));
+    }
+
+    @Test
+    @DisplayName("Reload into the same configuration object.")
+    public void reloadSameConfig() throws IOException {
+        CommentedConfiguration config = settings.getConfig();
+        FileUtils.writeStringToFile(configFile, "test:\n  string: changed\n", StandardCharsets.UTF_8);
+        assertTrue(settings.load());
+        assertSame(config, settings.getConfig());
+        assertEquals("changed", config.getString("test.string"));
+        assertEquals(1234, config.getInt("test.integer"));
+    }
+
+    @Test
+    @DisplayName("Only reload the configuration file when it changed.")
+    public void reloadFile() throws IOException {
+        assertEquals(LoadResult.UNCHANGED, settings.reload());
+        assertTrue(configFile.setLastModified(configFile.lastModified() - 10000));
+        assertEquals(LoadResult.UNCHANGED, settings.reload());
+
+        settings.set(TestNodes.STRING_NODE, "unsaved");
+        assertEquals(LoadResult.LOADED, settings.reload());
+        assertEquals("test", settings.get(TestNodes.STRING_NODE));
+
+        FileUtils.writeStringToFile(configFile, "test:\n  string: changed\n", StandardCharsets.UTF_8);
+        assertEquals(LoadResult.LOADED, settings.reload());
+        assertEquals("changed", settings.get(TestNodes.STRING_NODE));
+        FileUtils.writeStringToFile(configFile, "test: [broken", StandardCharsets.UTF_8);
+        assertEquals(LoadResult.FAILED, settings.reload());
+    }
+
+    @Test
+    @DisplayName("Resolve only the set node and the nodes nested in or around it.")
+    public void setNestedNodes() {
+        TypedValueNode<Object> parent = SimpleNode.builder("nested", Object.class).build();
+        TypedValueNode<String> child = SimpleNode.builder("nested.child", String.class).defaultValue("default").build();
+        TypedValueNode<String> other = SimpleNode.builder("other", String.class).defaultValue("other").build();
+        Settings nested = new Settings(new File(testdir, "nested.yml").toPath(), logger,
+                Lists.newArrayList(parent, child, other));
+        assertTrue(nested.load());
+
+        nested.set(child, "value");
+        assertEquals("value", nested.get(child));
+        nested.set(parent, null);
+        assertEquals("default", nested.get(child));
+
+        // Changes made directly to the configuration are only resolved on refresh.
+        nested.getConfig().set("other", "direct");
+        nested.set(child, "again");
+        assertEquals("other", nested.get(other));
+        nested.refresh();
+        assertEquals("direct", nested.get(other));
+        assertEquals("again", nested.get(child));
+    }
+
+    @Test
+    @DisplayName("Parse top level sections lazily and save unused ones as they were.")
+    public void loadLazily() throws IOException {
+        List<String> worlds = Lists.newArrayList("worlds:", "  world:", "    pvp:   'yes'", "    spawn: [0, 64, 0]");
+        List<String> lines = new ArrayList<>(ogConfigFile);
+        lines.addAll(worlds);
+        FileUtils.writeLines(configFile, lines);
+
+        settings.setLazyLoading(true);
+        assertTrue(settings.load());
+        assertEquals("test", settings.get(TestNodes.STRING_NODE));
+        settings.set(TestNodes.STRING_NODE, "lazy");
+        settings.save();
+        List<String> saved = FileUtils.readLines(configFile, StandardCharsets.UTF_8);
+        assertEquals(worlds, saved.subList(saved.size() - worlds.size(), saved.size()));
+
+        assertTrue(settings.load());
+        assertEquals("lazy", settings.get(TestNodes.STRING_NODE));
+        assertEquals("yes", settings.getConfig().getString("worlds.world.pvp"));
+    }
+
+    @Test
+    @DisplayName("Get primitive nodes without boxing.")
+    public void getPrimitiveNodes() throws IOException {
+        Settings primitives = loadPrimitives("primitive:\n  int: 42\n  long: 42\n  double: 4.5\n  boolean: false\n");
+        assertEquals(42, primitives.getInt(TestNodes.PRIMITIVE_INT_NODE));
+        assertEquals(42L, primitives.getLong(TestNodes.PRIMITIVE_LONG_NODE));
+        assertEquals(4.5, primitives.getDouble(TestNodes.PRIMITIVE_DOUBLE_NODE));
+        assertFalse(primitives.getBoolean(TestNodes.PRIMITIVE_BOOLEAN_NODE));
+
+        primitives.set(TestNodes.PRIMITIVE_INT_NODE, 4321);
+        primitives.set(TestNodes.PRIMITIVE_BOOLEAN_NODE, true);
+        assertEquals(4321, primitives.getInt(TestNodes.PRIMITIVE_INT_NODE));
+        assertEquals(4321, primitives.get(TestNodes.PRIMITIVE_INT_NODE));
+        assertTrue(primitives.getBoolean(TestNodes.PRIMITIVE_BOOLEAN_NODE));
+        assertEquals(4321, primitives.getSnapshot().getInt(TestNodes.PRIMITIVE_INT_NODE));
+    }
+
+    @Test
+    @DisplayName("Convert numbers to the type of primitive nodes, and use the default for other values.")
+    public void convertPrimitiveNodes() throws IOException {
+        Settings primitives = loadPrimitives("primitive:\n  int: 5.9\n  long: 5.9\n  double: 5\n  boolean: 'yes'\n");
+        assertEquals(5, primitives.getInt(TestNodes.PRIMITIVE_INT_NODE));
+        assertEquals(5, primitives.get(TestNodes.PRIMITIVE_INT_NODE));
+        assertEquals(5L, primitives.getLong(TestNodes.PRIMITIVE_LONG_NODE));
+        assertEquals(5.0, primitives.getDouble(TestNodes.PRIMITIVE_DOUBLE_NODE));
+        assertTrue(primitives.getBoolean(TestNodes.PRIMITIVE_BOOLEAN_NODE));
+
+        primitives = loadPrimitives("primitive:\n  int: text\n  long: text\n  double: text\n");
+        assertEquals(1234, primitives.getInt(TestNodes.PRIMITIVE_INT_NODE));
+        assertEquals(123456789012L, primitives.getLong(TestNodes.PRIMITIVE_LONG_NODE));
+        assertEquals(12.5, primitives.getDouble(TestNodes.PRIMITIVE_DOUBLE_NODE));
+    }
+
+    @Test
+    @DisplayName("Count reads of nodes when access tracking is enabled.")
+    public void accessTracking() {
+        settings.get(TestNodes.STRING_NODE);
+        assertTrue(settings.getAccessCounts().isEmpty());
+
+        settings.setAccessTracking(true);
+        settings.get(TestNodes.STRING_NODE);
+        settings.get(TestNodes.STRING_NODE);
+        settings.get(TestNodes.INTEGER_NODE);
+        Map<ValueNode, Long> counts = settings.getAccessCounts();
+        assertEquals(TestNodes.STRING_NODE, counts.keySet().iterator().next());
+        assertEquals(2L, counts.get(TestNodes.STRING_NODE));
+        assertEquals(1L, counts.get(TestNodes.INTEGER_NODE));
+        assertEquals(0L, counts.get(TestNodes.LIST_NODE));
+    }
+
+    @Test
+    @DisplayName("Notify listeners only for nodes whose value changed.")
+    public void nodeListeners() throws IOException {
+        List<String> changes = new ArrayList<>();
+        settings.addListener(TestNodes.STRING_NODE, (oldValue, newValue) -> changes.add(oldValue + " -> " + newValue));
+        settings.addListener(TestNodes.INTEGER_NODE, (oldValue, newValue) -> changes.add(oldValue + " -> " + newValue));
+
+        settings.set(TestNodes.STRING_NODE, "test");
+        assertTrue(changes.isEmpty());
+
+        settings.set(TestNodes.STRING_NODE, "new string");
+        assertEquals(Lists.newArrayList("test -> new string"), changes);
+
+        assertTrue(settings.load());
+        assertEquals(Lists.newArrayList("test -> new string", "new string -> test"), changes);
+    }
+
+    @Test
+    @DisplayName("Load and save several configuration files in parallel.")
+    public void manageFiles() throws IOException {
+        File otherFile = new File(testdir, "other.yml");
+        try (SettingsManager manager = new SettingsManager(logger, 2)) {
+            manager.register("config", settings);
+            Settings other = manager.register("other", new Settings(otherFile.toPath(), (Logger) null, TestNodes.getAllNodes()));
+            assertTrue(manager.loadAll().isEmpty());
+            assertEquals(1234, other.get(TestNodes.INTEGER_NODE));
+
+            Map<String, SaveResult> results = manager.saveAll();
+            assertEquals(SaveResult.WRITTEN, results.get("config"));
+            assertEquals(SaveResult.WRITTEN, results.get("other"));
+            assertEquals(FileUtils.readLines(configFile, StandardCharsets.UTF_8), savedConfigFile);
+
+            FileUtils.writeStringToFile(otherFile, "test: [broken", StandardCharsets.UTF_8);
+            assertEquals(Collections.singleton("other"), manager.loadAll());
+        } finally {
+            otherFile.delete();
+        }
+    }
+
+    /**
+     * Loads settings of the primitive nodes from a file with the given contents.
+     */
+    private Settings loadPrimitives(String contents) throws IOException {
+        File primitiveFile = new File(testdir, "primitive.yml");
+        FileUtils.writeStringToFile(primitiveFile, contents, StandardCharsets.UTF_8);
+        Settings primitives = new Settings(primitiveFile.toPath(), logger, TestNodes.getPrimitiveNodes());
+        assertTrue(primitives.load());
+        return primitives;
+    }
+}
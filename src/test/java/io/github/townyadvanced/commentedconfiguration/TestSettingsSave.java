@@ -0,0 +1,326 @@
+package io.github.townyadvanced.commentedconfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import com.google.common.collect.Lists;
+import io.github.townyadvanced.commentedconfiguration.setting.Settings;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class TestSettingsSave {
+    private static final File testdir = new File("bin/save/");
+
+    private final File configFile = new File("bin/save/config.yml");
+    private final Logger logger = Logger.getLogger("TestSettingsSave");
+    private List<String> savedConfigFile;
+    private Settings settings;
+
+    @BeforeAll
+    public static void setUpAll() {
+        testdir.mkdirs();
+    }
+
+    @AfterAll
+    public static void tearDownAll() throws IOException {
+        FileUtils.deleteDirectory(testdir);
+        testdir.getParentFile().delete();
+    }
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        List<String> ogConfigFile = IOUtils.readLines(Objects.requireNonNull(this.getClass().getResourceAsStream("/og_config.yml")), StandardCharsets.UTF_8);
+        savedConfigFile = IOUtils.readLines(Objects.requireNonNull(this.getClass().getResourceAsStream("/saved_config.yml")), StandardCharsets.UTF_8);
+        FileUtils.writeLines(configFile, ogConfigFile);
+
+        settings = new Settings(configFile.toPath(), logger, TestNodes.getAllNodes());
+        assertTrue(settings.load());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        settings.shutdown();
+        configFile.delete();
+    }
+
+    @Test
+    @DisplayName("Skip saving the configuration file when nothing changed.")
+    public void saveFileUnchanged() throws IOException {
+        assertEquals(SaveResult.WRITTEN, settings.saveWithResult());
+        assertEquals(SaveResult.UNCHANGED, settings.saveWithResult());
+        settings.set(TestNodes.INTEGER_NODE, 4321);
+        assertEquals(SaveResult.WRITTEN, settings.saveWithResult());
+    }
+
+    @Test
+    @DisplayName("Save the configuration file with every durability.")
+    public void saveFileDurability() throws IOException {
+        for (Durability durability : Durability.values()) {
+            assertTrue(configFile.delete());
+            assertEquals(SaveResult.WRITTEN, settings.save(durability));
+            assertEquals(FileUtils.readLines(configFile, StandardCharsets.UTF_8), savedConfigFile);
+        }
+        assertEquals(1, Objects.requireNonNull(testdir.list()).length);
+    }
+
+    @Test
+    @DisplayName("Keep the permissions of the configuration file when saving.")
+    public void savePermissions() throws IOException {
+        assumeTrue(Files.getFileAttributeView(configFile.toPath(), PosixFileAttributeView.class) != null);
+        Set<PosixFilePermission> permissions = PosixFilePermissions.fromString("rw-r-----");
+        for (Durability durability : Durability.values()) {
+            Files.setPosixFilePermissions(configFile.toPath(), permissions);
+            settings.set(TestNodes.STRING_NODE, durability.name());
+            assertEquals(SaveResult.WRITTEN, settings.save(durability));
+            assertEquals(permissions, Files.getPosixFilePermissions(configFile.toPath()));
+        }
+    }
+
+    @Test
+    @DisplayName("Save the configuration file asynchronously, coalescing saves.")
+    public void saveFileAsync() throws IOException {
+        settings.set(TestNodes.STRING_NODE, "first");
+        CompletableFuture<SaveResult> first = settings.saveAsync();
+        settings.set(TestNodes.STRING_NODE, "test");
+        CompletableFuture<SaveResult> second = settings.saveAsync();
+        assertEquals(SaveResult.WRITTEN, second.join());
+        assertTrue(first.isDone());
+        assertTrue(settings.shutdown());
+        assertEquals(FileUtils.readLines(configFile, StandardCharsets.UTF_8), savedConfigFile);
+    }
+
+    @Test
+    @DisplayName("Complete the future exceptionally when an asynchronous save throws.")
+    public void saveAsyncThrows() throws Exception {
+        IllegalStateException failure = new IllegalStateException("broken listener");
+        MetricsListener listener = new MetricsListener() {
+            @Override
+            public void saved(@NotNull Path path, @NotNull SaveResult result, long serializeNanos, long commentNanos,
+                              long writeNanos, long bytes, int commentBlocks) {
+                throw failure;
+            }
+        };
+        settings.addMetricsListener(listener);
+        settings.set(TestNodes.STRING_NODE, "first");
+        ExecutionException thrown = assertThrows(ExecutionException.class, () -> settings.saveAsync().get(1, TimeUnit.MINUTES));
+        assertSame(failure, thrown.getCause());
+
+        // Later saves are still written.
+        settings.removeMetricsListener(listener);
+        settings.set(TestNodes.STRING_NODE, "test");
+        assertEquals(SaveResult.WRITTEN, settings.saveAsync().get(1, TimeUnit.MINUTES));
+        assertTrue(settings.shutdown());
+        assertEquals(FileUtils.readLines(configFile, StandardCharsets.UTF_8), savedConfigFile);
+    }
+
+    @Test
+    @DisplayName("Report loads and saves to metrics listeners.")
+    public void saveFileMetrics() throws IOException {
+        ConfigurationStatistics statistics = new ConfigurationStatistics();
+        settings.addMetricsListener(statistics);
+        assertTrue(settings.load());
+        assertEquals(1, statistics.getLoadCount());
+        assertEquals(configFile.length(), statistics.getBytesRead());
+
+        assertEquals(SaveResult.WRITTEN, settings.saveWithResult());
+        assertEquals(SaveResult.UNCHANGED, settings.saveWithResult());
+        assertEquals(1, statistics.getSaveCount());
+        assertEquals(1, statistics.getUnchangedSaveCount());
+        assertEquals(configFile.length(), statistics.getBytesWritten());
+        assertTrue(statistics.getTotalSaveNanos() > 0);
+    }
+
+    @Test
+    @DisplayName("Report the serialize and comment timings of synchronous and asynchronous saves.")
+    public void saveTimings() throws Exception {
+        ConfigurationStatistics statistics = new ConfigurationStatistics();
+        settings.addMetricsListener(statistics);
+        int commentedNodes = TestNodes.getAllNodes().size();
+
+        assertEquals(SaveResult.WRITTEN, settings.saveWithResult());
+        assertTrue(statistics.getLastSerializeNanos() > 0);
+        assertTrue(statistics.getLastCommentNanos() > 0);
+        assertEquals(commentedNodes, statistics.getCommentBlocksWritten());
+
+        settings.set(TestNodes.STRING_NODE, "async");
+        statistics.reset();
+        assertEquals(SaveResult.WRITTEN, settings.saveAsync().get());
+        assertTrue(statistics.getLastSerializeNanos() > 0);
+        assertTrue(statistics.getLastCommentNanos() > 0);
+        assertEquals(commentedNodes, statistics.getCommentBlocksWritten());
+    }
+
+    @Test
+    @DisplayName("Patch only the changed values into the saved file.")
+    public void patchSave() throws IOException {
+        settings.save();
+        CommentedConfiguration config = new CommentedConfiguration(configFile.toPath(), logger);
+        config.setPatchSaving(true);
+        assertTrue(config.load());
+
+        config.set("test.string", "a longer string: with a colon");
+        config.set("test.integer", 4321);
+        assertEquals(SaveResult.WRITTEN, config.saveWithResult());
+        List<String> expected = new ArrayList<>(savedConfigFile);
+        expected.set(expected.indexOf("  string: test"), "  string: 'a longer string: with a colon'");
+        expected.set(expected.indexOf("  integer: 1234"), "  integer: 4321");
+        assertEquals(expected, FileUtils.readLines(configFile, StandardCharsets.UTF_8));
+        assertEquals(SaveResult.UNCHANGED, config.saveWithResult());
+
+        config.set("test.integer", 1234);
+        assertEquals(SaveResult.WRITTEN, config.save(Durability.DIRECT));
+        config.set("test.boolean", false);
+        assertEquals(SaveResult.WRITTEN, config.save(Durability.DIRECT));
+        expected.set(expected.indexOf("  integer: 4321"), "  integer: 1234");
+        expected.set(expected.indexOf("  boolean: true"), "  boolean: false");
+        assertEquals(expected, FileUtils.readLines(configFile, StandardCharsets.UTF_8));
+
+        // A changed list cannot be patched, so the file is saved in full.
+        config.set("test.nested.list", Lists.newArrayList("one"));
+        assertEquals(SaveResult.WRITTEN, config.saveWithResult());
+        assertTrue(config.load());
+        assertEquals(Lists.newArrayList("one"), config.get("test.nested.list"));
+        assertEquals("a longer string: with a colon", config.getString("test.string"));
+        assertEquals(1, Objects.requireNonNull(testdir.list()).length);
+    }
+
+    @Test
+    @DisplayName("Patch the changed values when saving settings, and report the bytes written.")
+    public void patchSettingsSave() throws Exception {
+        settings.setPatchSaving(true);
+        assertEquals(SaveResult.WRITTEN, settings.saveWithResult());
+        ConfigurationStatistics statistics = new ConfigurationStatistics();
+        settings.addMetricsListener(statistics);
+
+        settings.set(TestNodes.INTEGER_NODE, 4321);
+        assertEquals(SaveResult.WRITTEN, settings.save(Durability.DIRECT));
+        List<String> expected = new ArrayList<>(savedConfigFile);
+        expected.set(expected.indexOf("  integer: 1234"), "  integer: 4321");
+        assertEquals(expected, FileUtils.readLines(configFile, StandardCharsets.UTF_8));
+        assertEquals(0, statistics.getLastCommentNanos());
+        assertEquals(4, statistics.getBytesWritten());
+
+        // The copy that is moved over the file is written in full.
+        statistics.reset();
+        settings.set(TestNodes.STRING_NODE, "async");
+        assertEquals(SaveResult.WRITTEN, settings.saveAsync().get(1, TimeUnit.MINUTES));
+        expected.set(expected.indexOf("  string: test"), "  string: async");
+        assertEquals(expected, FileUtils.readLines(configFile, StandardCharsets.UTF_8));
+        assertEquals(0, statistics.getLastCommentNanos());
+        assertEquals(configFile.length(), statistics.getBytesWritten());
+
+        // A file changed after serializing is given the patched contents in full.
+        settings.set(TestNodes.INTEGER_NODE, 1234);
+        SerializedConfiguration serialized = settings.getConfig().serialize();
+        FileUtils.writeLines(configFile, Lists.newArrayList("changed: true"));
+        assertEquals(SaveResult.WRITTEN, settings.getConfig().save(serialized, Durability.ATOMIC));
+        expected.set(expected.indexOf("  integer: 4321"), "  integer: 1234");
+        assertEquals(expected, FileUtils.readLines(configFile, StandardCharsets.UTF_8));
+        assertEquals(1, Objects.requireNonNull(testdir.list()).length);
+    }
+
+    @Test
+    @DisplayName("Keep the comments after patched values.")
+    public void patchInlineComments() throws IOException {
+        FileUtils.writeLines(configFile, Lists.newArrayList(
+                "test:",
+                "  integer: 1234 # The limit",
+                "  string: 'it''s # not a comment'   # A note",
+                "  quoted: \"say \\\"hi\\\"\" #A quote",
+                "  url: http://example.com/#top # A link"));
+        CommentedConfiguration config = new CommentedConfiguration(configFile.toPath(), logger);
+        config.setPatchSaving(true);
+        assertTrue(config.load());
+        assertEquals("it's # not a comment", config.getString("test.string"));
+        assertEquals("http://example.com/#top", config.getString("test.url"));
+
+        config.set("test.integer", 4321);
+        config.set("test.string", "changed");
+        config.set("test.quoted", "say bye");
+        config.set("test.url", "http://example.com/#bottom");
+        assertEquals(SaveResult.WRITTEN, config.saveWithResult());
+        assertEquals(Lists.newArrayList(
+                "test:",
+                "  integer: 4321 # The limit",
+                "  string: changed   # A note",
+                "  quoted: say bye #A quote",
+                "  url: http://example.com/#bottom # A link"), FileUtils.readLines(configFile, StandardCharsets.UTF_8));
+        assertTrue(config.load());
+        assertEquals(4321, config.getInt("test.integer"));
+        assertEquals("say bye", config.getString("test.quoted"));
+    }
+
+    @Test
+    @DisplayName("Save the file in full when the header changed.")
+    public void saveChangedHeader() throws IOException {
+        settings.save();
+        CommentedConfiguration config = new CommentedConfiguration(configFile.toPath(), logger);
+        config.setPatchSaving(true);
+        assertTrue(config.load());
+
+        config.options().header("A new header");
+        config.set("test.integer", 4321);
+        assertEquals(SaveResult.WRITTEN, config.saveWithResult());
+        List<String> lines = FileUtils.readLines(configFile, StandardCharsets.UTF_8);
+        assertEquals("# A new header", lines.get(0));
+        assertTrue(lines.contains("  integer: 4321"), lines.toString());
+
+        // Once saved with the new header, values are patched again.
+        config.set("test.integer", 1234);
+        assertEquals(SaveResult.WRITTEN, config.saveWithResult());
+        lines.set(lines.indexOf("  integer: 4321"), "  integer: 1234");
+        assertEquals(lines, FileUtils.readLines(configFile, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("Replay values set since the last save from the journal.")
+    public void journal() throws IOException {
+        File journalFile = new File(testdir, ".config.yml.journal");
+        try {
+            settings.enableJournal(0, TimeUnit.MILLISECONDS);
+            settings.set(TestNodes.STRING_NODE, "journaled");
+            settings.set(TestNodes.INTEGER_NODE, 4321);
+            assertTrue(journalFile.length() > 0);
+
+            Settings restarted = new Settings(configFile.toPath(), logger, TestNodes.getAllNodes());
+            restarted.enableJournal(0, TimeUnit.MILLISECONDS);
+            assertTrue(restarted.load());
+            assertEquals("journaled", restarted.get(TestNodes.STRING_NODE));
+            assertEquals(4321, restarted.get(TestNodes.INTEGER_NODE));
+            restarted.disableJournal();
+
+            assertEquals(SaveResult.WRITTEN, settings.saveWithResult());
+            assertEquals(0, journalFile.length());
+        } finally {
+            settings.disableJournal();
+            journalFile.delete();
+        }
+    }
+}
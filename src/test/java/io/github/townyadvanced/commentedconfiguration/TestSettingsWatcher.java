@@ -0,0 +1,147 @@
+package io.github.townyadvanced.commentedconfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import com.google.common.collect.Lists;
+import io.github.townyadvanced.commentedconfiguration.setting.Settings;
+import io.github.townyadvanced.commentedconfiguration.setting.SettingsWatcher;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestSettingsWatcher {
+    private static final File testdir = new File("bin/watcher/");
+    private static final long DEBOUNCE_MILLIS = 500;
+    private static final long TIMEOUT_MILLIS = 15000;
+
+    private final File configFile = new File("bin/watcher/config.yml");
+    private Settings settings;
+    private SettingsWatcher watcher;
+    private ConfigurationStatistics statistics;
+    private final BlockingQueue<LoadResult> results = new LinkedBlockingQueue<>();
+
+    @BeforeAll
+    public static void setUpAll() {
+        testdir.mkdirs();
+    }
+
+    @AfterAll
+    public static void tearDownAll() throws IOException {
+        FileUtils.deleteDirectory(testdir);
+        testdir.getParentFile().delete();
+    }
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        List<String> ogConfigFile = IOUtils.readLines(Objects.requireNonNull(this.getClass().getResourceAsStream("/og_config.yml")), StandardCharsets.UTF_8);
+        FileUtils.writeLines(configFile, ogConfigFile);
+
+        settings = new Settings(configFile.toPath(), Logger.getLogger("TestSettingsWatcher"), TestNodes.getAllNodes());
+        assertTrue(settings.load());
+        statistics = new ConfigurationStatistics();
+        settings.addMetricsListener(statistics);
+        watcher = new SettingsWatcher(settings, DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS, results::add);
+        watcher.start();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        watcher.close();
+        settings.shutdown();
+        configFile.delete();
+    }
+
+    @Test
+    @DisplayName("Reload the file once after a burst of edits has settled.")
+    public void debounce() throws Exception {
+        List<String> changes = Collections.synchronizedList(new ArrayList<>());
+        settings.addListener(TestNodes.STRING_NODE, (oldValue, newValue) -> changes.add(newValue));
+
+        writeString("first");
+        writeString("second");
+        assertEquals(LoadResult.LOADED, awaitResult());
+        assertEquals("second", settings.get(TestNodes.STRING_NODE));
+        assertEquals(Lists.newArrayList("second"), changes);
+        assertEquals(1, statistics.getLoadCount());
+    }
+
+    @Test
+    @DisplayName("Ignore changes made by the settings' own saves.")
+    public void ignoreOwnSaves() throws Exception {
+        settings.set(TestNodes.STRING_NODE, "saved");
+        assertEquals(SaveResult.WRITTEN, settings.saveWithResult());
+        assertEquals(LoadResult.UNCHANGED, awaitResult());
+        assertEquals(0, statistics.getLoadCount());
+
+        writeString("edited");
+        assertEquals(LoadResult.LOADED, awaitResult());
+        assertEquals("edited", settings.get(TestNodes.STRING_NODE));
+    }
+
+    @Test
+    @DisplayName("Keep values that were set but not saved when the file is edited.")
+    public void keepUnsavedValues() throws Exception {
+        settings.set(TestNodes.STRING_NODE, "unsaved");
+        writeString("edited");
+        assertEquals(LoadResult.UNCHANGED, awaitResult());
+        assertEquals("unsaved", settings.get(TestNodes.STRING_NODE));
+        assertEquals(0, statistics.getLoadCount());
+
+        // Once saved, later edits are reloaded again.
+        settings.save();
+        assertEquals(LoadResult.UNCHANGED, awaitResult());
+        writeString("edited again");
+        assertEquals(LoadResult.LOADED, awaitResult());
+        assertEquals("edited again", settings.get(TestNodes.STRING_NODE));
+    }
+
+    @Test
+    @DisplayName("Stop reloading once closed, and start again when restarted.")
+    public void closeAndRestart() throws Exception {
+        List<String> changes = Collections.synchronizedList(new ArrayList<>());
+        settings.addListener(TestNodes.STRING_NODE, (oldValue, newValue) -> changes.add(newValue));
+
+        watcher.close();
+        watcher.close();
+        writeString("closed");
+
+        // Only the edit made after restarting is reloaded.
+        watcher.start();
+        writeString("restarted");
+        assertEquals(LoadResult.LOADED, awaitResult());
+        assertEquals(Lists.newArrayList("restarted"), changes);
+        assertEquals(1, statistics.getLoadCount());
+    }
+
+    private void writeString(String value) throws IOException {
+        FileUtils.writeStringToFile(configFile, "test:\n  string: " + value + "\n", StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Waits for the watcher to check the file once it settled, failing if it does not within the timeout.
+     */
+    private LoadResult awaitResult() throws InterruptedException {
+        LoadResult result = results.poll(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        assertNotNull(result, "Timed out waiting for the watcher");
+        return result;
+    }
+}